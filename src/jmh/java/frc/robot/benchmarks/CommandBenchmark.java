@@ -0,0 +1,85 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.commands.LimelightShoot;
+import frc.robot.commands.ManualShoot;
+import frc.robot.subsystems.Limelight;
+import frc.robot.subsystems.Magazine;
+import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.io.MagazineIOSim;
+import frc.robot.subsystems.io.ShooterIOSim;
+
+/**
+ * Cost of building the shooting command groups, and of getting one through
+ * its first scheduler loop, which is what happens every time a button is
+ * pressed. Subsystem periodics are left out so only the commands are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommandBenchmark {
+    private Shooter shooter;
+    private Magazine magazine;
+    private Limelight limelight;
+    private CommandScheduler scheduler;
+
+    @Setup
+    public void setup() {
+        HAL.initialize(500, 0);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+
+        shooter = new Shooter(new ShooterIOSim());
+        magazine = new Magazine(new MagazineIOSim());
+        limelight = new Limelight();
+        scheduler = CommandScheduler.getInstance();
+        scheduler.unregisterSubsystem(shooter, magazine, limelight);
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.cancelAll();
+    }
+
+    @Benchmark
+    public Command constructManualShoot() {
+        return new ManualShoot(shooter, magazine, () -> 7000, () -> -5);
+    }
+
+    @Benchmark
+    public Command constructLimelightShoot() {
+        return new LimelightShoot(shooter, magazine, limelight);
+    }
+
+    @Benchmark
+    public Command scheduleManualShoot() {
+        Command command = new ManualShoot(shooter, magazine, () -> 7000, () -> -5);
+        scheduler.schedule(command);
+        scheduler.run();
+        command.cancel();
+        return command;
+    }
+
+    @Benchmark
+    public Command scheduleLimelightShoot() {
+        Command command = new LimelightShoot(shooter, magazine, limelight);
+        scheduler.schedule(command);
+        scheduler.run();
+        command.cancel();
+        return command;
+    }
+}
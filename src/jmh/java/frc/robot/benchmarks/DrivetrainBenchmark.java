@@ -0,0 +1,96 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants;
+import frc.robot.util.SwerveKinematics;
+import frc.robot.util.VisionPoseEstimator;
+
+/**
+ * Drivetrain kinematics and odometry, ours against the WPILib versions they
+ * replaced. Ours should show 0 for gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DrivetrainBenchmark {
+    private static final double X = Constants.Drivetrain.TRACKWIDTH_METERS / 2.0;
+    private static final double Y = Constants.Drivetrain.WHEELBASE_METERS / 2.0;
+
+    private SwerveKinematics kinematics;
+    private SwerveDriveKinematics wpilibKinematics;
+    private VisionPoseEstimator estimator;
+    private SwerveDriveOdometry wpilibOdometry;
+
+    private final double[] speeds = new double[4];
+    private final double[] angles = new double[4];
+    private final double[] chassisSpeeds = new double[3];
+    private SwerveModuleState[] states;
+    private double timestamp = 0;
+
+    @Setup
+    public void setup() {
+        kinematics = new SwerveKinematics(Constants.Drivetrain.TRACKWIDTH_METERS,
+                Constants.Drivetrain.WHEELBASE_METERS);
+        wpilibKinematics = new SwerveDriveKinematics(
+                new Translation2d(X, Y), new Translation2d(X, -Y), new Translation2d(-X, Y), new Translation2d(-X, -Y));
+        estimator = new VisionPoseEstimator(kinematics, Constants.Drivetrain.VISION_GAIN);
+        wpilibOdometry = new SwerveDriveOdometry(wpilibKinematics, new Rotation2d());
+
+        kinematics.toModuleStates(1.5, -0.5, 2, speeds, angles);
+        states = wpilibKinematics.toSwerveModuleStates(new ChassisSpeeds(1.5, -0.5, 2));
+    }
+
+    @Benchmark
+    public double[] inverseKinematics() {
+        kinematics.toModuleStates(1.5, -0.5, 2, speeds, angles);
+        SwerveKinematics.desaturate(speeds, Constants.Swerve.MAX_VELOCITY_METERS);
+        return speeds;
+    }
+
+    @Benchmark
+    public SwerveModuleState[] wpilibInverseKinematics() {
+        SwerveModuleState[] result = wpilibKinematics.toSwerveModuleStates(new ChassisSpeeds(1.5, -0.5, 2));
+        SwerveDriveKinematics.desaturateWheelSpeeds(result, Constants.Swerve.MAX_VELOCITY_METERS);
+        return result;
+    }
+
+    @Benchmark
+    public double[] forwardKinematics() {
+        kinematics.toChassisSpeeds(speeds, angles, chassisSpeeds);
+        return chassisSpeeds;
+    }
+
+    @Benchmark
+    public ChassisSpeeds wpilibForwardKinematics() {
+        return wpilibKinematics.toChassisSpeeds(states);
+    }
+
+    @Benchmark
+    public double odometryUpdate() {
+        timestamp += 0.004;
+        estimator.update(timestamp, timestamp * 0.1, speeds, angles);
+        return estimator.getX();
+    }
+
+    @Benchmark
+    public Pose2d wpilibOdometryUpdate() {
+        timestamp += 0.004;
+        return wpilibOdometry.updateWithTime(timestamp, new Rotation2d(timestamp * 0.1), states);
+    }
+}
@@ -0,0 +1,197 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.system.LinearSystem;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants;
+import frc.robot.util.FlywheelController;
+import frc.robot.util.ShotMap;
+
+/**
+ * The flywheel's state space controller, against the Talon velocity PIDF it
+ * replaced.
+ *
+ * <p>
+ * {@link #stateSpaceLoop()} is the cost of one robot loop of the controller.
+ * {@link #settlingTime(SettlingTimes)} simulates every shot map preset
+ * spinning up from rest and recovering from a shot, and reports the average
+ * seconds each controller takes to settle as secondary results. The
+ * controller is designed on the kV and kA in Constants, which aren't
+ * characterized, so the simulated flywheel is also run heavier, lighter and
+ * weaker than that, to see how each controller holds up when the model is
+ * wrong.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FlywheelBenchmark {
+    private static final double DT = 0.02;
+    // Talon closed loop rate, and how finely the flywheel is simulated
+    private static final double TALON_DT = 0.001;
+    // Same as the System Check
+    private static final double TOLERANCE = 200;
+
+    /** How the simulated flywheel differs from the design model. */
+    @Param({ "DESIGN", "HEAVIER", "LIGHTER", "WEAKER" })
+    public PlantError plantError;
+
+    public enum PlantError {
+        DESIGN(1, 1),
+        // Twice the inertia, like a heavier wheel than CAD
+        HEAVIER(1, 2),
+        LIGHTER(1, 0.5),
+        // More volts for the same speed, like extra friction
+        WEAKER(1.15, 1);
+
+        final double kVScale;
+        final double kAScale;
+
+        PlantError(double kVScale, double kAScale) {
+            this.kVScale = kVScale;
+            this.kAScale = kAScale;
+        }
+    }
+
+    /** Average seconds to settle over the presets, as secondary results. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SettlingTimes {
+        public double pidfSpinUp;
+        public double stateSpaceSpinUp;
+        public double pidfRecovery;
+        public double stateSpaceRecovery;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            pidfSpinUp = 0;
+            stateSpaceSpinUp = 0;
+            pidfRecovery = 0;
+            stateSpaceRecovery = 0;
+        }
+    }
+
+    private LinearSystem<N1, N1, N1> plant;
+    private double[] presets;
+    private FlywheelController controller;
+    private double velocity = 0;
+
+    @Setup
+    public void setup() {
+        plant = LinearSystemId.identifyVelocitySystem(Constants.Shooter.kV * plantError.kVScale,
+                Constants.Shooter.kA * plantError.kAScale);
+        presets = ShotMap.loadFromDeploy().getPresetRpms();
+        controller = controller();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public double stateSpaceLoop() {
+        // Moving measurement so the JIT can't fold the whole thing into a
+        // constant
+        velocity = velocity > 900 ? 0 : velocity + 1;
+        controller.correct(velocity);
+        return controller.calculate(toRadiansPerSecond(15000));
+    }
+
+    /** One run over every preset per iteration, so the counters are per run. */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void settlingTime(SettlingTimes times) {
+        for (double target : presets) {
+            times.pidfSpinUp += pidfTime(target, 0) / presets.length;
+            times.stateSpaceSpinUp += stateSpaceTime(target, 0) / presets.length;
+            // A shot takes roughly a fifth of the speed out of the flywheel
+            times.pidfRecovery += pidfTime(target, target * 0.8) / presets.length;
+            times.stateSpaceRecovery += stateSpaceTime(target, target * 0.8) / presets.length;
+        }
+    }
+
+    private FlywheelController controller() {
+        return new FlywheelController(Constants.Shooter.kV, Constants.Shooter.kA,
+                Constants.Shooter.LQR_VELOCITY_TOLERANCE, Constants.Shooter.LQR_VOLTAGE_TOLERANCE,
+                Constants.Shooter.MODEL_STD_DEV, Constants.Shooter.MEASUREMENT_STD_DEV,
+                Constants.Shooter.MAX_VOLTAGE, DT);
+    }
+
+    /**
+     * Time for the flywheel to get within tolerance and stay there, for the
+     * state space controller running in the robot loop. Never settling counts
+     * as the whole 3 seconds.
+     */
+    private double stateSpaceTime(double target, double start) {
+        FlywheelSim flywheel = simulatedFlywheel(start);
+        FlywheelController controller = controller();
+        controller.reset(toRadiansPerSecond(start));
+        double settled = Double.NaN;
+        int steps = (int) Math.round(DT / TALON_DT);
+        for (double time = 0; time < 3; time += DT) {
+            controller.correct(flywheel.getAngularVelocityRadPerSec());
+            flywheel.setInputVoltage(controller.calculate(toRadiansPerSecond(target)));
+            for (int i = 1; i <= steps; i++) {
+                flywheel.update(TALON_DT);
+                settled = track(settled, flywheel, target, time + i * TALON_DT);
+            }
+        }
+        return Double.isNaN(settled) ? 3 : settled;
+    }
+
+    /**
+     * Same as {@link #stateSpaceTime(double, double)}, for the Talon's velocity
+     * PIDF running at 1kHz with the old gains. This leaves out the Talon's
+     * velocity measurement lag, so it's a best case for the PIDF.
+     */
+    private double pidfTime(double target, double start) {
+        FlywheelSim flywheel = simulatedFlywheel(start);
+        double settled = Double.NaN;
+        double integral = 0;
+        double lastError = target - start;
+        for (double time = 0; time < 3; time += TALON_DT) {
+            double error = target - toNative(flywheel.getAngularVelocityRadPerSec());
+            integral = Math.abs(error) < 50 ? integral + error : 0;
+            double output = (Constants.Shooter.kF * target + Constants.Shooter.kP * error
+                    + Constants.Shooter.kI * integral + Constants.Shooter.kD * (error - lastError)) / 1023.0;
+            lastError = error;
+            flywheel.setInputVoltage(Math.max(-1, Math.min(1, output)) * Constants.Shooter.MAX_VOLTAGE);
+            flywheel.update(TALON_DT);
+            settled = track(settled, flywheel, target, time + TALON_DT);
+        }
+        return Double.isNaN(settled) ? 3 : settled;
+    }
+
+    private FlywheelSim simulatedFlywheel(double start) {
+        FlywheelSim flywheel = new FlywheelSim(plant, DCMotor.getFalcon500(2), 1.0);
+        flywheel.setState(VecBuilder.fill(toRadiansPerSecond(start)));
+        return flywheel;
+    }
+
+    private static double track(double settled, FlywheelSim flywheel, double target, double time) {
+        if (Math.abs(toNative(flywheel.getAngularVelocityRadPerSec()) - target) > TOLERANCE) {
+            return Double.NaN;
+        }
+        return Double.isNaN(settled) ? time : settled;
+    }
+
+    private static double toRadiansPerSecond(double velocity) {
+        return velocity * 10.0 / Constants.Shooter.TICKS_PER_REV * 2 * Math.PI;
+    }
+
+    private static double toNative(double radiansPerSecond) {
+        return radiansPerSecond / (2 * Math.PI) * Constants.Shooter.TICKS_PER_REV / 10.0;
+    }
+}
@@ -0,0 +1,68 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.robot.Constants;
+import frc.robot.subsystems.Limelight;
+import frc.robot.util.MathUtilities;
+import frc.robot.util.ShootOnTheMoveSolver;
+import frc.robot.util.ShotMap;
+
+/**
+ * Shot lookup math that runs every loop while shooting.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShooterMathBenchmark {
+    private Limelight limelight;
+    private final ShotMap.Shot shot = new ShotMap.Shot();
+    private double key = 0;
+    private ShootOnTheMoveSolver solver;
+    private ShotMap shotMap;
+
+    @Setup
+    public void setup() {
+        HAL.initialize(500, 0);
+        limelight = new Limelight();
+        NetworkTable table = NetworkTableInstance.getDefault().getTable("limelight");
+        table.getEntry("tv").setDouble(1);
+        table.getEntry("ty").setDouble(-3);
+
+        solver = new ShootOnTheMoveSolver(Constants.Field.HUB_LOCATION, Constants.Turret.TIME_OF_FLIGHT,
+                -Constants.Limelight.CAMERA_OFFSET.getX(), Constants.ShootOnTheMove.SOLVER_TOLERANCE_SECONDS,
+                Constants.ShootOnTheMove.SOLVER_MAX_ITERATIONS);
+        shotMap = ShotMap.loadFromDeploy();
+    }
+
+    @Benchmark
+    public ShotMap.Shot calcHoodAndRPM() {
+        limelight.calcHoodAndRPM(shot);
+        return shot;
+    }
+
+    @Benchmark
+    public double interpolate() {
+        // Moving key so the JIT can't fold the whole thing into a constant
+        key = key > 10 ? 0 : key + 0.1;
+        return MathUtilities.interpolate(0, 10, 7000, 9000, key);
+    }
+
+    @Benchmark
+    public double solveShotOnTheMove() {
+        key = key > 10 ? 0 : key + 0.1;
+        solver.solve(4 + key * 0.1, 3, 1.5, -1, shotMap);
+        return solver.getRpm();
+    }
+}
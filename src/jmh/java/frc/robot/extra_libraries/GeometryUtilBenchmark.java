@@ -0,0 +1,61 @@
+package frc.robot.extra_libraries;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Path interpolation helpers. Lives in this package because GeometryUtil's
+ * methods are protected.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeometryUtilBenchmark {
+    private final Rotation2d startRotation = Rotation2d.fromDegrees(10);
+    private final Rotation2d endRotation = Rotation2d.fromDegrees(170);
+    private final Translation2d a = new Translation2d(0, 0);
+    private final Translation2d b = new Translation2d(1, 2);
+    private final Translation2d c = new Translation2d(3, 2);
+    private final Translation2d d = new Translation2d(4, 0);
+    private double t = 0;
+
+    private double nextT() {
+        // Moving t so the JIT can't fold the whole thing into a constant
+        t = t > 1 ? 0 : t + 0.01;
+        return t;
+    }
+
+    @Benchmark
+    public double doubleLerp() {
+        return GeometryUtil.doubleLerp(0, 10, nextT());
+    }
+
+    @Benchmark
+    public Rotation2d rotationLerp() {
+        return GeometryUtil.rotationLerp(startRotation, endRotation, nextT());
+    }
+
+    @Benchmark
+    public Translation2d translationLerp() {
+        return GeometryUtil.translationLerp(a, b, nextT());
+    }
+
+    @Benchmark
+    public Translation2d quadraticLerp() {
+        return GeometryUtil.quadraticLerp(a, b, c, nextT());
+    }
+
+    @Benchmark
+    public Translation2d cubicLerp() {
+        return GeometryUtil.cubicLerp(a, b, c, d, nextT());
+    }
+}
@@ -52,6 +52,21 @@ public final class Constants {
         public static final SwerveConstants FRONT_RIGHT = new SwerveConstants(3, 4, 10, 343.473046875);
         public static final SwerveConstants BACK_LEFT = new SwerveConstants(5, 6, 11, 88.93828125-180);
         public static final SwerveConstants BACK_RIGHT = new SwerveConstants(7, 8, 12, 45.084375-180);
+
+        // Calibration store keys. Steer offsets there override the ones
+        // above, the module index is appended.
+        public static final String STEER_OFFSET_CALIBRATION = "Drivetrain/SteerOffset/";
+        public static final String GYRO_OFFSET_CALIBRATION = "Drivetrain/GyroOffset";
+        public static final String GYRO_YAW_CALIBRATION = "Drivetrain/GyroYaw";
+        // How far the Pigeon's yaw can be from the saved one and still be
+        // trusted to have kept its heading through a reboot
+        public static final double GYRO_RESTORE_TOLERANCE_DEGREES = 2;
+
+        // Odometry runs on its own thread, much faster than the 50 Hz main loop
+        public static final double ODOMETRY_PERIOD_SECONDS = 1.0 / 250.0;
+        // Fraction of the error a single vision measurement corrects. The
+        // Limelight runs at 90 fps so this still converges in well under a second.
+        public static final double VISION_GAIN = 0.05;
     }
 
     public static final class Magazine {
@@ -60,13 +75,63 @@ public final class Constants {
         public static final int LOWER_SENSOR = 1;
         public static final int UPPER_SENSOR = 0;
 
+        // Defaults until the sensors are calibrated, raw 12 bit readings
         public static final double UPPER_SENSOR_THRESHOLD = 1000;
         public static final double LOWER_SENSOR_THRESHOLD = 1000;
+        // The trigger flips this far past the threshold either way
+        public static final double SENSOR_HYSTERESIS = 100;
+        // Each reading averages 2^bits FPGA samples, 16 at 50kHz is a new
+        // value every 0.3ms
+        public static final int SENSOR_AVERAGE_BITS = 4;
+        public static final int SENSOR_OVERSAMPLE_BITS = 0;
+        public static final String LOWER_SENSOR_CALIBRATION = "Magazine/LowerSensorThreshold";
+        public static final String UPPER_SENSOR_CALIBRATION = "Magazine/UpperSensorThreshold";
+
+        public static final int MAX_CARGO = 2;
+
+        // Indexing and rapid fire, velocities in SparkMax units
+        public static final double FEED_SPEED = 9000;
+        public static final double STAGE_UPPER_SPEED = 2500;
+        public static final double STAGE_LOWER_SPEED = 7000;
+        // Lower magazine while waiting for cargo from the intake
+        public static final double PULL_IN_LOWER_SPEED = 5000;
+        // Longest it takes to get the next cargo up to the upper sensor, past
+        // this it's assumed there isn't one
+        public static final double STAGE_TIMEOUT_SECONDS = 0.5;
+        // Longest cargo takes from the lower sensor to the upper one while
+        // staging, past this cargo thought to be in between isn't there
+        public static final double TRANSIT_SECONDS = 0.75;
+        // Time for the last cargo to clear the flywheel
+        public static final double CLEAR_SECONDS = 0.25;
+
+        // Lower magazine jams, see CurrentSignatureDetector
+        public static final int JAM_WINDOW_SAMPLES = 20;
+        public static final double JAM_CURRENT = 20;
+        public static final double JAM_SPEED = 500;
+        public static final double ACQUIRE_CURRENT_RISE = 4;
+        public static final double JAM_HOLDOFF_SECONDS = 0.5;
+        // Backs the cargo out this long before trying again
+        public static final double JAM_REVERSE_SPEED = 5000;
+        public static final double JAM_REVERSE_SECONDS = 0.3;
     }
 
     public static final class Intake {
         public static final int MOTOR_ID = 18;
         public static final int SOLENOID_ID = 0;
+
+        public static final double INTAKE_SPEED = -0.8;
+        // Intake and magazine motor current and speed are sampled this often,
+        // faster than the loop to catch cargo going by
+        public static final double MOTOR_SAMPLE_PERIOD_SECONDS = 0.005;
+        public static final int JAM_WINDOW_SAMPLES = 20;
+        public static final double JAM_CURRENT = 25;
+        public static final double JAM_SPEED = 1000;
+        public static final double ACQUIRE_CURRENT_RISE = 5;
+        public static final double JAM_HOLDOFF_SECONDS = 0.5;
+        public static final double JAM_REVERSE_SPEED = 0.5;
+        public static final double JAM_REVERSE_SECONDS = 0.3;
+        // Gives up and stows the intake after this many jams in a row
+        public static final int JAM_MAX_RETRIES = 3;
     }
 
     public static final class Shooter {
@@ -78,6 +143,81 @@ public final class Constants {
         public static final double kI = 0.01;
         public static final double kD = 0.01;
         public static final double kF = 0.0639;
+
+        // Flywheel velocities are in Talon units, ticks per 100ms
+        public static final double TICKS_PER_REV = 2048;
+
+        // Flywheel model, volts per radian per second and volts per radian per
+        // second squared. Not characterized yet: kV is the old Talon kF
+        // converted to volts, and kA is from the flywheel's moment of inertia
+        // in CAD. FlywheelBenchmark checks the controller against plants that
+        // are off from this in both directions.
+        // TODO: Run SysId's flywheel routine on the robot and put its kV and
+        // kA here, the LQR and Kalman filter are only as good as these
+        public static final double kV = kF * 12.0 / 1023.0 * TICKS_PER_REV / (2 * Math.PI * 10);
+        public static final double kA = 0.005;
+
+        // LQR and Kalman filter tuning, radians per second and volts
+        public static final double LQR_VELOCITY_TOLERANCE = 8;
+        public static final double LQR_VOLTAGE_TOLERANCE = 12;
+        public static final double MODEL_STD_DEV = 3;
+        public static final double MEASUREMENT_STD_DEV = 0.01;
+        public static final double MAX_VOLTAGE = 12;
+
+        // Hood SmartMotion, in encoder rotations and RPM. SmartMotion runs a
+        // velocity loop along the profile, so the gains are on velocity.
+        // TODO: Measure the hood's free speed, this is what the sim assumes
+        public static final double HOOD_FREE_SPEED_RPM = 2400;
+        public static final double HOOD_kP = 0.0001;
+        public static final double HOOD_kFF = 1.0 / HOOD_FREE_SPEED_RPM;
+        public static final double HOOD_MAX_VELOCITY_RPM = 1800;
+        public static final double HOOD_MAX_ACCELERATION_RPM_PER_SECOND = 7200;
+        public static final double HOOD_ALLOWED_ERROR = 0.1;
+
+        // Hood homing, open loop outputs. Drives into the front switch fast,
+        // backs off, then comes back slowly so the switch trips at the same
+        // spot every time. The front switch is on the SparkMax's reverse
+        // input and homing drives forward, so the SparkMax won't stop on it.
+        // Only the code does, up to a loop and a status frame later, so the
+        // fast pass is capped to what can be covered in that time without
+        // running out of room past the switch.
+        // TODO: Measure the room past the switch on the robot
+        public static final double HOOD_SWITCH_OVERTRAVEL_ROTATIONS = 0.25;
+        public static final double HOOD_SWITCH_REACTION_SECONDS = 0.04;
+        public static final double HOOD_HOMING_FAST_OUTPUT = Math.min(0.3,
+                HOOD_SWITCH_OVERTRAVEL_ROTATIONS / (HOOD_FREE_SPEED_RPM / 60 * HOOD_SWITCH_REACTION_SECONDS));
+        public static final double HOOD_HOMING_BACKOFF_OUTPUT = 0.1;
+        public static final double HOOD_HOMING_BACKOFF_ROTATIONS = 1.5;
+        public static final double HOOD_HOMING_SLOW_OUTPUT = 0.05;
+        // Calibration store key for the hood position, only saved once it's
+        // been homed
+        public static final String HOOD_POSITION_CALIBRATION = "Shooter/HoodPosition";
+
+        // Ready to shoot: flywheel error in Talon units and hood error in
+        // encoder rotations
+        public static final double VELOCITY_TOLERANCE = 200;
+        public static final double HOOD_TOLERANCE = 0.2;
+        public static final double HOOD_RATE_TIME_CONSTANT = 0.05;
+        // How far ahead readiness is predicted, and how long cargo takes to
+        // get from the upper magazine to the flywheel once it's fed, so
+        // feeding can start that much early.
+        // TODO: Measure feed latency on the robot
+        public static final double READY_PREDICTION_HORIZON_SECONDS = 1;
+        public static final double FEED_LATENCY_SECONDS = 0.1;
+        // The old fixed wait and speed threshold, only used to log how much
+        // time prediction saves
+        public static final double BASELINE_WAIT_SECONDS = 0.3;
+        public static final double BASELINE_VELOCITY_TOLERANCE = 600;
+
+        // Extra voltage on the flywheel while cargo is going through it, to
+        // make up for the speed the cargo takes out. Starts when the cargo
+        // leaves the upper magazine sensor.
+        // TODO: Tune against exit velocity on the robot
+        public static final double SHOT_BOOST_VOLTS = 4;
+        public static final double SHOT_BOOST_SECONDS = 0.08;
+        // Longest to hold the next cargo for the flywheel to recover before
+        // feeding it anyway
+        public static final double RECOVERY_TIMEOUT_SECONDS = 1;
     }
 
     public static final class Turret {
@@ -86,11 +226,30 @@ public final class Constants {
         public static final double kP = .25;
         public static final double kI = 0;
         public static final double kD = 0;
-        public static final double kF = 0;
+        // Full output over the Falcon's free speed, in Talon units
+        public static final double kF = 1023.0 / (6380.0 / 600.0 * 2048.0);
 
-        public static final int ENCODER_COUNTS_PER_REV = 42;
+        // Falcon integrated sensor
+        public static final int ENCODER_COUNTS_PER_REV = 2048;
         public static final int GEAR_RATIO = 4; // TODO: CHANGE THIS TO ACTUAL GEAR RATIO
+        public static final double TICKS_PER_DEGREE = ENCODER_COUNTS_PER_REV * GEAR_RATIO / 360.0;
+        // Open loop output per degree per second of turret speed, for feedforward
+        public static final double OUTPUT_PER_DEGREE_PER_SECOND = 1.0 / (6380.0 / 60.0 / GEAR_RATIO * 360.0);
+
+        // Motion Magic profile
+        public static final double MAX_VELOCITY_DEGREES = 360;
+        public static final double MAX_ACCELERATION_DEGREES = 1080;
+        public static final double TOLERANCE_DEGREES = 2;
+
+        // 0 is facing the front of the robot, counterclockwise positive. The
+        // turret has to be facing forward when the robot turns on. The wiring
+        // lets it go a bit past a full turn, so it doesn't have to unwind as
+        // soon as it crosses the back.
+        public static final double MIN_ANGLE_DEGREES = -200;
+        public static final double MAX_ANGLE_DEGREES = 200;
 
+        // The climber poles on either side, the turret can't pass them
+        // unless the climber arms are down
         public static final double CLIMBER_POLE_DEADZONE_CENTER = 45;
         public static final double CLIMBER_POLE_DEADZONE_WIDTH = 8;
 
@@ -110,14 +269,110 @@ public final class Constants {
                         entry(5.5, 1.52)));
     }
 
+    public static final class Limelight {
+        // TODO: Measure these on the robot, they're off of CAD
+        public static final double CAMERA_HEIGHT_METERS = Units.inchesToMeters(36);
+        // Default only, the calibrated pitch is kept in Preferences
+        public static final double CAMERA_PITCH_DEGREES = 30;
+        public static final String CAMERA_PITCH_PREFERENCE = "Limelight/PitchDegrees";
+        // Camera position relative to the robot center, x forward and y left
+        public static final Translation2d CAMERA_OFFSET = new Translation2d(Units.inchesToMeters(-8), 0);
+
+        // Image capture latency, on top of the pipeline latency the camera reports
+        public static final double CAPTURE_LATENCY_SECONDS = 0.011;
+        // A frame's values come in within a millisecond of each other, and
+        // frames are at least 11ms apart at 90fps, so a gap longer than this
+        // ends a frame
+        public static final double FRAME_GAP_SECONDS = 0.004;
+
+        // Distances outside of this range are assumed to be bad targets
+        public static final double MIN_DISTANCE_METERS = 1;
+        public static final double MAX_DISTANCE_METERS = 8;
+
+        // Pitch calibration, ty is averaged over this many frames for each
+        // known distance, and this many distances are kept for the fit
+        public static final int CALIBRATION_FRAMES = 30;
+        public static final int CALIBRATION_SAMPLES = 8;
+
+        // Target distance filtering, meters
+        public static final int FILTER_WINDOW = 5;
+        public static final double FILTER_OUTLIER_THRESHOLD = 0.3;
+        public static final int FILTER_MAX_REJECTIONS = 5;
+        public static final double FILTER_ACCELERATION_STD_DEV = 3;
+        public static final double FILTER_MEASUREMENT_STD_DEV = 0.05;
+        public static final double FILTER_STALE_TIMEOUT_SECONDS = 0.5;
+        // Below this the shooter and aiming act like there's no target
+        public static final double MIN_CONFIDENCE = 0.5;
+    }
+
+    public static final class ShootOnTheMove {
+        // Solving for the virtual target stops once the time of flight moves
+        // less than this, or after this many tries
+        public static final double SOLVER_TOLERANCE_SECONDS = 0.005;
+        public static final int SOLVER_MAX_ITERATIONS = 10;
+
+        // Heading control, the aim rate feeds forward on top of this
+        public static final double AIM_kP = 5;
+        public static final double AIM_kD = 0.1;
+        public static final double AIM_TOLERANCE_RADIANS = Math.toRadians(3);
+
+        // Driver translation is slowed down while shooting, so the solver's
+        // velocity doesn't change much over the time of flight
+        public static final double MAX_VELOCITY_METERS = 2;
+    }
+
     public static final class Climber {
         public static final int LEFT_MOTOR_ID = 14;
         public static final int RIGHT_MOTOR_ID = 15;
         public static final int SOLENOID_ID = 1;
 
-        public static final double kP = 0.0001;
-        public static final double kI = 0;
+        // Motion Magic on the Talon, positions in encoder ticks and
+        // velocities in ticks per 100ms. Slot 0 moves the lift on its own,
+        // slot 1 pulls the robot up with it.
+        public static final int UNLOADED_SLOT = 0;
+        public static final int HANGING_SLOT = 1;
+        public static final double kF = 1023.0 / (6380.0 / 600.0 * 2048.0);
+        public static final double UNLOADED_kP = 0.1;
+        public static final double HANGING_kP = 0.3;
         public static final double kD = 0;
+        public static final double UNLOADED_CRUISE_VELOCITY = 18000;
+        public static final double UNLOADED_ACCELERATION = 60000;
+        public static final double HANGING_CRUISE_VELOCITY = 14000;
+        public static final double HANGING_ACCELERATION = 28000;
+        // Holds up the lift's own weight, and the robot hanging from it,
+        // which pulls the lift up
+        public static final double UNLOADED_FEEDFORWARD = 0.03;
+        public static final double HANGING_FEEDFORWARD = -0.15;
+        public static final double POSITION_TOLERANCE = 200;
+        // Under 1% of cruise, the lift has stopped
+        public static final double VELOCITY_TOLERANCE = 150;
+
+        public static final double TOP_POSITION = 275000;
+        public static final double ABOVE_BAR_POSITION = 270000;
+        public static final double BELOW_BAR_POSITION = 220000;
+        public static final double OFF_BAR_POSITION = 36000;
+        public static final double BOTTOM_POSITION = 0;
+
+        // Traversal climb, see TraversalClimb
+        public static final int TRAVERSAL_BAR = 3;
+        // Current once the lift is carrying the robot, and where it should
+        // have been seen by on the way down
+        public static final double HOOKED_CURRENT = 40;
+        public static final double HOOK_CHECK_POSITION = 150000;
+        public static final double ARMS_SETTLE_SECONDS = 0.3;
+        // Swing is slow enough to put the arms in at any phase
+        public static final double SWING_SETTLED_RATE = 10;
+        // Pitch rate sign when the robot swings toward the next bar
+        public static final double SWING_TOWARD_BAR_SIGN = 1;
+        public static final double MAX_SAFE_PITCH_DEGREES = 45;
+        public static final double STAGE_TIMEOUT_SECONDS = 3;
+
+        // Calibration store key for the lift position, only saved once the
+        // encoder's been zeroed at the bottom. Restored if the Talons still
+        // read within tolerance of it, in encoder ticks. Renamed from
+        // Climber/Position, which could hold a position that was never zeroed.
+        public static final String POSITION_CALIBRATION = "Climber/ZeroedPosition";
+        public static final double RESTORE_TOLERANCE = 100;
     }
 
     public static final class Auto {
@@ -140,6 +395,11 @@ public final class Constants {
         public static final Translation2d HUB_LOCATION = new Translation2d(Units.inchesToMeters(324),
                 Units.inchesToMeters(162));
 
+        // The vision tape sits on the rim of the upper hub
+        public static final double HUB_RADIUS_METERS = Units.inchesToMeters(53.38 / 2);
+        // Center of the vision tape, off the floor
+        public static final double HUB_TARGET_HEIGHT_METERS = Units.inchesToMeters(103);
+
         public static final Translation2d FIELD_SIZE = new Translation2d(Units.inchesToMeters(648),
                 Units.inchesToMeters(324));
 
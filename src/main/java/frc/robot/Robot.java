@@ -8,6 +8,8 @@ import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.Telemetry;
 
 /**
  * The VM is configured to automatically run this class, and to call the
@@ -23,6 +25,9 @@ public class Robot extends TimedRobot {
 
   private RobotContainer m_robotContainer;
 
+  private final LoopProfiler m_profiler = LoopProfiler.getInstance();
+  private final int m_schedulerTimer = m_profiler.register("Robot/CommandScheduler.run()", kDefaultPeriod);
+
   /**
    * This function is run when the robot is first started up and should be used
    * for any
@@ -34,6 +39,14 @@ public class Robot extends TimedRobot {
     // and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+
+    // Dashboard values are registered by the subsystems and published from a
+    // background thread, so the main loop doesn't pay for them.
+    SmartDashboard.putData(CommandScheduler.getInstance());
+    Telemetry.getInstance().start();
+
+    // Between loops on the main thread, so the subsystems don't need locks
+    addPeriodic(m_robotContainer::sampleCargoMotors, Constants.Intake.MOTOR_SAMPLE_PERIOD_SECONDS);
   }
 
   /**
@@ -56,13 +69,16 @@ public class Robot extends TimedRobot {
     // and running subsystem periodic() methods. This must be called from the
     // robot's periodic
     // block in order for anything in the Command-based framework to work.
+    m_profiler.start(m_schedulerTimer);
     CommandScheduler.getInstance().run();
-    SmartDashboard.putData(CommandScheduler.getInstance());
+    m_profiler.stop(m_schedulerTimer);
+    m_profiler.periodic();
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
   @Override
   public void disabledInit() {
+    m_robotContainer.saveCalibration();
   }
 
   @Override
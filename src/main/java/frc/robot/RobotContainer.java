@@ -5,18 +5,22 @@
 package frc.robot;
 
 import edu.wpi.first.wpilibj.GenericHID;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.ConditionalCommand;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.button.Button;
 import frc.robot.commands.CalibrateClimber;
+import frc.robot.commands.CalibrateLimelightPitch;
 import frc.robot.commands.ClimberArmsIn;
 import frc.robot.commands.ClimberArmsOut;
 import frc.robot.commands.ClimberDown;
 import frc.robot.commands.ClimberUp;
 import frc.robot.commands.FieldDrive;
+import frc.robot.commands.HoodTrackNextShot;
 import frc.robot.commands.IntakeCargo;
 import frc.robot.commands.LimelightAim;
 import frc.robot.commands.LimelightShoot;
@@ -25,18 +29,34 @@ import frc.robot.commands.MagazineForceCargo;
 import frc.robot.commands.MagazineSpitCargo;
 import frc.robot.commands.ManualShoot;
 import frc.robot.commands.ResetHoodAngle;
+import frc.robot.commands.ShootOnTheMove;
+import frc.robot.commands.TraversalClimb;
+import frc.robot.commands.TurretTrackHub;
 import frc.robot.commands.autonomous.BackShoot;
 import frc.robot.commands.autonomous.FiveBallRight;
 import frc.robot.commands.autonomous.MiddleStealDelay;
 import frc.robot.commands.autonomous.SystemCheck;
 import frc.robot.commands.autonomous.ThreeBallRight;
 import frc.robot.commands.autonomous.TwoBallStealLeft;
+import frc.robot.commands.util.ProfiledCommand;
 import frc.robot.subsystems.Climber;
 import frc.robot.subsystems.Drivetrain;
 import frc.robot.subsystems.Intake;
 import frc.robot.subsystems.Limelight;
 import frc.robot.subsystems.Magazine;
 import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.Turret;
+import frc.robot.subsystems.io.ClimberIOReal;
+import frc.robot.subsystems.io.ClimberIOSim;
+import frc.robot.subsystems.io.DrivetrainIOReal;
+import frc.robot.subsystems.io.DrivetrainIOSim;
+import frc.robot.subsystems.io.MagazineIOReal;
+import frc.robot.subsystems.io.MagazineIOSim;
+import frc.robot.subsystems.io.ShooterIOReal;
+import frc.robot.subsystems.io.ShooterIOSim;
+import frc.robot.subsystems.io.TurretIOReal;
+import frc.robot.subsystems.io.TurretIOSim;
+import frc.robot.util.ShotMapTuner;
 
 /**
  * This class is where the bulk of the robot should be declared. Since
@@ -51,12 +71,20 @@ public class RobotContainer {
   // The robot's subsystems and commands are defined here...
 
   XboxController primary_joystick = new XboxController(0);
-  private final Drivetrain drivetrain = new Drivetrain();
+  // Subsystems read their hardware through IO layers, which are swapped for
+  // simple physics models when running in simulation.
+  private final Drivetrain drivetrain = new Drivetrain(
+      RobotBase.isReal() ? new DrivetrainIOReal() : new DrivetrainIOSim());
   private final Intake intake = new Intake();
-  private final Magazine magazine = new Magazine();
-  private final Shooter shooter = new Shooter();
+  private final Magazine magazine = new Magazine(
+      RobotBase.isReal() ? new MagazineIOReal() : new MagazineIOSim());
+  private final Shooter shooter = new Shooter(
+      RobotBase.isReal() ? new ShooterIOReal() : new ShooterIOSim());
   private final Limelight limelight = new Limelight();
-  private final Climber climber = new Climber();
+  private final Climber climber = new Climber(
+      RobotBase.isReal() ? new ClimberIOReal() : new ClimberIOSim());
+  private final Turret turret = new Turret(
+      RobotBase.isReal() ? new TurretIOReal() : new TurretIOSim(), climber);
 
   private final SendableChooser<Command> m_chooser = new SendableChooser<>();
 
@@ -64,9 +92,13 @@ public class RobotContainer {
    * The container for the robot. Contains subsystems, OI devices, and commands.
    */
   public RobotContainer() {
+    // Feed hub sightings into the drivetrain's pose estimate
+    limelight.setHubObservationConsumer(drivetrain::addVisionMeasurement);
+
     // Configure the button bindings
     configureAutonomous();
     configureButtonBindings();
+    configureCalibration();
   }
 
   public Drivetrain getDrivetrain() {
@@ -75,22 +107,84 @@ public class RobotContainer {
 
   private void configureAutonomous() {
     m_chooser.addOption("System Check",
-        new SystemCheck(drivetrain, magazine, shooter, intake, climber, limelight));
+        profiled(new SystemCheck(drivetrain, magazine, shooter, intake, climber, limelight)));
 
     // m_chooser.addOption("Five Ball Right",
     // new FiveBallRight(drivetrain, shooter, intake, magazine, climber,
     // limelight));
     m_chooser.addOption("Left 2 Ball Steal",
-        new TwoBallStealLeft(drivetrain, shooter, intake, magazine, climber, limelight));
+        profiled(new TwoBallStealLeft(drivetrain, shooter, intake, magazine, climber, limelight)));
     m_chooser.addOption("Middle Steal Delay",
-        new MiddleStealDelay(drivetrain, shooter, intake, magazine, climber, limelight));
+        profiled(new MiddleStealDelay(drivetrain, shooter, intake, magazine, climber, limelight)));
     m_chooser.addOption("Three Ball Right",
-        new ThreeBallRight(drivetrain, shooter, intake, magazine, climber, limelight));
+        profiled(new ThreeBallRight(drivetrain, shooter, intake, magazine, climber, limelight)));
     m_chooser.setDefaultOption("Drive Back Shoot",
-        new BackShoot(drivetrain, shooter, intake, magazine, climber, limelight));
+        profiled(new BackShoot(drivetrain, shooter, intake, magazine, climber, limelight)));
     SmartDashboard.putData(m_chooser);
   }
 
+  /**
+   * Dashboard buttons for calibrating the Limelight's mount pitch. Enter the
+   * measured distance from the camera to the center of the hub, then press
+   * calibrate. Do it at a few distances.
+   *
+   * <p>
+   * Also steer offsets, with the robot disabled and every wheel pointed
+   * forward, and homing the hood again if its saved position is off. Ball
+   * sensors calibrate in two presses, once with the magazine empty and once
+   * with cargo in front of both sensors.
+   */
+  private void configureCalibration() {
+    SmartDashboard.putNumber("Limelight Calibration Distance", 3);
+    SmartDashboard.putData("Calibrate Limelight Pitch", profiled(new CalibrateLimelightPitch(limelight,
+        () -> SmartDashboard.getNumber("Limelight Calibration Distance", 0))));
+    SmartDashboard.putData("Clear Limelight Calibration", new InstantCommand(limelight::clearPitchCalibration) {
+      @Override
+      public boolean runsWhenDisabled() {
+        return true;
+      }
+    });
+    SmartDashboard.putData("Calibrate Steer Offsets", new InstantCommand(drivetrain::calibrateSteerOffsets) {
+      @Override
+      public boolean runsWhenDisabled() {
+        return true;
+      }
+    });
+    SmartDashboard.putData("Home Hood", profiled(new ResetHoodAngle(shooter)));
+    SmartDashboard.putData("Calibrate Ball Sensors Empty", new InstantCommand(() -> magazine.captureSensorLevels(false)) {
+      @Override
+      public boolean runsWhenDisabled() {
+        return true;
+      }
+    });
+    SmartDashboard.putData("Calibrate Ball Sensors Loaded", new InstantCommand(() -> magazine.captureSensorLevels(true)) {
+      @Override
+      public boolean runsWhenDisabled() {
+        return true;
+      }
+    });
+  }
+
+  /**
+   * Saves every subsystem's calibration so the next boot can pick it up
+   * instead of homing. Writes to flash, call it on disable.
+   */
+  public void saveCalibration() {
+    shooter.saveCalibration();
+    drivetrain.saveCalibration();
+    climber.saveCalibration();
+    magazine.saveCalibration();
+  }
+
+  /**
+   * Samples the intake and magazine motors for cargo and jams, faster than
+   * the main loop.
+   */
+  public void sampleCargoMotors() {
+    intake.sampleMotor();
+    magazine.sampleMotors();
+  }
+
   public SendableChooser<Command> getAutonChooser() {
     return m_chooser;
   }
@@ -111,12 +205,17 @@ public class RobotContainer {
     // XboxController climber_joystick = new XboxController(2);
 
     // Default commands
-    magazine.setDefaultCommand(new MagazineAutoBump(magazine));
+    // Only pulls cargo in while the intake is down, otherwise it just stages
+    // whatever it has
+    magazine.setDefaultCommand(profiled(new MagazineAutoBump(magazine, intake::isIntakeDown)));
     // rumble.setDefaultCommand(new MagazineAutoBumpRumble(primary_joystick, rumble,
     // magazine));
-    drivetrain.setDefaultCommand(new FieldDrive(drivetrain, () -> -modifyAxis(primary_joystick.getLeftX()),
-        () -> modifyAxis(primary_joystick.getLeftY()), () -> modifyAxis(primary_joystick.getRightX())));
-    shooter.setDefaultCommand(new ResetHoodAngle(shooter));
+    drivetrain.setDefaultCommand(profiled(new FieldDrive(drivetrain, () -> -modifyAxis(primary_joystick.getLeftX()),
+        () -> modifyAxis(primary_joystick.getLeftY()), () -> modifyAxis(primary_joystick.getRightX()))));
+    // Home the hood once, then keep it ready for the next shot
+    shooter.setDefaultCommand(profiled(new ConditionalCommand(new HoodTrackNextShot(shooter, limelight),
+        new ResetHoodAngle(shooter), shooter::isHoodHomed)));
+    turret.setDefaultCommand(profiled(new TurretTrackHub(turret, drivetrain)));
 
     /*
      * Primary Driver Commands
@@ -127,17 +226,22 @@ public class RobotContainer {
 
     // Intake
     new Button(primary_joystick::getRightBumper).whenHeld(
-        new IntakeCargo(intake, magazine));
+        profiled(new IntakeCargo(intake, magazine)));
 
     // Reverse intake
     new Button(primary_joystick::getXButton).whenHeld(
-        new MagazineSpitCargo(magazine));
+        profiled(new MagazineSpitCargo(magazine)));
 
     new Button(primary_joystick::getYButton).whenHeld(
-        new LimelightAim(drivetrain, limelight));
+        profiled(new LimelightAim(drivetrain, limelight)));
+
+    // Shoot while driving, the drivetrain takes over aiming
+    new Button(primary_joystick::getBButton).whileHeld(
+        profiled(new ShootOnTheMove(drivetrain, shooter, turret, magazine,
+            () -> -modifyAxis(primary_joystick.getLeftX()), () -> modifyAxis(primary_joystick.getLeftY()))));
 
     new Button(primary_joystick::getLeftBumper).whileHeld(
-        new MagazineSpitCargo(magazine));
+        profiled(new MagazineSpitCargo(magazine)));
     // new LimelightShoot(shooter, magazine, limelight)).whenReleased(new
     // InstantCommand(() -> {
     // shooter.runMotor(0);
@@ -150,42 +254,55 @@ public class RobotContainer {
     // new Button(operator_joystick::getRightBumper).whileHeld(
     // new LimelightShoot(shooter, magazine, limelight));
 
-    // Close safe zone
-    new Button(operator_joystick::getRightStickButton).whileHeld(
-        new ManualShoot(shooter, magazine, () -> 7500, () -> -4.5));
-    // Close Tarmac
-    new Button(operator_joystick::getRightBumper).whileHeld(
-        new ManualShoot(shooter, magazine, () -> 6700, () -> -5));
-    // Far tarmac
-    new Button(operator_joystick::getBButton).whileHeld(
-        new ManualShoot(shooter, magazine, () -> 7000, () -> -7));
-    // Low Goal
-    new Button(operator_joystick::getYButton).whileHeld(
-        new ManualShoot(shooter, magazine, () -> 3000, () -> -5));
-    // Far safe zone
-    new Button(operator_joystick::getXButton).whileHeld(
-        new ManualShoot(shooter, magazine, () -> 8500, () -> -20));
-
-    new Button(climber_joystick::getYButton).whileHeld(new ClimberUp(climber))
+    // Preset shots, tuned in deploy/shotmap.json or live through ShotMapTuner
+    new Button(operator_joystick::getRightStickButton).whileHeld(presetShot("Close Safe Zone"));
+    new Button(operator_joystick::getRightBumper).whileHeld(presetShot("Close Tarmac"));
+    new Button(operator_joystick::getBButton).whileHeld(presetShot("Far Tarmac"));
+    new Button(operator_joystick::getYButton).whileHeld(presetShot("Low Goal"));
+    new Button(operator_joystick::getXButton).whileHeld(presetShot("Far Safe Zone"));
+
+    new Button(climber_joystick::getYButton).whileHeld(profiled(new ClimberUp(climber)))
         .whenReleased(new InstantCommand(() -> climber.runLift(0)));
 
     // Drop climber to bottom
     // new Button(climber_joystick::getAButton).whenPressed(
     // new ClimberToBottom(climber)).whenReleased(new
     // ClimberToBottomOffBar(climber));
-    new Button(climber_joystick::getAButton).whileHeld(new ClimberDown(climber))
+    new Button(climber_joystick::getAButton).whileHeld(profiled(new ClimberDown(climber)))
         .whenReleased(new InstantCommand(() -> climber.runLift(0)));
 
     // Retract climber arms, also locks turret to forward position
     new Button(climber_joystick::getBButton).whenPressed(
-        new ClimberArmsIn(climber));
+        profiled(new ClimberArmsIn(climber)));
 
     // Extend climber arms, allows free rotation of turret
     new Button(climber_joystick::getXButton).whenPressed(
-        new ClimberArmsOut(climber));
+        profiled(new ClimberArmsOut(climber)));
 
     new Button(climber_joystick::getStartButton).whenPressed(
-        new CalibrateClimber(climber));
+        profiled(new CalibrateClimber(climber)));
+
+    // Whole climb to the traversal bar, letting go holds the robot where it is
+    new Button(climber_joystick::getBackButton).whenHeld(
+        profiled(new TraversalClimb(climber, drivetrain)));
+  }
+
+  /**
+   * Wraps a command so its execute() and isFinished() show up in the loop
+   * profiler.
+   */
+  private Command profiled(Command command) {
+    return new ProfiledCommand(command);
+  }
+
+  /**
+   * Shoots a preset from the shot map. The preset is looked up every loop, so
+   * edits from ShotMapTuner apply right away.
+   */
+  private Command presetShot(String name) {
+    ShotMapTuner shotMaps = ShotMapTuner.getInstance();
+    return profiled(new ManualShoot(shooter, magazine,
+        () -> shotMaps.get().getPresetRpm(name), () -> shotMaps.get().getPresetHood(name)));
   }
 
   private double deadband(double value, double deadband) {
@@ -0,0 +1,98 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.util.ShootOnTheMoveSolver;
+import frc.robot.util.ShotMapTuner;
+
+/**
+ * Lets the driver translate while the drivetrain keeps the robot pointed at
+ * the shoot on the move virtual target. Solves every loop, so anything
+ * scheduled alongside it can read the shot from {@link #getSolver()}.
+ */
+public class AimWhileDriving extends CommandBase {
+
+  private final Drivetrain m_drivetrain;
+  private final DoubleSupplier m_forward;
+  private final DoubleSupplier m_strafe;
+
+  private final ShootOnTheMoveSolver m_solver = new ShootOnTheMoveSolver(
+      Constants.Field.HUB_LOCATION,
+      Constants.Turret.TIME_OF_FLIGHT,
+      // The shot map is keyed from the camera, which sits behind the robot
+      // center when facing the hub
+      -Constants.Limelight.CAMERA_OFFSET.getX(),
+      Constants.ShootOnTheMove.SOLVER_TOLERANCE_SECONDS,
+      Constants.ShootOnTheMove.SOLVER_MAX_ITERATIONS);
+  private final ShotMapTuner m_shotMaps = ShotMapTuner.getInstance();
+  private final PIDController m_headingController = new PIDController(
+      Constants.ShootOnTheMove.AIM_kP, 0, Constants.ShootOnTheMove.AIM_kD);
+
+  private final double[] m_pose = new double[3];
+  private final double[] m_velocity = new double[3];
+  private boolean m_aimed = false;
+
+  /**
+   * @param forward Same as {@link FieldDrive}
+   * @param strafe  Same as {@link FieldDrive}
+   */
+  public AimWhileDriving(Drivetrain drivetrain, DoubleSupplier forward, DoubleSupplier strafe) {
+    m_drivetrain = drivetrain;
+    m_forward = forward;
+    m_strafe = strafe;
+    m_headingController.enableContinuousInput(-Math.PI, Math.PI);
+
+    addRequirements(drivetrain);
+  }
+
+  @Override
+  public void initialize() {
+    m_headingController.reset();
+    m_aimed = false;
+  }
+
+  @Override
+  public void execute() {
+    m_drivetrain.getPose(m_pose);
+    m_drivetrain.getFieldVelocity(m_velocity);
+    m_solver.solve(m_pose[0], m_pose[1], m_velocity[0], m_velocity[1], m_shotMaps.get());
+
+    double error = MathUtil.angleModulus(m_solver.getHeadingRadians() - m_pose[2]);
+    m_aimed = Math.abs(error) < Constants.ShootOnTheMove.AIM_TOLERANCE_RADIANS;
+    double omega = m_solver.getHeadingRate()
+        + m_headingController.calculate(m_pose[2], m_solver.getHeadingRadians());
+
+    m_drivetrain.driveFieldRelative(
+        -m_strafe.getAsDouble() * Constants.ShootOnTheMove.MAX_VELOCITY_METERS,
+        m_forward.getAsDouble() * Constants.ShootOnTheMove.MAX_VELOCITY_METERS,
+        omega);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    m_drivetrain.stopModules();
+  }
+
+  @Override
+  public boolean isFinished() {
+    return false;
+  }
+
+  /** Whether the robot was pointed at the virtual target last loop. */
+  public boolean isAimed() {
+    return m_aimed;
+  }
+
+  public ShootOnTheMoveSolver getSolver() {
+    return m_solver;
+  }
+}
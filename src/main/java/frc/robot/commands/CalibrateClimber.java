@@ -31,6 +31,10 @@ public class CalibrateClimber extends CommandBase {
   @Override
   public void end(boolean interrupted) {
     m_climber.runLift(0);
+    // Only zero at the bottom, not wherever it was let go
+    if (m_climber.getLimitSwitchDown()) {
+      m_climber.resetEncoders();
+    }
   }
 
   // Returns true when the command should end.
@@ -0,0 +1,77 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
+import frc.robot.subsystems.Limelight;
+
+/**
+ * Takes one pitch calibration sample. Park the robot facing the hub, measure
+ * from the camera lens to the center of the hub, enter it, and run this. It
+ * averages ty over a few frames and refits the camera pitch. Repeat at a few
+ * distances across the shooting range.
+ *
+ * <p>
+ * Runs while disabled, so the robot doesn't need to be enabled to calibrate.
+ */
+public class CalibrateLimelightPitch extends CommandBase {
+
+  Limelight m_limelight;
+  DoubleSupplier m_distanceMeters;
+
+  double m_tySum;
+  int m_frames;
+
+  public CalibrateLimelightPitch(Limelight limelight, DoubleSupplier distanceMeters) {
+    m_limelight = limelight;
+    m_distanceMeters = distanceMeters;
+    addRequirements(limelight);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    m_tySum = 0;
+    m_frames = 0;
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    Limelight.Frame frame = m_limelight.getFrame();
+    if (frame.isNew() && frame.hasTarget()) {
+      m_tySum += frame.getY();
+      m_frames++;
+    }
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    if (interrupted) {
+      return;
+    }
+    try {
+      m_limelight.addPitchCalibrationSample(m_tySum / m_frames, m_distanceMeters.getAsDouble());
+    } catch (IllegalArgumentException e) {
+      DriverStation.reportError("Limelight calibration sample not taken: " + e.getMessage(), false);
+    }
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return m_frames >= Constants.Limelight.CALIBRATION_FRAMES;
+  }
+
+  @Override
+  public boolean runsWhenDisabled() {
+    return true;
+  }
+}
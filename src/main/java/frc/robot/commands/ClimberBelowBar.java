@@ -4,26 +4,17 @@
 
 package frc.robot.commands;
 
-import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
 import frc.robot.subsystems.Climber;
 
-public class ClimberBelowBar extends CommandBase {
-
-  Climber m_climber;
-  private static int setpoint = 220000;
+public class ClimberBelowBar extends ClimberToPosition {
 
   public ClimberBelowBar(Climber climber) {
-    m_climber = climber;
-    addRequirements(climber);
-  }
-
-  @Override
-  public void execute() {
-    m_climber.setSetpoint(setpoint);
+    super(climber, Constants.Climber.BELOW_BAR_POSITION, false);
   }
 
   @Override
   public boolean isFinished() {
-    return Math.abs(m_climber.getMeasurement() - setpoint) < 200 || m_climber.getLimitSwitchUp();
+    return super.isFinished() || m_climber.getLimitSwitchUp();
   }
 }
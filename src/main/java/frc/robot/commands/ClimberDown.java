@@ -4,7 +4,9 @@
 
 package frc.robot.commands;
 
+import edu.wpi.first.wpilibj2.command.ConditionalCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import frc.robot.Constants;
 import frc.robot.commands.util.ManualClimberControl;
 import frc.robot.subsystems.Climber;
 
@@ -16,10 +18,10 @@ public class ClimberDown extends SequentialCommandGroup {
   public ClimberDown(Climber climber) {
     // Add your commands in the addCommands() call, e.g.
     // addCommands(new FooCommand(), new BarCommand());
-    addCommands(
-        // new ManualClimberControl(climber, () -> -0.4).withTimeout(0.5),
-        // new WaitCommand(0.5),
-        new ManualClimberControl(climber, () -> -1)
-    );
+    // Going down is what lifts the robot, so it's profiled as hanging
+    addCommands(new ConditionalCommand(
+        new ClimberToPosition(climber, Constants.Climber.BOTTOM_POSITION, true),
+        new ManualClimberControl(climber, () -> -1),
+        climber::isCalibrated));
   }
 }
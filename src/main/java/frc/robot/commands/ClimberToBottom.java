@@ -4,26 +4,13 @@
 
 package frc.robot.commands;
 
-import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
 import frc.robot.subsystems.Climber;
 
-public class ClimberToBottom extends CommandBase {
-
-    Climber m_climber;
-    private static int setpoint = 0;
+/** Pulls the robot up, all the way to the bottom of the lift. */
+public class ClimberToBottom extends ClimberToPosition {
 
     public ClimberToBottom(Climber climber) {
-        m_climber = climber;
-        addRequirements(climber);
-    }
-
-    @Override
-    public void execute() {
-        m_climber.setSetpoint(setpoint);
-    }
-
-    @Override
-    public boolean isFinished() {
-        return Math.abs(m_climber.getMeasurement() - setpoint) < 200;
+        super(climber, Constants.Climber.BOTTOM_POSITION, true);
     }
 }
@@ -4,32 +4,16 @@
 
 package frc.robot.commands;
 
-import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
 import frc.robot.subsystems.Climber;
 
-public class ClimberToBottomOffBar extends CommandBase {
-
-    Climber m_climber;
-    private static int setpoint = 36000;
+/**
+ * Pulls the robot up until the next bar's hooks are clear, with the hanging
+ * profile instead of the old slow mode.
+ */
+public class ClimberToBottomOffBar extends ClimberToPosition {
 
     public ClimberToBottomOffBar(Climber climber) {
-        m_climber = climber;
-        addRequirements(climber);
-    }
-
-    @Override
-    public void execute() {
-        m_climber.setSlowMode(true);
-        m_climber.setSetpoint(setpoint);
-    }
-
-    @Override
-    public void end(boolean interrupted) {
-        m_climber.setSlowMode(false);
-    }
-
-    @Override
-    public boolean isFinished() {
-        return Math.abs(m_climber.getMeasurement() - setpoint) < 200;
+        super(climber, Constants.Climber.OFF_BAR_POSITION, true);
     }
 }
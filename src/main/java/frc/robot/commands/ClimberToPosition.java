@@ -0,0 +1,40 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.Climber;
+
+/**
+ * Moves the lift to a position with a Motion Magic profile, and finishes once
+ * it's there. The Talons keep holding it after.
+ */
+public class ClimberToPosition extends CommandBase {
+
+  protected final Climber m_climber;
+  private final double m_position;
+  private final boolean m_hanging;
+
+  /**
+   * @param position Encoder ticks from the bottom
+   * @param hanging  Whether the robot is hanging from the lift on the way
+   */
+  public ClimberToPosition(Climber climber, double position, boolean hanging) {
+    m_climber = climber;
+    m_position = position;
+    m_hanging = hanging;
+    addRequirements(climber);
+  }
+
+  @Override
+  public void initialize() {
+    m_climber.setPosition(m_position, m_hanging);
+  }
+
+  @Override
+  public boolean isFinished() {
+    return m_climber.atPosition();
+  }
+}
@@ -4,7 +4,9 @@
 
 package frc.robot.commands;
 
+import edu.wpi.first.wpilibj2.command.ConditionalCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import frc.robot.Constants;
 import frc.robot.commands.util.ManualClimberControl;
 import frc.robot.subsystems.Climber;
 
@@ -17,10 +19,13 @@ public class ClimberUp extends SequentialCommandGroup {
   public ClimberUp(Climber climber) {
     // Add your commands in the addCommands() call, e.g.
     // addCommands(new FooCommand(), new BarCommand());
-    addCommands(
-        new ManualClimberControl(climber, () -> 0.5).withTimeout(0.25),
-        // new WaitCommand(0.5),
-        new ManualClimberControl(climber, () -> 1)
-    );
+    // Profiled to the top once the lift knows where it is, full speed until
+    // the limit switch before that
+    addCommands(new ConditionalCommand(
+        new ClimberToPosition(climber, Constants.Climber.TOP_POSITION, false),
+        new SequentialCommandGroup(
+            new ManualClimberControl(climber, () -> 0.5).withTimeout(0.25),
+            new ManualClimberControl(climber, () -> 1)),
+        climber::isCalibrated));
   }
 }
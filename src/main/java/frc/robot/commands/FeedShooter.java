@@ -5,6 +5,7 @@
 package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
 import frc.robot.subsystems.Magazine;
 
 public class FeedShooter extends CommandBase {
@@ -22,7 +23,7 @@ public class FeedShooter extends CommandBase {
 
   @Override
   public void execute() {
-    m_magazine.runUpperMagazine(9000);
+    m_magazine.runUpperMagazine(Constants.Magazine.FEED_SPEED);
   }
 
   @Override
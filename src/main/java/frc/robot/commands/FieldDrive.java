@@ -6,7 +6,6 @@ package frc.robot.commands;
 
 import java.util.function.DoubleSupplier;
 
-import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.Constants;
 import frc.robot.subsystems.Drivetrain;
@@ -31,12 +30,10 @@ public class FieldDrive extends CommandBase {
   @Override
   public void execute() {
 
-    m_drivetrain.drive(
-        ChassisSpeeds.fromFieldRelativeSpeeds(
-            -m_strafe.getAsDouble() * Constants.Swerve.MAX_VELOCITY_METERS,
-            m_forward.getAsDouble() * Constants.Swerve.MAX_VELOCITY_METERS,
-            m_rotation.getAsDouble() * Constants.Swerve.MAX_ANG_ACCEL,
-            m_drivetrain.getGyroscopeRotation()));
+    m_drivetrain.driveFieldRelative(
+        -m_strafe.getAsDouble() * Constants.Swerve.MAX_VELOCITY_METERS,
+        m_forward.getAsDouble() * Constants.Swerve.MAX_VELOCITY_METERS,
+        m_rotation.getAsDouble() * Constants.Swerve.MAX_ANG_ACCEL);
   }
 
   @Override
@@ -7,10 +7,12 @@ package frc.robot.commands;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.subsystems.Limelight;
 import frc.robot.subsystems.Shooter;
+import frc.robot.util.ShotMap;
 
 public class FlywheelLimelight extends CommandBase {
   private final Shooter m_shooter;
   private final Limelight m_limelight;
+  private final ShotMap.Shot m_shot = new ShotMap.Shot();
 
   public FlywheelLimelight(Shooter shooter, Limelight limelight) {
     m_shooter = shooter;
@@ -20,8 +22,8 @@ public class FlywheelLimelight extends CommandBase {
 
   @Override
   public void execute() {
-    double[] outputVals = m_limelight.calcHoodAndRPM();
-    m_shooter.setHoodAngle(outputVals[1]);
-    m_shooter.runMotor(outputVals[0]);
+    m_limelight.calcHoodAndRPM(m_shot);
+    m_shooter.setHoodAngle(m_shot.hoodAngle);
+    m_shooter.runMotor(m_shot.rpm);
   }
 }
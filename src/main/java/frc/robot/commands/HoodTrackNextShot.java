@@ -0,0 +1,42 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.Limelight;
+import frc.robot.subsystems.Shooter;
+import frc.robot.util.ShotMap;
+
+/**
+ * Keeps the hood at the angle the next shot will most likely need while the
+ * shooter is idle, so shots don't start with a long hood move. That's the
+ * shot map angle for the hub while the Limelight can see it, otherwise
+ * wherever the last shot left it. Leaves the flywheel alone.
+ */
+public class HoodTrackNextShot extends CommandBase {
+  private final Shooter m_shooter;
+  private final Limelight m_limelight;
+  private final ShotMap.Shot m_shot = new ShotMap.Shot();
+
+  public HoodTrackNextShot(Shooter shooter, Limelight limelight) {
+    m_shooter = shooter;
+    m_limelight = limelight;
+    addRequirements(shooter);
+  }
+
+  @Override
+  public void initialize() {
+    // Hold wherever it was sent last, including mid move
+    m_shooter.setHoodAngle(m_shooter.getHoodTarget());
+  }
+
+  @Override
+  public void execute() {
+    if (m_limelight.hasConfidentTarget()) {
+      m_limelight.calcHoodAndRPM(m_shot);
+      m_shooter.setHoodAngle(m_shot.hoodAngle);
+    }
+  }
+}
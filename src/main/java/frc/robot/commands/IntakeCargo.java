@@ -4,13 +4,23 @@
 
 package frc.robot.commands;
 
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
 import frc.robot.subsystems.Intake;
 import frc.robot.subsystems.Magazine;
 
+/**
+ * Runs the intake until the magazine is full. When cargo jams in the roller,
+ * it backs the roller out for a moment and tries again, and gives up after a
+ * few jams in a row.
+ */
 public class IntakeCargo extends CommandBase {
   Intake m_intake;
   Magazine m_magazine;
+  private final Timer m_reverseTimer = new Timer();
+  private boolean m_reversing;
+  private int m_jams;
 
   public IntakeCargo(Intake intake, Magazine magazine) {
     m_intake = intake;
@@ -22,14 +32,36 @@ public class IntakeCargo extends CommandBase {
   // Called when the command is initially scheduled.
   @Override
   public void initialize() {
+    m_reversing = false;
+    m_jams = 0;
   }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
-    if (!m_magazine.isFull()) {
+    if (m_magazine.didCargoArriveUpper()) {
+      m_intake.recordStaged(m_magazine.getUpperArrivalTime());
+    }
+    if (m_intake.didAcquireCargo()) {
+      // Got one through, so the count is for jams in a row
+      m_jams = 0;
+    }
+    if (m_intake.didJam() && !m_reversing) {
+      m_jams++;
+      m_reversing = true;
+      m_reverseTimer.reset();
+      m_reverseTimer.start();
+    }
+    if (m_reversing && m_reverseTimer.hasElapsed(Constants.Intake.JAM_REVERSE_SECONDS)) {
+      m_reversing = false;
+    }
+
+    if (m_reversing) {
+      m_intake.setIntakeDown(true);
+      m_intake.setIntakeSpeed(Constants.Intake.JAM_REVERSE_SPEED);
+    } else if (!m_magazine.isFull()) {
       m_intake.setIntakeDown(true);
-      m_intake.setIntakeSpeed(-0.8);
+      m_intake.setIntakeSpeed(Constants.Intake.INTAKE_SPEED);
     } else {
       m_intake.setIntakeDown(false);
       m_intake.setIntakeSpeed(0);
@@ -47,6 +79,6 @@ public class IntakeCargo extends CommandBase {
   @Override
   public boolean isFinished() {
     // Automatically put intake up and turn off if magazine is full
-    return m_magazine.isFull();
+    return m_magazine.isFull() || (m_jams > Constants.Intake.JAM_MAX_RETRIES && !m_reversing);
   }
 }
@@ -5,7 +5,6 @@
 package frc.robot.commands;
 
 import edu.wpi.first.math.controller.PIDController;
-import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.subsystems.Drivetrain;
 import frc.robot.subsystems.Limelight;
@@ -26,14 +25,16 @@ public class LimelightAim extends CommandBase {
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
-    double angleOffset = m_limelight.getX();
     PIDController drivetrainPID = m_drivetrain.getLimelightPID();
+    if (!m_limelight.hasConfidentTarget()) {
+      // Don't chase a target we can't trust
+      drivetrainPID.reset();
+      m_drivetrain.driveFieldRelative(0, 0, 0);
+      return;
+    }
+    double angleOffset = m_limelight.getX();
     double output = drivetrainPID.calculate(angleOffset, 0);
-    m_drivetrain.drive(
-        ChassisSpeeds.fromFieldRelativeSpeeds(
-            0,0,
-           -output,
-            m_drivetrain.getGyroscopeRotation()));
+    m_drivetrain.driveFieldRelative(0, 0, -output);
   }
 
   // Called once the command ends or is interrupted.
@@ -6,9 +6,8 @@ package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.ParallelRaceGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.WaitCommand;
 import frc.robot.commands.wait.WaitForCargoInUpperMagazine;
-import frc.robot.commands.wait.WaitForShooterSpeed;
+import frc.robot.commands.wait.WaitForShooterReady;
 import frc.robot.subsystems.Limelight;
 import frc.robot.subsystems.Magazine;
 import frc.robot.subsystems.Shooter;
@@ -22,11 +21,10 @@ public class LimelightShoot extends ParallelRaceGroup {
         new SequentialCommandGroup(
             new ParallelRaceGroup(
                 new SequentialCommandGroup(
-                    new WaitCommand(0.25),
-                    new WaitForShooterSpeed(shooter).withTimeout(.3),
+                    new WaitForShooterReady(shooter, .55),
                     new WaitForCargoInUpperMagazine(magazine)),
                 new MagazineAutoBump(magazine)),
-            new FeedShooter(magazine).alongWith(new WaitCommand(0.25))));
+            new RapidFire(shooter, magazine)));
 
   }
 }
@@ -4,14 +4,27 @@
 
 package frc.robot.commands;
 
+import java.util.function.BooleanSupplier;
+
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.subsystems.Magazine;
 
 public class MagazineAutoBump extends CommandBase {
   private Magazine m_Magazine;
+  private BooleanSupplier m_acceptingCargo;
 
   public MagazineAutoBump(Magazine magazine) {
+    this(magazine, () -> true);
+  }
+
+  /**
+   * @param acceptingCargo Whether cargo could be coming in from the intake.
+   *                       Otherwise the magazine only runs to move cargo it
+   *                       already has.
+   */
+  public MagazineAutoBump(Magazine magazine, BooleanSupplier acceptingCargo) {
     m_Magazine = magazine;
+    m_acceptingCargo = acceptingCargo;
     addRequirements(magazine);
   }
 
@@ -22,20 +35,9 @@ public class MagazineAutoBump extends CommandBase {
 
   @Override
   public void execute() {
-    // Run the lower magazine slowly until a ball hits the sensor
-    // As soon as the sensor is tripped, move the ball up to the
-    // upper magazine to stage it for shooting.
-    if (m_Magazine.ballInUpper()) {
-      m_Magazine.runUpperMagazine(0);
-      if (m_Magazine.ballInLower()) {
-        m_Magazine.runLowerMagazine(0);
-      } else {
-        m_Magazine.runLowerMagazine(5000);
-      }
-    } else {
-      m_Magazine.runUpperMagazine(2500);
-      m_Magazine.runLowerMagazine(7000);
-    }
+    // Move cargo up to the upper magazine to stage it for shooting, with the
+    // next one waiting behind it
+    m_Magazine.index(m_acceptingCargo.getAsBoolean());
   }
 
   @Override
@@ -22,20 +22,8 @@ public class MagazineAutoBumpEndWhenFull extends CommandBase {
 
   @Override
   public void execute() {
-    // Run the lower magazine slowly until a ball hits the sensor
-    // As soon as the sensor is tripped, move the ball up to the
-    // upper magazine to stage it for shooting.
-    if (m_Magazine.ballInUpper()) {
-      m_Magazine.runUpperMagazine(0);
-      if (m_Magazine.ballInLower()) {
-        m_Magazine.runLowerMagazine(0);
-      } else {
-        m_Magazine.runLowerMagazine(5000);
-      }
-    } else {
-      m_Magazine.runUpperMagazine(2500);
-      m_Magazine.runLowerMagazine(7000);
-    }
+    // Keeps pulling cargo in until it's full
+    m_Magazine.index(true);
   }
 
   @Override
@@ -10,11 +10,10 @@ import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
 import edu.wpi.first.wpilibj2.command.ParallelRaceGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.WaitCommand;
 import frc.robot.commands.autonomous.util.SystemCheckShooterSpeed;
 import frc.robot.commands.util.RawShooterInput;
 import frc.robot.commands.wait.WaitForCargoInUpperMagazine;
-import frc.robot.commands.wait.WaitForShooterSpeed;
+import frc.robot.commands.wait.WaitForShooterReady;
 import frc.robot.subsystems.Limelight;
 import frc.robot.subsystems.Magazine;
 import frc.robot.subsystems.Shooter;
@@ -28,11 +27,10 @@ public class ManualShoot extends ParallelRaceGroup {
         new SequentialCommandGroup(
             new ParallelRaceGroup(
                 new SequentialCommandGroup(
-                    new WaitCommand(0.3),
-                    new WaitForShooterSpeed(shooter).withTimeout(1),
+                    new WaitForShooterReady(shooter, 1),
                     new WaitForCargoInUpperMagazine(magazine)),
                 new MagazineAutoBump(magazine)),
-            new FeedShooter(magazine).alongWith(new WaitCommand(0.25))));
+            new RapidFire(shooter, magazine)));
 
   }
 }
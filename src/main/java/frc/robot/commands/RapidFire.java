@@ -0,0 +1,123 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
+import frc.robot.subsystems.Magazine;
+import frc.robot.subsystems.Shooter;
+
+/**
+ * Shoots every cargo in the magazine back to back. Each cargo gets a flywheel
+ * voltage boost as it goes through, and the next one is held at the upper
+ * sensor only until the flywheel is predicted to have recovered, instead of
+ * waiting out a full spin up.
+ *
+ * <p>
+ * Starts with the first cargo staged and the shooter ready, and doesn't
+ * control the shooter itself, so it runs alongside whatever does.
+ */
+public class RapidFire extends CommandBase {
+
+  private enum State {
+    FEEDING,
+    STAGING,
+    HOLDING,
+    CLEARING
+  }
+
+  private final Shooter m_shooter;
+  private final Magazine m_magazine;
+  private final BooleanSupplier m_canFeed;
+  private final Timer m_timer = new Timer();
+  private State m_state;
+
+  public RapidFire(Shooter shooter, Magazine magazine) {
+    this(shooter, magazine, () -> true);
+  }
+
+  /**
+   * @param canFeed Anything else that has to be true before each cargo is fed,
+   *                like being aimed
+   */
+  public RapidFire(Shooter shooter, Magazine magazine, BooleanSupplier canFeed) {
+    m_shooter = shooter;
+    m_magazine = magazine;
+    m_canFeed = canFeed;
+    addRequirements(magazine);
+  }
+
+  @Override
+  public void initialize() {
+    if (m_magazine.hasStagedCargo()) {
+      // If the wait for the first cargo gave up, this is when it's fed
+      m_shooter.finishTimedOutReadyWait();
+      setState(State.FEEDING);
+    } else if (m_magazine.hasCargoBelowUpper()) {
+      setState(State.STAGING);
+    } else {
+      setState(State.CLEARING);
+    }
+  }
+
+  @Override
+  public void execute() {
+    switch (m_state) {
+      case FEEDING:
+        m_magazine.runUpperMagazine(Constants.Magazine.FEED_SPEED);
+        m_magazine.runLowerMagazine(0);
+        if (m_magazine.didCargoLeaveUpper()) {
+          m_shooter.boostFlywheel();
+          setState(m_magazine.hasCargoBelowUpper() ? State.STAGING : State.CLEARING);
+        }
+        break;
+      case STAGING:
+        m_magazine.runUpperMagazineUntilArrival(Constants.Magazine.STAGE_UPPER_SPEED);
+        m_magazine.runLowerMagazine(Constants.Magazine.STAGE_LOWER_SPEED);
+        if (m_magazine.hasStagedCargo() || m_magazine.didCargoArriveUpper()) {
+          m_magazine.stop();
+          m_shooter.startReadyWait();
+          setState(State.HOLDING);
+        } else if (m_timer.hasElapsed(Constants.Magazine.STAGE_TIMEOUT_SECONDS)) {
+          setState(State.CLEARING);
+        }
+        break;
+      case HOLDING:
+        // Feed anyway if the flywheel is taking too long, like the first
+        // cargo's timeout
+        boolean recovered = m_shooter.isReadyToFeed()
+            || m_timer.hasElapsed(Constants.Shooter.RECOVERY_TIMEOUT_SECONDS);
+        if (recovered && m_canFeed.getAsBoolean()) {
+          m_shooter.finishReadyWait();
+          setState(State.FEEDING);
+        }
+        break;
+      case CLEARING:
+        m_magazine.stop();
+        break;
+    }
+  }
+
+  private void setState(State state) {
+    m_state = state;
+    m_timer.reset();
+    m_timer.start();
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    m_magazine.stop();
+    // Holding cargo that never got fed
+    m_shooter.cancelReadyWait();
+  }
+
+  @Override
+  public boolean isFinished() {
+    return m_state == State.CLEARING && m_timer.hasElapsed(Constants.Magazine.CLEAR_SECONDS);
+  }
+}
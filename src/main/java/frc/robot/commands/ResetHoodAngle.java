@@ -5,7 +5,10 @@
 package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.InstantCommand;
+import edu.wpi.first.wpilibj2.command.RunCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
+import frc.robot.Constants;
 import frc.robot.commands.util.RawHoodInput;
 import frc.robot.commands.wait.WaitForHoodLimitSwitch;
 import frc.robot.subsystems.Shooter;
@@ -15,7 +18,20 @@ public class ResetHoodAngle extends SequentialCommandGroup {
   public ResetHoodAngle(Shooter shooter) {
 
     addCommands(
-        new WaitForHoodLimitSwitch(shooter).raceWith(new RawHoodInput(shooter, () -> 0.05)),
+        // Fast into the switch, close enough to zero on so backing off can
+        // go by the encoder. Only the code stops it at the switch, so it's
+        // no faster than a loop of latency allows
+        new WaitForHoodLimitSwitch(shooter)
+            .raceWith(new RawHoodInput(shooter, () -> Constants.Shooter.HOOD_HOMING_FAST_OUTPUT)),
+        new InstantCommand(() -> {
+          shooter.zeroHoodEncoder();
+        }),
+        new WaitUntilCommand(() -> shooter.getHoodPosition() <= -Constants.Shooter.HOOD_HOMING_BACKOFF_ROTATIONS)
+            .raceWith(new RunCommand(() -> shooter.setHoodSpeed(-Constants.Shooter.HOOD_HOMING_BACKOFF_OUTPUT),
+                shooter)),
+        // Slowly back in, so the switch trips at the same spot every time
+        new WaitForHoodLimitSwitch(shooter)
+            .raceWith(new RawHoodInput(shooter, () -> Constants.Shooter.HOOD_HOMING_SLOW_OUTPUT)),
         new InstantCommand(() -> {
           shooter.zeroHoodEncoder();
         }));
@@ -0,0 +1,46 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj2.command.ParallelRaceGroup;
+import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
+import frc.robot.commands.util.RawShooterInput;
+import frc.robot.commands.wait.WaitForCargoInUpperMagazine;
+import frc.robot.commands.wait.WaitForShooterReady;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.subsystems.Magazine;
+import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.Turret;
+import frc.robot.util.ShootOnTheMoveSolver;
+
+/**
+ * Same as {@link ManualShoot}, but the driver keeps translating. The shot,
+ * heading and turret angle come from the shoot on the move solver, and cargo
+ * isn't fed until the robot is pointed at the virtual target.
+ */
+public class ShootOnTheMove extends ParallelRaceGroup {
+
+  public ShootOnTheMove(Drivetrain drivetrain, Shooter shooter, Turret turret, Magazine magazine,
+      DoubleSupplier forward, DoubleSupplier strafe) {
+    AimWhileDriving aim = new AimWhileDriving(drivetrain, forward, strafe);
+    ShootOnTheMoveSolver solver = aim.getSolver();
+    // Aiming goes first, so the turret and shooter read this loop's solution
+    addCommands(
+        aim,
+        new TurretTrackHub(turret, drivetrain, solver),
+        new RawShooterInput(shooter, solver::getRpm, solver::getHoodAngle),
+        new SequentialCommandGroup(
+            new ParallelRaceGroup(
+                new SequentialCommandGroup(
+                    new WaitForShooterReady(shooter, 1),
+                    new WaitForCargoInUpperMagazine(magazine),
+                    new WaitUntilCommand(aim::isAimed)),
+                new MagazineAutoBump(magazine)),
+            new RapidFire(shooter, magazine, aim::isAimed)));
+  }
+}
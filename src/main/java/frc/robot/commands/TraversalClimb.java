@@ -0,0 +1,228 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
+import frc.robot.subsystems.Climber;
+import frc.robot.subsystems.Drivetrain;
+
+/**
+ * Climbs from the floor to the traversal bar on its own. Each stage moves on
+ * as soon as the sensors say it's done, instead of when the operator gets to
+ * the next button.
+ *
+ * <p>
+ * Starting under the mid bar: the lift reaches above it and pulls the robot
+ * up onto the static hooks. Then for each bar after, the lift lets the static
+ * hooks take the robot, tilts back with the arms, extends past the next bar,
+ * waits for the swing to come toward the bar, tilts in, catches the bar, and
+ * pulls the robot up again. The hooks catching shows up as a jump in lift
+ * current.
+ *
+ * <p>
+ * If a stage takes too long, the robot swings too far, or the lift never
+ * picks up the robot's weight, the climb aborts. The lift holds where it is
+ * and the arms stay put, so the robot hangs still until the operator takes
+ * over. Letting go of the button does the same.
+ *
+ * <p>
+ * Every stage's duration goes to the dashboard under Climber/StageSeconds,
+ * so the slow ones can be found.
+ */
+public class TraversalClimb extends CommandBase {
+
+  private enum Stage {
+    REACH,
+    PULL_UP,
+    HANDOFF,
+    ARMS_OUT,
+    EXTEND,
+    SWING,
+    ARMS_IN,
+    CATCH,
+    DONE,
+    ABORTED
+  }
+
+  private final Climber m_climber;
+  private final Drivetrain m_drivetrain;
+  private Stage m_stage;
+  private int m_bar;
+  private boolean m_hooked;
+  private double m_lastPitchRate;
+  private double m_stageStart;
+  private double m_climbStart;
+
+  /**
+   * @param drivetrain Only read for the robot's pitch, so it isn't required
+   */
+  public TraversalClimb(Climber climber, Drivetrain drivetrain) {
+    m_climber = climber;
+    m_drivetrain = drivetrain;
+    addRequirements(climber);
+  }
+
+  @Override
+  public void initialize() {
+    m_bar = 1;
+    m_climbStart = Timer.getFPGATimestamp();
+    m_stage = null;
+    if (!m_climber.isCalibrated()) {
+      abort("the lift isn't calibrated");
+      return;
+    }
+    setStage(Stage.REACH);
+  }
+
+  @Override
+  public void execute() {
+    if (m_stage == Stage.DONE || m_stage == Stage.ABORTED) {
+      return;
+    }
+    double pitch = m_drivetrain.getPitchDegrees();
+    double pitchRate = m_drivetrain.getPitchRateDegreesPerSecond();
+    if (Math.abs(pitch) > Constants.Climber.MAX_SAFE_PITCH_DEGREES) {
+      abort("swinging too far");
+      return;
+    }
+    // Waiting for the swing isn't a fault, the arms go in either way
+    if (m_stage != Stage.SWING && stageTime() > Constants.Climber.STAGE_TIMEOUT_SECONDS) {
+      abort(m_stage + " took too long");
+      return;
+    }
+
+    switch (m_stage) {
+      case REACH:
+        if (m_climber.atPosition() || m_climber.getLimitSwitchUp()) {
+          setStage(Stage.PULL_UP);
+        }
+        break;
+      case PULL_UP:
+        m_hooked |= m_climber.getCurrent() > Constants.Climber.HOOKED_CURRENT;
+        if (!m_hooked && m_climber.getMeasurement() < Constants.Climber.HOOK_CHECK_POSITION) {
+          abort("the hooks missed bar " + m_bar);
+        } else if (m_climber.atPosition() || m_climber.getLimitSwitchDown()) {
+          setStage(m_bar < Constants.Climber.TRAVERSAL_BAR ? Stage.HANDOFF : Stage.DONE);
+        }
+        break;
+      case HANDOFF:
+        if (m_climber.atPosition()) {
+          setStage(Stage.ARMS_OUT);
+        }
+        break;
+      case ARMS_OUT:
+        if (stageTime() > Constants.Climber.ARMS_SETTLE_SECONDS) {
+          setStage(Stage.EXTEND);
+        }
+        break;
+      case EXTEND:
+        if (m_climber.atPosition() || m_climber.getLimitSwitchUp()) {
+          setStage(Stage.SWING);
+        }
+        break;
+      case SWING:
+        // The far end of the swing is where it turns back toward the bar
+        double toward = pitchRate * Constants.Climber.SWING_TOWARD_BAR_SIGN;
+        double lastToward = m_lastPitchRate * Constants.Climber.SWING_TOWARD_BAR_SIGN;
+        boolean turnedBack = lastToward < 0 && toward >= 0;
+        if (turnedBack || Math.abs(pitchRate) < Constants.Climber.SWING_SETTLED_RATE
+            || stageTime() > Constants.Climber.STAGE_TIMEOUT_SECONDS) {
+          setStage(Stage.ARMS_IN);
+        }
+        break;
+      case ARMS_IN:
+        if (stageTime() > Constants.Climber.ARMS_SETTLE_SECONDS) {
+          setStage(Stage.CATCH);
+        }
+        break;
+      case CATCH:
+        if (m_climber.atPosition()) {
+          m_bar++;
+          setStage(Stage.PULL_UP);
+        }
+        break;
+      default:
+        break;
+    }
+    m_lastPitchRate = pitchRate;
+  }
+
+  private void setStage(Stage stage) {
+    double now = Timer.getFPGATimestamp();
+    if (m_stage != null) {
+      SmartDashboard.putNumber("Climber/StageSeconds/" + m_stage + stageSuffix(), now - m_stageStart);
+    }
+    m_stage = stage;
+    m_stageStart = now;
+    SmartDashboard.putString("Climber/Stage", stage.toString());
+
+    switch (stage) {
+      case REACH:
+        m_climber.setArmsOut(false);
+        m_climber.setPosition(Constants.Climber.ABOVE_BAR_POSITION, false);
+        break;
+      case PULL_UP:
+        m_hooked = false;
+        m_climber.setPosition(Constants.Climber.BOTTOM_POSITION, true);
+        break;
+      case HANDOFF:
+        m_climber.setPosition(Constants.Climber.OFF_BAR_POSITION, true);
+        break;
+      case ARMS_OUT:
+        m_climber.setArmsOut(true);
+        break;
+      case EXTEND:
+        m_climber.setPosition(Constants.Climber.ABOVE_BAR_POSITION, false);
+        break;
+      case SWING:
+        m_lastPitchRate = m_drivetrain.getPitchRateDegreesPerSecond();
+        break;
+      case ARMS_IN:
+        m_climber.setArmsOut(false);
+        break;
+      case CATCH:
+        m_climber.setPosition(Constants.Climber.BELOW_BAR_POSITION, false);
+        break;
+      case DONE:
+        SmartDashboard.putNumber("Climber/StageSeconds/Total", now - m_climbStart);
+        break;
+      default:
+        break;
+    }
+  }
+
+  /** Stages repeat for each bar, so they're logged per bar after the first. */
+  private String stageSuffix() {
+    return m_bar > 1 ? " " + m_bar : "";
+  }
+
+  private double stageTime() {
+    return Timer.getFPGATimestamp() - m_stageStart;
+  }
+
+  private void abort(String reason) {
+    // Off the floor once it's started pulling up on the first bar
+    boolean hanging = m_bar > 1 || (m_stage != null && m_stage != Stage.REACH);
+    DriverStation.reportWarning("Traversal climb aborted, " + reason, false);
+    setStage(Stage.ABORTED);
+    m_climber.setPosition(m_climber.getMeasurement(), hanging);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    if (interrupted && m_stage != Stage.DONE && m_stage != Stage.ABORTED) {
+      abort("interrupted");
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    return m_stage == Stage.DONE || m_stage == Stage.ABORTED;
+  }
+}
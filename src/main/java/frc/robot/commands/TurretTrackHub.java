@@ -0,0 +1,82 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.subsystems.Turret;
+import frc.robot.util.ShootOnTheMoveSolver;
+
+/**
+ * Keeps the turret pointed at the hub from the drivetrain's pose, so the
+ * driver can keep driving while aiming. The robot turning and driving past the
+ * hub are fed forward, so the turret doesn't lag behind.
+ *
+ * <p>
+ * While shooting on the move, it follows the solver's virtual target instead,
+ * so the turret leads the shot the same way the drivetrain does.
+ */
+public class TurretTrackHub extends CommandBase {
+
+  private final Turret m_turret;
+  private final Drivetrain m_drivetrain;
+  private final ShootOnTheMoveSolver m_solver;
+
+  private final double[] m_pose = new double[3];
+  private final double[] m_velocity = new double[3];
+
+  public TurretTrackHub(Turret turret, Drivetrain drivetrain) {
+    this(turret, drivetrain, null);
+  }
+
+  /**
+   * @param solver Aims at its virtual target. Something else has to solve it
+   *               every loop before this runs, like {@link AimWhileDriving}
+   */
+  public TurretTrackHub(Turret turret, Drivetrain drivetrain, ShootOnTheMoveSolver solver) {
+    m_turret = turret;
+    m_drivetrain = drivetrain;
+    m_solver = solver;
+    // Only reads the drivetrain
+    addRequirements(turret);
+  }
+
+  @Override
+  public void execute() {
+    m_drivetrain.getPose(m_pose);
+
+    if (m_solver != null) {
+      // The solver already fed forward the robot driving past the target
+      m_turret.setAngle(Math.toDegrees(m_solver.getHeadingRadians() - m_pose[2]),
+          Math.toDegrees(m_solver.getHeadingRate() - m_drivetrain.getYawRate()));
+      return;
+    }
+
+    m_drivetrain.getFieldVelocity(m_velocity);
+
+    double dx = Constants.Field.HUB_LOCATION.getX() - m_pose[0];
+    double dy = Constants.Field.HUB_LOCATION.getY() - m_pose[1];
+    double distanceSquared = dx * dx + dy * dy;
+    double fieldAngle = Math.atan2(dy, dx);
+    // How fast the line to the hub turns as the robot drives past it
+    double lineOfSightRate = distanceSquared > 1e-6
+        ? (dy * m_velocity[0] - dx * m_velocity[1]) / distanceSquared
+        : 0;
+
+    m_turret.setAngle(Math.toDegrees(fieldAngle - m_pose[2]),
+        Math.toDegrees(lineOfSightRate - m_drivetrain.getYawRate()));
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    m_turret.runMotor(0);
+  }
+
+  @Override
+  public boolean isFinished() {
+    return false;
+  }
+}
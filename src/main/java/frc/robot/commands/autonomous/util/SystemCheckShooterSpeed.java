@@ -26,6 +26,6 @@ public class SystemCheckShooterSpeed extends CommandBase {
 
     @Override
     public boolean isFinished() {
-        return m_shooter.getShooterError() < 200;
+        return m_shooter.isAtSpeed();
     }
 }
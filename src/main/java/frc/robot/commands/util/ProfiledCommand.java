@@ -0,0 +1,64 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.util;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import edu.wpi.first.wpilibj2.command.CommandGroupBase;
+import frc.robot.util.LoopProfiler;
+
+/**
+ * Wraps a command so its execute() and isFinished() are timed by the
+ * {@link LoopProfiler}. Everything else is passed straight through, so the
+ * wrapped command behaves exactly as it would if it were scheduled directly.
+ */
+public class ProfiledCommand extends CommandBase {
+
+  private final Command m_command;
+  private final LoopProfiler m_profiler = LoopProfiler.getInstance();
+  private final int m_executeId;
+  private final int m_isFinishedId;
+
+  public ProfiledCommand(Command command) {
+    CommandGroupBase.requireUngrouped(command);
+    CommandGroupBase.registerGroupedCommands(command);
+    m_command = command;
+    m_requirements.addAll(command.getRequirements());
+    setName(command.getName());
+
+    m_executeId = m_profiler.register("Commands/" + command.getName() + ".execute()");
+    m_isFinishedId = m_profiler.register("Commands/" + command.getName() + ".isFinished()");
+  }
+
+  @Override
+  public void initialize() {
+    m_command.initialize();
+  }
+
+  @Override
+  public void execute() {
+    m_profiler.start(m_executeId);
+    m_command.execute();
+    m_profiler.stop(m_executeId);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    m_command.end(interrupted);
+  }
+
+  @Override
+  public boolean isFinished() {
+    m_profiler.start(m_isFinishedId);
+    boolean finished = m_command.isFinished();
+    m_profiler.stop(m_isFinishedId);
+    return finished;
+  }
+
+  @Override
+  public boolean runsWhenDisabled() {
+    return m_command.runsWhenDisabled();
+  }
+}
@@ -16,6 +16,6 @@ public class WaitForCargoInUpperMagazine extends CommandBase {
 
   @Override
   public boolean isFinished() {
-    return m_magazine.ballInUpper();
+    return m_magazine.hasStagedCargo();
   }
 }
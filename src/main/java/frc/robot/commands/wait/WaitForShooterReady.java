@@ -0,0 +1,58 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.wait;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.Shooter;
+
+/**
+ * Waits until cargo fed now would reach a shooter that's ready for it, going
+ * by the shooter's predicted time to ready instead of a fixed delay.
+ *
+ * <p>
+ * The wait is timed for the shooter's readiness stats. If it times out, the
+ * cargo still goes, so the wait stays open until {@link frc.robot.commands.RapidFire}
+ * actually feeds it. If it's interrupted, nothing is fed, so it isn't counted.
+ */
+public class WaitForShooterReady extends CommandBase {
+
+  private final Shooter m_shooter;
+  private final double m_timeoutSeconds;
+  private final Timer m_timer = new Timer();
+
+  /**
+   * @param timeoutSeconds Gives up waiting after this long, and cargo is fed
+   *                       anyway
+   */
+  public WaitForShooterReady(Shooter shooter, double timeoutSeconds) {
+    m_shooter = shooter;
+    m_timeoutSeconds = timeoutSeconds;
+  }
+
+  @Override
+  public void initialize() {
+    m_shooter.startReadyWait();
+    m_timer.reset();
+    m_timer.start();
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    if (interrupted) {
+      m_shooter.cancelReadyWait();
+    } else if (m_shooter.isReadyToFeed()) {
+      m_shooter.finishReadyWait();
+    } else {
+      m_shooter.timeOutReadyWait();
+    }
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return m_shooter.isReadyToFeed() || m_timer.hasElapsed(m_timeoutSeconds);
+  }
+}
@@ -19,6 +19,6 @@ public class WaitForShooterSpeed extends CommandBase {
   // Returns true when the command should end.
   @Override
   public boolean isFinished() {
-    return Math.abs(m_shooter.getShooterError()) < 600;
+    return m_shooter.isAtSpeed();
   }
 }
@@ -4,101 +4,149 @@
 
 package frc.robot.subsystems;
 
-import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.can.TalonFX;
-
-import edu.wpi.first.math.controller.PIDController;
-import edu.wpi.first.wpilibj.PneumaticsModuleType;
-import edu.wpi.first.wpilibj.Solenoid;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import edu.wpi.first.wpilibj2.command.PIDSubsystem;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
-
-public class Climber extends PIDSubsystem implements AutoCloseable {
-
-  public TalonFX leftMotor = new TalonFX(Constants.Climber.LEFT_MOTOR_ID);
-  public TalonFX rightMotor = new TalonFX(Constants.Climber.RIGHT_MOTOR_ID);
-
-  Solenoid climberSolenoid = new Solenoid(PneumaticsModuleType.REVPH, Constants.Climber.SOLENOID_ID);
+import frc.robot.subsystems.io.ClimberIO;
+import frc.robot.subsystems.io.ClimberIO.ClimberIOInputs;
+import frc.robot.util.CalibrationStore;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.Telemetry;
+
+/**
+ * The lift and its arms. Moves to a position run as Motion Magic profiles on
+ * the Talons, at their own 1kHz loop, with separate gains and profiles for
+ * moving the lift on its own and pulling the robot up.
+ */
+public class Climber extends SubsystemBase implements AutoCloseable {
+
+  private final LoopProfiler m_profiler = LoopProfiler.getInstance();
+  private final int m_periodicTimer = m_profiler.register("Subsystems/Climber.periodic()");
+
+  private final ClimberIO m_io;
+  private final ClimberIOInputs m_inputs = new ClimberIOInputs();
+  private final CalibrationStore m_calibration = CalibrationStore.getInstance();
 
   boolean isCalibrated = false;
   boolean armsOut = false;
-  boolean slowMode = false;
+  // Where the lift's been told to go, NaN when it's running open loop
+  private double m_target = Double.NaN;
+  private boolean m_hanging = false;
 
-  public Climber() {
-    super(new PIDController(Constants.Climber.kP, Constants.Climber.kI, Constants.Climber.kD));
-    getController().setTolerance(10);
-    leftMotor.setNeutralMode(NeutralMode.Brake);
-    rightMotor.setNeutralMode(NeutralMode.Brake);
-    leftMotor.setInverted(true);
-    leftMotor.follow(rightMotor);
+  public Climber(ClimberIO io) {
+    m_io = io;
+    m_io.updateInputs(m_inputs);
+    restoreCalibration();
+
+    SmartDashboard.putData(this);
+    Telemetry telemetry = Telemetry.getInstance();
+    telemetry.addBoolean("Climber/ArmsOut", 10, () -> armsOut);
+    telemetry.addDouble("Climber/CurrentPosition", 10, this::getMeasurement);
+    telemetry.addDouble("Climber/TargetPosition", 10, () -> m_target);
+    telemetry.addBoolean("Climber/Hanging", 10, () -> m_hanging);
   }
 
+  /** Zeroes the lift encoder, call it with the lift at the bottom. */
   public void resetEncoders() {
-    leftMotor.setSelectedSensorPosition(0);
-    rightMotor.setSelectedSensorPosition(0);
+    m_io.resetPosition();
+    m_inputs.position = 0;
+    isCalibrated = true;
   }
 
-  public boolean getLimitSwitchDown() {
-    if (!isCalibrated) {
+  public boolean isCalibrated() {
+    return isCalibrated;
+  }
+
+  /**
+   * Picks the calibration back up after a roboRIO reboot, if the Talons kept
+   * power and still read where they were saved. If they restarted, the lift
+   * may have dropped while it was off, so it has to calibrate again.
+   */
+  private void restoreCalibration() {
+    double saved = m_calibration.getDouble(Constants.Climber.POSITION_CALIBRATION, Double.NaN);
+    if (Math.abs(m_inputs.position - saved) < Constants.Climber.RESTORE_TOLERANCE) {
       isCalibrated = true;
     }
-    return rightMotor.isRevLimitSwitchClosed() == 0;
+  }
+
+  /**
+   * Saves the lift position, if the encoder was zeroed this boot or restored
+   * from a zeroed one, so a reboot doesn't lose it. Writes to flash, so only
+   * call it while disabled.
+   */
+  public void saveCalibration() {
+    if (isCalibrated) {
+      m_calibration.putDouble(Constants.Climber.POSITION_CALIBRATION, m_inputs.position);
+    } else {
+      m_calibration.remove(Constants.Climber.POSITION_CALIBRATION);
+    }
+    m_calibration.commit();
+  }
+
+  public boolean getLimitSwitchDown() {
+    return m_inputs.lowerLimitSwitch;
   }
 
   public boolean getLimitSwitchUp() {
-    return rightMotor.isFwdLimitSwitchClosed() == 0;
+    return m_inputs.upperLimitSwitch;
   }
 
   public double getMeasurement() {
-    return rightMotor.getSelectedSensorPosition();
+    return m_inputs.position;
   }
 
-  public boolean atSetpoint() {
-    return getController().atSetpoint();
+  /** Lift motor current, which jumps when the hooks take the robot's weight. */
+  public double getCurrent() {
+    return m_inputs.current;
   }
 
-  public void runLift(double speed) {
-    rightMotor.set(ControlMode.PercentOutput, speed);
+  /**
+   * Moves the lift to a position, holding against gravity.
+   *
+   * @param position Encoder ticks from the bottom
+   * @param hanging  Whether the robot is hanging from the lift, so it moves
+   *                 slower and pushes harder
+   */
+  public void setPosition(double position, boolean hanging) {
+    m_target = position;
+    m_hanging = hanging;
+    m_io.setPosition(position, hanging,
+        hanging ? Constants.Climber.HANGING_FEEDFORWARD : Constants.Climber.UNLOADED_FEEDFORWARD);
   }
 
-  public void useOutput(double output, double setpoint) {
-    runLift(slowMode ? output * 0.3 : output);
-    SmartDashboard.putNumber("Climber/TargetOutput", output);
-    SmartDashboard.putNumber("Climber/TargetPosition", setpoint);
+  public double getTargetPosition() {
+    return m_target;
   }
 
-  public void setArmsOut(boolean armsOut) {
-    climberSolenoid.set(armsOut);
-    this.armsOut = armsOut;
+  /** Whether the lift made it to its target and stopped there. */
+  public boolean atPosition() {
+    return Math.abs(m_inputs.position - m_target) < Constants.Climber.POSITION_TOLERANCE
+        && Math.abs(m_inputs.velocity) < Constants.Climber.VELOCITY_TOLERANCE;
   }
 
-  public boolean areArmsDown() {
-    return armsOut;
+  public void runLift(double speed) {
+    m_target = Double.NaN;
+    m_io.setLiftOutput(speed);
   }
 
-  public void setSlowMode(boolean isSlow) {
-    slowMode = isSlow;
+  public void setArmsOut(boolean armsOut) {
+    m_io.setArmsOut(armsOut);
+    this.armsOut = armsOut;
   }
 
-  public boolean isSlow() {
-    return slowMode;
+  public boolean areArmsDown() {
+    return armsOut;
   }
 
   @Override
   public void periodic() {
-    // if(isCalibrated) {
-    //   getController().setSetpoint(getSetpoint());
-    //   useOutput(getController().calculate(getMeasurement()), getSetpoint());
-    // }
-    SmartDashboard.putData(this);
-    SmartDashboard.putBoolean("Climber/ArmsOut", armsOut);
-    SmartDashboard.putNumber("Climber/CurrentPosition", getMeasurement());
+    m_profiler.start(m_periodicTimer);
+    m_io.updateInputs(m_inputs);
+    m_profiler.stop(m_periodicTimer);
   }
 
   @Override
   public void close() throws Exception {
-    climberSolenoid.close();
+    m_io.close();
   }
 }
@@ -4,77 +4,101 @@
 
 package frc.robot.subsystems;
 
-import com.ctre.phoenix.sensors.Pigeon2;
-import com.ctre.phoenix.sensors.Pigeon2Configuration;
-import com.swervedrivespecialties.swervelib.Mk4iSwerveModuleHelper;
-import com.swervedrivespecialties.swervelib.SwerveModule;
-
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.subsystems.io.DrivetrainIO;
+import frc.robot.subsystems.io.DrivetrainIO.DrivetrainIOInputs;
+import frc.robot.util.CalibrationStore;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.SeqLockPose;
+import frc.robot.util.SwerveKinematics;
+import frc.robot.util.Telemetry;
+import frc.robot.util.VisionPoseEstimator;
 
 public class Drivetrain extends SubsystemBase implements AutoCloseable {
+
+  public static final int FRONT_LEFT = 0;
+  public static final int FRONT_RIGHT = 1;
+  public static final int BACK_LEFT = 2;
+  public static final int BACK_RIGHT = 3;
+
+  private final LoopProfiler m_profiler = LoopProfiler.getInstance();
+  private final int m_periodicTimer = m_profiler.register("Subsystems/Drivetrain.periodic()");
+
   private final SwerveDriveKinematics m_kinematics = new SwerveDriveKinematics(
       new Translation2d(Constants.Drivetrain.TRACKWIDTH_METERS / 2.0, Constants.Drivetrain.WHEELBASE_METERS / 2.0),
       new Translation2d(Constants.Drivetrain.TRACKWIDTH_METERS / 2.0, -Constants.Drivetrain.WHEELBASE_METERS / 2.0),
       new Translation2d(-Constants.Drivetrain.TRACKWIDTH_METERS / 2.0, Constants.Drivetrain.WHEELBASE_METERS / 2.0),
       new Translation2d(-Constants.Drivetrain.TRACKWIDTH_METERS / 2.0, -Constants.Drivetrain.WHEELBASE_METERS / 2.0));
 
-  private final Pigeon2 m_pigeon = new Pigeon2(Constants.Drivetrain.PIGEON_ID);
+  private final DrivetrainIO m_io;
+  private final DrivetrainIOInputs m_inputs = new DrivetrainIOInputs();
 
-  private double gyroOffset = 0;
-  private final SwerveDriveOdometry m_odemetry = new SwerveDriveOdometry(m_kinematics, new Rotation2d(0));
+  // Primitive kinematics for driving and odometry, so neither allocates.
+  // m_kinematics is still around for the path followers.
+  private final SwerveKinematics m_swerveKinematics = new SwerveKinematics(
+      Constants.Drivetrain.TRACKWIDTH_METERS, Constants.Drivetrain.WHEELBASE_METERS);
+  private final double[] m_driveSpeeds = new double[SwerveKinematics.MODULE_COUNT];
+  private final double[] m_driveAngles = new double[SwerveKinematics.MODULE_COUNT];
+  private final double[] m_chassisSpeeds = new double[3];
+  private final double[] m_poseBuffer = new double[3];
 
-  private final SwerveModule m_frontLeftModule;
-  private final SwerveModule m_frontRightModule;
-  private final SwerveModule m_backLeftModule;
-  private final SwerveModule m_backRightModule;
-
-  private ChassisSpeeds m_chassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
+  private double gyroOffset = 0;
+  private final CalibrationStore m_calibration = CalibrationStore.getInstance();
+
+  // Odometry is owned by the odometry thread. It samples the modules and gyro
+  // into its own inputs object and hands the resulting pose to the main loop
+  // through a seqlock, so reading the pose never blocks. The main loop copies
+  // the latest sample too, instead of reading the CAN bus a second time.
+  // Vision measurements come in from the main loop and are applied at the
+  // time they were captured.
+  private final VisionPoseEstimator m_poseEstimator = new VisionPoseEstimator(m_swerveKinematics,
+      Constants.Drivetrain.VISION_GAIN);
+  private final DrivetrainIOInputs m_odometryInputs = new DrivetrainIOInputs();
+  private final DrivetrainIOInputs m_latestInputs = new DrivetrainIOInputs();
+  private final SeqLockPose m_pose = new SeqLockPose();
+  private final Notifier m_odometryNotifier = new Notifier(this::updateOdometry);
 
   private final Field2d m_field = new Field2d();
 
   private final PIDController limelightPIDController = new PIDController(0.09, 0.02, 0.01);
 
-  public Drivetrain() {
-    m_frontLeftModule = Mk4iSwerveModuleHelper.createFalcon500(
-        Mk4iSwerveModuleHelper.GearRatio.L2,
-        Constants.Drivetrain.FRONT_LEFT.DRIVE_MOTOR_ID,
-        Constants.Drivetrain.FRONT_LEFT.STEER_MOTOR_ID,
-        Constants.Drivetrain.FRONT_LEFT.ENCODER_ID,
-        Constants.Drivetrain.FRONT_LEFT.STEER_OFFSET);
-
-    m_frontRightModule = Mk4iSwerveModuleHelper.createFalcon500(
-        Mk4iSwerveModuleHelper.GearRatio.L2,
-        Constants.Drivetrain.FRONT_RIGHT.DRIVE_MOTOR_ID,
-        Constants.Drivetrain.FRONT_RIGHT.STEER_MOTOR_ID,
-        Constants.Drivetrain.FRONT_RIGHT.ENCODER_ID,
-        Constants.Drivetrain.FRONT_RIGHT.STEER_OFFSET);
-
-    m_backLeftModule = Mk4iSwerveModuleHelper.createFalcon500(
-        Mk4iSwerveModuleHelper.GearRatio.L2,
-        Constants.Drivetrain.BACK_LEFT.DRIVE_MOTOR_ID,
-        Constants.Drivetrain.BACK_LEFT.STEER_MOTOR_ID,
-        Constants.Drivetrain.BACK_LEFT.ENCODER_ID,
-        Constants.Drivetrain.BACK_LEFT.STEER_OFFSET);
-
-    m_backRightModule = Mk4iSwerveModuleHelper.createFalcon500(
-        Mk4iSwerveModuleHelper.GearRatio.L2,
-        Constants.Drivetrain.BACK_RIGHT.DRIVE_MOTOR_ID,
-        Constants.Drivetrain.BACK_RIGHT.STEER_MOTOR_ID,
-        Constants.Drivetrain.BACK_RIGHT.ENCODER_ID,
-        Constants.Drivetrain.BACK_RIGHT.STEER_OFFSET);
+  public Drivetrain(DrivetrainIO io) {
+    m_io = io;
+    // The odometry thread isn't running yet, so read the hardware directly
+    m_io.updateInputs(m_odometryInputs);
+    m_latestInputs.copyFrom(m_odometryInputs);
+    updateInputs();
+    restoreGyroCalibration();
+    m_odometryNotifier.setName("Odometry");
+    m_odometryNotifier.startPeriodic(Constants.Drivetrain.ODOMETRY_PERIOD_SECONDS);
 
     SmartDashboard.putData("Field", m_field);
+    SmartDashboard.putData(this);
+
+    Telemetry telemetry = Telemetry.getInstance();
+    telemetry.addPublisher("Drivetrain/Field", 50, 40, () -> m_field.setRobotPose(getPose2d()));
+    telemetry.addDouble("Drivetrain/Gyro", 20, () -> m_inputs.gyroYawDegrees);
+    telemetry.addDouble("Drivetrain/Pitch", 20, () -> m_inputs.gyroPitchDegrees);
+    telemetry.addDouble("Drivetrain/WheelAngle/FrontLeft", 10,
+        () -> Math.toDegrees(m_inputs.steerAngleRadians[FRONT_LEFT]));
+    telemetry.addDouble("Drivetrain/WheelAngle/FrontRight", 10,
+        () -> Math.toDegrees(m_inputs.steerAngleRadians[FRONT_RIGHT]));
+    telemetry.addDouble("Drivetrain/WheelAngle/BackLeft", 10,
+        () -> Math.toDegrees(m_inputs.steerAngleRadians[BACK_LEFT]));
+    telemetry.addDouble("Drivetrain/WheelAngle/BackRight", 10,
+        () -> Math.toDegrees(m_inputs.steerAngleRadians[BACK_RIGHT]));
   }
 
   /**
@@ -82,53 +106,178 @@ public class Drivetrain extends SubsystemBase implements AutoCloseable {
    * instead.
    */
   public void zeroGyroscope() {
-    m_pigeon.setYaw(0.0);
+    setGyroscope(0.0);
   }
 
   /**
    *
    */
   public void calibrateGyroscope() {
-    gyroOffset = -m_pigeon.getYaw();
+    gyroOffset = -m_inputs.gyroYawDegrees;
+  }
+
+  /**
+   * Picks the gyro offset back up after a roboRIO reboot. The Pigeon keeps
+   * its yaw if it stayed powered, which is checked by comparing it to the yaw
+   * saved with the offset. If it restarted too, the offset is meaningless.
+   */
+  private void restoreGyroCalibration() {
+    double savedYaw = m_calibration.getDouble(Constants.Drivetrain.GYRO_YAW_CALIBRATION, Double.NaN);
+    if (Math.abs(m_inputs.gyroYawDegrees - savedYaw) < Constants.Drivetrain.GYRO_RESTORE_TOLERANCE_DEGREES) {
+      gyroOffset = m_calibration.getDouble(Constants.Drivetrain.GYRO_OFFSET_CALIBRATION, 0);
+    }
+  }
+
+  /**
+   * Saves the gyro offset and the yaw it goes with. Writes to flash, so only
+   * call it while disabled.
+   */
+  public void saveCalibration() {
+    m_calibration.putDouble(Constants.Drivetrain.GYRO_OFFSET_CALIBRATION, gyroOffset);
+    m_calibration.putDouble(Constants.Drivetrain.GYRO_YAW_CALIBRATION, m_inputs.gyroYawDegrees);
+    m_calibration.commit();
+  }
+
+  /**
+   * Saves steer offsets that make every wheel's current angle straight ahead.
+   * Point the wheels forward, bevel gears to the left, before calling. Takes
+   * effect the next time the robot code starts.
+   */
+  public void calibrateSteerOffsets() {
+    m_io.calibrateSteerOffsets();
   }
 
   public void setGyroscope(double angle) {
-    m_pigeon.setYaw(angle);
+    m_io.setGyroYaw(angle);
+    // Keep this loop's snapshot consistent with what we just told the gyro
+    m_inputs.gyroYawDegrees = angle;
   }
 
   public Rotation2d getRawGyroscope() {
-    return Rotation2d.fromDegrees(m_pigeon.getYaw());
+    return Rotation2d.fromDegrees(m_inputs.gyroYawDegrees);
   }
 
   public Rotation2d getGyroscopeRotation() {
-    return Rotation2d.fromDegrees(m_pigeon.getYaw() + gyroOffset);
+    return Rotation2d.fromDegrees(m_inputs.gyroYawDegrees + gyroOffset);
+  }
+
+  /**
+   * The state of a module as of the start of this loop. Allocates, use
+   * {@link #getModuleSpeed(int)} and {@link #getModuleAngle(int)} in anything
+   * that runs every loop.
+   *
+   * @param module Module index, e.g. {@link #FRONT_LEFT}
+   */
+  public SwerveModuleState getState(int module) {
+    return new SwerveModuleState(getModuleSpeed(module), new Rotation2d(getModuleAngle(module)));
+  }
+
+  /** Module drive speed as of the start of this loop, meters per second. */
+  public double getModuleSpeed(int module) {
+    return m_inputs.driveVelocityMetersPerSecond[module];
   }
 
-  public SwerveModuleState getState(SwerveModule module) {
-    return new SwerveModuleState(module.getDriveVelocity(), new Rotation2d(module.getSteerAngle()));
+  /** Module steer angle as of the start of this loop, radians. */
+  public double getModuleAngle(int module) {
+    return m_inputs.steerAngleRadians[module];
   }
 
-  public void setState(SwerveModule module, SwerveModuleState state) {
-    module.set(state.speedMetersPerSecond / Constants.Swerve.MAX_VELOCITY_METERS * Constants.Swerve.MAX_VOLTAGE,
+  public void setState(int module, SwerveModuleState state) {
+    m_io.setModule(module,
+        state.speedMetersPerSecond / Constants.Swerve.MAX_VELOCITY_METERS * Constants.Swerve.MAX_VOLTAGE,
         state.angle.getRadians());
   }
 
   public void setAllStates(SwerveModuleState[] states) {
-    setState(m_frontLeftModule, states[0]);
-    setState(m_frontRightModule, states[1]);
-    setState(m_backLeftModule, states[2]);
-    setState(m_backRightModule, states[3]);
+    setState(FRONT_LEFT, states[0]);
+    setState(FRONT_RIGHT, states[1]);
+    setState(BACK_LEFT, states[2]);
+    setState(BACK_RIGHT, states[3]);
   }
 
   public void drive(ChassisSpeeds chassisSpeeds) {
-    m_chassisSpeeds = chassisSpeeds;
-    SwerveModuleState[] states = m_kinematics.toSwerveModuleStates(m_chassisSpeeds);
-    SwerveDriveKinematics.desaturateWheelSpeeds(states, Constants.Swerve.MAX_VELOCITY_METERS);
-    setAllStates(states);
+    drive(chassisSpeeds.vxMetersPerSecond, chassisSpeeds.vyMetersPerSecond, chassisSpeeds.omegaRadiansPerSecond);
+  }
+
+  /**
+   * Drives with robot relative speeds.
+   *
+   * @param vx    Forward velocity, meters per second
+   * @param vy    Left velocity, meters per second
+   * @param omega Counterclockwise angular velocity, radians per second
+   */
+  public void drive(double vx, double vy, double omega) {
+    m_swerveKinematics.toModuleStates(vx, vy, omega, m_driveSpeeds, m_driveAngles);
+    SwerveKinematics.desaturate(m_driveSpeeds, Constants.Swerve.MAX_VELOCITY_METERS);
+    for (int i = 0; i < SwerveKinematics.MODULE_COUNT; i++) {
+      m_io.setModule(i, m_driveSpeeds[i] / Constants.Swerve.MAX_VELOCITY_METERS * Constants.Swerve.MAX_VOLTAGE,
+          m_driveAngles[i]);
+    }
+  }
+
+  /**
+   * Drives with field relative speeds, using the calibrated gyroscope. Same as
+   * ChassisSpeeds.fromFieldRelativeSpeeds() without the allocations.
+   *
+   * @param vx    Velocity away from the driver station, meters per second
+   * @param vy    Velocity to the left, meters per second
+   * @param omega Counterclockwise angular velocity, radians per second
+   */
+  public void driveFieldRelative(double vx, double vy, double omega) {
+    double heading = Math.toRadians(m_inputs.gyroYawDegrees + gyroOffset);
+    double cos = Math.cos(heading);
+    double sin = Math.sin(heading);
+    drive(vx * cos + vy * sin, -vx * sin + vy * cos, omega);
   }
 
+  /**
+   * The latest pose from the odometry thread, fused with vision. Safe to call
+   * from any thread and never blocks.
+   */
   public Pose2d getPose2d() {
-    return m_odemetry.getPoseMeters();
+    return m_pose.get();
+  }
+
+  /**
+   * Same as {@link #getPose2d()} without allocating.
+   *
+   * @param out Filled with x and y in meters and the heading in radians
+   */
+  public void getPose(double[] out) {
+    m_pose.get(out);
+  }
+
+  /**
+   * How fast the robot is moving across the field this loop, from the module
+   * states and the pose's heading. Doesn't allocate.
+   *
+   * @param out Filled with x and y velocity in meters per second, in the same
+   *            frame as the pose, and the counterclockwise angular velocity in
+   *            radians per second
+   */
+  public void getFieldVelocity(double[] out) {
+    m_swerveKinematics.toChassisSpeeds(m_inputs.driveVelocityMetersPerSecond, m_inputs.steerAngleRadians, out);
+    m_pose.get(m_poseBuffer);
+    double cos = Math.cos(m_poseBuffer[2]);
+    double sin = Math.sin(m_poseBuffer[2]);
+    double vx = out[0];
+    double vy = out[1];
+    out[0] = vx * cos - vy * sin;
+    out[1] = vx * sin + vy * cos;
+  }
+
+  /** How far the front of the robot is tipped up, like swinging on a bar. */
+  public double getPitchDegrees() {
+    return m_inputs.gyroPitchDegrees;
+  }
+
+  public double getPitchRateDegreesPerSecond() {
+    return m_inputs.gyroPitchRateDegreesPerSecond;
+  }
+
+  /** How fast the robot is turning, counterclockwise, radians per second. */
+  public double getYawRate() {
+    return Math.toRadians(m_inputs.gyroYawRateDegreesPerSecond);
   }
 
   public SwerveDriveKinematics getKinematics() {
@@ -136,52 +285,91 @@ public class Drivetrain extends SubsystemBase implements AutoCloseable {
   }
 
   public ChassisSpeeds getFieldRelativeSpeeds() {
-    return m_kinematics.toChassisSpeeds(getState(m_frontLeftModule), getState(m_frontRightModule),
-        getState(m_backRightModule), getState(m_backLeftModule));
+    m_swerveKinematics.toChassisSpeeds(m_inputs.driveVelocityMetersPerSecond, m_inputs.steerAngleRadians,
+        m_chassisSpeeds);
+    return new ChassisSpeeds(m_chassisSpeeds[0], m_chassisSpeeds[1], m_chassisSpeeds[2]);
   }
 
   public void resetOdometry(Pose2d resetPos) {
-    m_odemetry.resetPosition(resetPos, resetPos.getRotation());
+    synchronized (m_poseEstimator) {
+      m_poseEstimator.resetPosition(resetPos, resetPos.getRotation());
+      m_pose.set(resetPos.getX(), resetPos.getY(), resetPos.getRotation().getRadians(), Timer.getFPGATimestamp());
+    }
+  }
+
+  /**
+   * Corrects the pose using the Limelight's view of the hub.
+   *
+   * @param distanceMeters   Distance from the camera to the center of the hub
+   * @param txDegrees        Horizontal offset of the target, positive is right
+   * @param captureTimestamp FPGA timestamp the frame was captured at
+   */
+  public void addVisionMeasurement(double distanceMeters, double txDegrees, double captureTimestamp) {
+    double angle = Math.toRadians(-txDegrees);
+    Translation2d robotToHub = new Translation2d(
+        Constants.Limelight.CAMERA_OFFSET.getX() + distanceMeters * Math.cos(angle),
+        Constants.Limelight.CAMERA_OFFSET.getY() + distanceMeters * Math.sin(angle));
+    synchronized (m_poseEstimator) {
+      m_poseEstimator.addTargetObservation(Constants.Field.HUB_LOCATION, robotToHub, captureTimestamp);
+    }
   }
 
   public void stopModules() {
-    m_frontLeftModule.set(0, 0);
-    m_frontRightModule.set(0, 0);
-    m_backLeftModule.set(0, 0);
-    m_backRightModule.set(0, 0);
+    m_io.setModule(FRONT_LEFT, 0, 0);
+    m_io.setModule(FRONT_RIGHT, 0, 0);
+    m_io.setModule(BACK_LEFT, 0, 0);
+    m_io.setModule(BACK_RIGHT, 0, 0);
   }
 
   public void defense() {
-    m_frontLeftModule.set(0, -45);
-    m_frontRightModule.set(0, 45);
-    m_backLeftModule.set(0, 45);
-    m_backRightModule.set(0, -45);
+    m_io.setModule(FRONT_LEFT, 0, -45);
+    m_io.setModule(FRONT_RIGHT, 0, 45);
+    m_io.setModule(BACK_LEFT, 0, 45);
+    m_io.setModule(BACK_RIGHT, 0, -45);
   }
 
   public PIDController getLimelightPID() {
     return limelightPIDController;
   }
 
-  @Override
-  public void periodic() {
-    m_odemetry.update(getRawGyroscope(), getState(m_frontLeftModule), getState(m_frontRightModule),
-        getState(m_backLeftModule), getState(m_backRightModule));
-    SmartDashboard.putData(this);
-    SmartDashboard.putNumber("Drivetrain/Gyro", getRawGyroscope().getDegrees());
-    m_field.setRobotPose(getPose2d());
-    SmartDashboard.putNumber("Drivetrain/WheelAngle/FrontLeft", getState(m_frontLeftModule).angle.getDegrees());
-    SmartDashboard.putNumber("Drivetrain/WheelAngle/FrontRight", getState(m_frontRightModule).angle.getDegrees());
-    SmartDashboard.putNumber("Drivetrain/WheelAngle/BackLeft", getState(m_backLeftModule).angle.getDegrees());
-    SmartDashboard.putNumber("Drivetrain/WheelAngle/BackRight", getState(m_backRightModule).angle.getDegrees()); 
+  /**
+   * Takes the odometry thread's latest sample of every drivetrain sensor.
+   * Everything else in the loop works off this snapshot instead of going back
+   * to the CAN bus.
+   */
+  private void updateInputs() {
+    synchronized (m_latestInputs) {
+      m_inputs.copyFrom(m_latestInputs);
+    }
+  }
+
+  /**
+   * Runs on the odometry thread. Samples the modules and gyro, timestamps them,
+   * and publishes the updated pose.
+   */
+  private void updateOdometry() {
+    m_io.updateInputs(m_odometryInputs);
+    synchronized (m_latestInputs) {
+      m_latestInputs.copyFrom(m_odometryInputs);
+    }
+    double timestamp = Timer.getFPGATimestamp();
+    synchronized (m_poseEstimator) {
+      m_poseEstimator.update(timestamp, Math.toRadians(m_odometryInputs.gyroYawDegrees),
+          m_odometryInputs.driveVelocityMetersPerSecond, m_odometryInputs.steerAngleRadians);
+      m_pose.set(m_poseEstimator.getX(), m_poseEstimator.getY(), m_poseEstimator.getRotationRadians(), timestamp);
+    }
   }
 
   @Override
-  public void simulationPeriodic() {
-    m_field.setRobotPose(m_odemetry.getPoseMeters());
+  public void periodic() {
+    m_profiler.start(m_periodicTimer);
+    updateInputs();
+    m_profiler.stop(m_periodicTimer);
   }
 
   @Override
   public void close() throws Exception {
-
+    m_odometryNotifier.close();
+    m_io.close();
   }
 }
@@ -7,35 +7,115 @@ package frc.robot.subsystems;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMax.IdleMode;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
 
 import edu.wpi.first.wpilibj.PneumaticsModuleType;
 import edu.wpi.first.wpilibj.Solenoid;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.util.CurrentSignatureDetector;
+import frc.robot.util.CurrentSignatureDetector.Event;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.Telemetry;
 
 public class Intake extends SubsystemBase implements AutoCloseable {
 
+  private final LoopProfiler m_profiler = LoopProfiler.getInstance();
+  private final int m_periodicTimer = m_profiler.register("Subsystems/Intake.periodic()");
+
   public CANSparkMax intakeMotor = new CANSparkMax(Constants.Intake.MOTOR_ID, MotorType.kBrushless);
   Solenoid intakeSolenoid = new Solenoid(PneumaticsModuleType.REVPH, Constants.Intake.SOLENOID_ID);
 
+  private final CurrentSignatureDetector m_detector = new CurrentSignatureDetector(
+      Constants.Intake.JAM_WINDOW_SAMPLES, Constants.Intake.ACQUIRE_CURRENT_RISE, Constants.Intake.JAM_CURRENT,
+      Constants.Intake.JAM_SPEED, Constants.Intake.JAM_HOLDOFF_SECONDS);
+  private double m_speed = 0;
+  // Events from samples since the last loop, and the ones seen this loop
+  private boolean m_pendingAcquired = false;
+  private boolean m_pendingJammed = false;
+  private boolean m_acquired = false;
+  private boolean m_jammed = false;
+  // Acquisition waiting for its cargo to be staged, NaN when there isn't one
+  private double m_unstagedAcquireTime = Double.NaN;
+  private double m_lastStagedLatency = Double.NaN;
+
   public Intake() {
     intakeMotor.setIdleMode(IdleMode.kBrake);
+    // Velocity and current, fast enough for sampleMotor()
+    intakeMotor.setPeriodicFramePeriod(PeriodicFrame.kStatus1,
+        (int) (Constants.Intake.MOTOR_SAMPLE_PERIOD_SECONDS * 1000));
+
+    SmartDashboard.putData(this);
+    Telemetry telemetry = Telemetry.getInstance();
+    telemetry.addDouble("Intake/Speed", 10, intakeMotor::get);
+    telemetry.addBoolean("Intake/ArmDown", 10, intakeSolenoid::get);
+    telemetry.addDouble("Intake/AcquireTime", 10, m_detector::getLastAcquireTime);
+    telemetry.addDouble("Intake/JamTime", 10, m_detector::getLastJamTime);
+    telemetry.addDouble("Intake/JamCount", 10, m_detector::getJamCount);
+    telemetry.addDouble("Intake/AcquireToStagedLatency", 10, () -> m_lastStagedLatency);
   }
 
   public void setIntakeDown(boolean down) {
     intakeSolenoid.set(down);
   }
 
+  public boolean isIntakeDown() {
+    return intakeSolenoid.get();
+  }
+
   public void setIntakeSpeed(double speed) {
+    m_speed = speed;
     intakeMotor.set(speed);
   }
 
+  /**
+   * Samples the roller's current and speed for cargo and jams. Call it faster
+   * than the loop, from the main thread.
+   */
+  public void sampleMotor() {
+    // Only while pulling cargo in, which is negative
+    Event event = m_detector.addSample(Timer.getFPGATimestamp(), intakeMotor.getOutputCurrent(),
+        intakeMotor.getEncoder().getVelocity(), m_speed < 0);
+    if (event == Event.ACQUIRED) {
+      m_pendingAcquired = true;
+      m_unstagedAcquireTime = m_detector.getLastAcquireTime();
+    } else if (event == Event.JAMMED) {
+      m_pendingJammed = true;
+    }
+  }
+
+  /** Whether the roller grabbed cargo since the last loop. */
+  public boolean didAcquireCargo() {
+    return m_acquired;
+  }
+
+  /** Whether cargo jammed in the roller since the last loop. */
+  public boolean didJam() {
+    return m_jammed;
+  }
+
+  /**
+   * Logs how long the last cargo took from the roller to the upper magazine.
+   *
+   * @param stagedTime FPGA timestamp it reached the upper sensor
+   */
+  public void recordStaged(double stagedTime) {
+    if (!Double.isNaN(m_unstagedAcquireTime) && stagedTime > m_unstagedAcquireTime) {
+      m_lastStagedLatency = stagedTime - m_unstagedAcquireTime;
+      m_unstagedAcquireTime = Double.NaN;
+    }
+  }
+
   @Override
   public void periodic() {
-    SmartDashboard.putNumber("Intake/Speed", intakeMotor.get());
-    SmartDashboard.putBoolean("Intake/ArmDown", intakeSolenoid.get());
-    SmartDashboard.putData(this);
+    m_profiler.start(m_periodicTimer);
+    m_acquired = m_pendingAcquired;
+    m_jammed = m_pendingJammed;
+    m_pendingAcquired = false;
+    m_pendingJammed = false;
+    m_profiler.stop(m_periodicTimer);
   }
 
   @Override
@@ -4,40 +4,201 @@
 
 package frc.robot.subsystems;
 
+import edu.wpi.first.networktables.EntryListenerFlags;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.wpilibj.Preferences;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants;
+import frc.robot.util.CameraDistanceEstimator;
+import frc.robot.util.DistanceFilter;
 import frc.robot.util.LimelightState;
-import frc.robot.util.MathUtilities;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.ShotMap;
+import frc.robot.util.ShotMapTuner;
+import frc.robot.util.Telemetry;
 
-public class Limelight extends SubsystemBase {
+public class Limelight extends SubsystemBase implements AutoCloseable {
+
+  /** Receives every new frame that has a hub target in it. */
+  @FunctionalInterface
+  public interface HubObservationConsumer {
+    /**
+     * @param distanceMeters   Distance from the camera to the center of the hub
+     * @param txDegrees        Horizontal offset of the target, positive is right
+     * @param captureTimestamp FPGA timestamp the frame was captured at
+     */
+    void accept(double distanceMeters, double txDegrees, double captureTimestamp);
+  }
+
+  /**
+   * Everything the camera reported for one frame. The frame returned by
+   * {@link Limelight#getFrame()} doesn't change until the next periodic(), so
+   * everything read from it in a loop is consistent.
+   */
+  public static final class Frame {
+    private boolean m_hasTarget;
+    private double m_tx;
+    private double m_ty;
+    private double m_ta;
+    private double m_thor;
+    private double m_tvert;
+    private double m_latencyMs;
+    private double m_receiveTimestamp;
+    private long m_frameNumber;
+    private boolean m_isNew;
+
+    private void copyFrom(Frame other) {
+      m_hasTarget = other.m_hasTarget;
+      m_tx = other.m_tx;
+      m_ty = other.m_ty;
+      m_ta = other.m_ta;
+      m_thor = other.m_thor;
+      m_tvert = other.m_tvert;
+      m_latencyMs = other.m_latencyMs;
+      m_receiveTimestamp = other.m_receiveTimestamp;
+    }
+
+    public boolean hasTarget() {
+      return m_hasTarget;
+    }
+
+    /** Horizontal offset to the target, degrees. Positive is right. */
+    public double getX() {
+      return m_tx;
+    }
+
+    /** Vertical offset to the target, degrees. Positive is up. */
+    public double getY() {
+      return m_ty;
+    }
+
+    /** Target area, percent of the image. */
+    public double getArea() {
+      return m_ta;
+    }
+
+    /** Width of the target's bounding box, pixels. */
+    public double getHorizontalWidth() {
+      return m_thor;
+    }
+
+    /** Height of the target's bounding box, pixels. */
+    public double getVerticalHeight() {
+      return m_tvert;
+    }
+
+    /** Pipeline latency plus capture latency, seconds. */
+    public double getLatency() {
+      return m_latencyMs / 1000.0 + Constants.Limelight.CAPTURE_LATENCY_SECONDS;
+    }
+
+    /** FPGA timestamp the frame arrived at, seconds. */
+    public double getReceiveTimestamp() {
+      return m_receiveTimestamp;
+    }
+
+    /** FPGA timestamp the camera captured the frame at, seconds. */
+    public double getCaptureTimestamp() {
+      return m_receiveTimestamp - getLatency();
+    }
+
+    /**
+     * Counts up by one for every frame the camera sends, even ones the robot
+     * loop skipped because a newer one came in. 0 until the first frame.
+     */
+    public long getFrameNumber() {
+      return m_frameNumber;
+    }
+
+    /** Whether this frame arrived since the last loop. */
+    public boolean isNew() {
+      return m_isNew;
+    }
+  }
+
+  private final LoopProfiler m_profiler = LoopProfiler.getInstance();
+  private final int m_periodicTimer = m_profiler.register("Subsystems/Limelight.periodic()");
 
   NetworkTable table = NetworkTableInstance.getDefault().getTable("limelight");
-  NetworkTableEntry tx = table.getEntry("tx");
-  NetworkTableEntry ty = table.getEntry("ty");
-  NetworkTableEntry ta = table.getEntry("ta");
-  NetworkTableEntry tv = table.getEntry("tv");
-  NetworkTableEntry tshort = table.getEntry("tshort");
-  NetworkTableEntry tlong = table.getEntry("tlong");
-  NetworkTableEntry thor = table.getEntry("thor");
-  NetworkTableEntry tvert = table.getEntry("tvert");
   NetworkTableEntry ledMode = table.getEntry("ledMode");
 
+  // The NetworkTables listener thread assembles incoming values into
+  // m_building, and once the whole frame is in, copies it to m_pending.
+  // periodic() copies that into the back buffer and swaps, so the front
+  // buffer is what the robot loop reads and never changes mid-loop.
+  private final Object m_pendingLock = new Object();
+  private final Frame m_building = new Frame();
+  // Which keys m_building has gotten since it was started, 0 when there's no
+  // frame being built
+  private int m_buildingKeys = 0;
+  private final Frame m_pending = new Frame();
+  private boolean m_pendingChanged = false;
+  // Camera frames completed, from the listener
+  private long m_pendingFrameCount = 0;
+  private Frame m_front = new Frame();
+  private Frame m_back = new Frame();
+  private final int m_listenerHandle;
+
+  private HubObservationConsumer m_hubObservationConsumer = null;
+
+  // Distance from ty, worked out once per new frame
+  private final CameraDistanceEstimator m_distanceEstimator = new CameraDistanceEstimator(
+      Constants.Limelight.CAMERA_HEIGHT_METERS,
+      Constants.Field.HUB_TARGET_HEIGHT_METERS,
+      Constants.Field.HUB_RADIUS_METERS,
+      Constants.Limelight.CAMERA_PITCH_DEGREES,
+      Constants.Limelight.CALIBRATION_SAMPLES);
+  private double m_distance = Double.NaN;
+
+  // Target distance, filtered from new frames only
+  private final DistanceFilter m_distanceFilter = new DistanceFilter(
+      Constants.Limelight.FILTER_WINDOW,
+      Constants.Limelight.FILTER_OUTLIER_THRESHOLD,
+      Constants.Limelight.FILTER_MAX_REJECTIONS,
+      Constants.Limelight.FILTER_ACCELERATION_STD_DEV,
+      Constants.Limelight.FILTER_MEASUREMENT_STD_DEV,
+      Constants.Limelight.FILTER_STALE_TIMEOUT_SECONDS);
+  private double m_distanceConfidence = 0;
+
+  // Shots are tuned in deploy/shotmap.json or live through ShotMapTuner,
+  // increase rpm to shoot farther and decrease hood to have a lower shot angle
+  private final ShotMapTuner m_shotMaps = ShotMapTuner.getInstance();
+
   public Limelight() {
+    Preferences.initDouble(Constants.Limelight.CAMERA_PITCH_PREFERENCE, Constants.Limelight.CAMERA_PITCH_DEGREES);
+    m_distanceEstimator.setPitchDegrees(Preferences.getDouble(Constants.Limelight.CAMERA_PITCH_PREFERENCE,
+        Constants.Limelight.CAMERA_PITCH_DEGREES));
+
+    m_listenerHandle = table.addEntryListener(
+        (table, key, entry, value, flags) -> onValue(key, value),
+        EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate
+            | EntryListenerFlags.kLocal);
 
+    Telemetry telemetry = Telemetry.getInstance();
+    telemetry.addDouble("Limelight/Distance", 10, this::getFilteredDistance);
+    telemetry.addDouble("Limelight/DistanceConfidence", 10, this::getDistanceConfidence);
+    telemetry.addDouble("Limelight/PitchDegrees", 10, m_distanceEstimator::getPitchDegrees);
+  }
+
+  /** The latest frame, as of the start of this loop. */
+  public Frame getFrame() {
+    return m_front;
   }
 
   public double getY() {
-    return ty.getDouble(0.0);
+    return m_front.getY();
   }
 
   public double getX() {
-    return tx.getDouble(0.0);
+    return m_front.getX();
   }
 
   public double getHorizontalWidth() {
-    return thor.getDouble(0.0);
+    return m_front.getHorizontalWidth();
   }
 
   public void setLimelightState(LimelightState state) {
@@ -57,72 +218,226 @@ public class Limelight extends SubsystemBase {
   }
 
   public boolean hasValidTarget() {
-    return tv.getDouble(0) == 1;
+    return m_front.hasTarget();
+  }
+
+  /**
+   * Distance from the camera to the center of the hub in meters, from the
+   * target's vertical angle in this loop's frame. Unfiltered, and NaN if
+   * there's no target or the angle doesn't make sense.
+   */
+  public double getDistanceToHub() {
+    return m_distance;
+  }
+
+  /** Mount pitch the distance is being worked out with, degrees. */
+  public double getCameraPitch() {
+    return m_distanceEstimator.getPitchDegrees();
+  }
+
+  /**
+   * Adds a pitch calibration sample and refits the camera pitch from every
+   * sample so far. The new pitch is saved to Preferences, so it survives a
+   * reboot.
+   *
+   * @param tyDegrees      Vertical angle to the target, averaged over a few
+   *                       frames
+   * @param distanceMeters Measured distance from the camera to the center of
+   *                       the hub
+   * @return The new pitch in degrees
+   */
+  public double addPitchCalibrationSample(double tyDegrees, double distanceMeters) {
+    double pitch = m_distanceEstimator.addCalibrationSample(tyDegrees, distanceMeters);
+    Preferences.setDouble(Constants.Limelight.CAMERA_PITCH_PREFERENCE, pitch);
+    return pitch;
+  }
+
+  /** Starts the pitch calibration over, the current pitch is kept until then. */
+  public void clearPitchCalibration() {
+    m_distanceEstimator.clearCalibrationSamples();
+  }
+
+  /** How many known distances the current pitch was fit from. */
+  public int getPitchCalibrationSampleCount() {
+    return m_distanceEstimator.getCalibrationSampleCount();
+  }
+
+  /** The camera's reported pipeline latency plus capture latency, in seconds. */
+  public double getLatency() {
+    return m_front.getLatency();
+  }
+
+  /** Sets what gets told about every new frame that sees the hub. */
+  public void setHubObservationConsumer(HubObservationConsumer consumer) {
+    m_hubObservationConsumer = consumer;
+  }
+
+  /** The filtered distance from the camera to the center of the hub, meters. */
+  public double getFilteredDistance() {
+    return m_distanceFilter.getDistance();
+  }
+
+  /**
+   * How much to trust {@link #getFilteredDistance()} this loop, from 0 to 1.
+   * Drops when measurements disagree or the target hasn't been seen recently.
+   */
+  public double getDistanceConfidence() {
+    return m_distanceConfidence;
+  }
+
+  /** Whether there's a target and the filtered distance is trustworthy. */
+  public boolean hasConfidentTarget() {
+    return hasValidTarget() && m_distanceConfidence >= Constants.Limelight.MIN_CONFIDENCE;
   }
 
   public boolean alignGood() {
     return Math.abs(getX()) < 2;
   }
 
-  public double[] calcHoodAndRPM() {
-    // TODO: Change thor to ty. Safe zone shot was inconsistent with distance, jumping between around 150 and 170
-    double arr[][] = {
-        { Double.MIN_VALUE, 0, -25 },
-        { -1, 18000, -40 },
-        {45, 15000, -35},
-        { 90, 15000, -35 },
-        { 100, 12000, -18 },
-        { 110, 11000, -17 },
-        { 120, 10000, -15 },
-        { 130, 9000, -12 },
-        { 145, 9000, -20 },
-        { 155, 9000, -20 },
-        { 167, 7500, -8 },
-        { 170, 7250, -7 },
-        { 182, 7000, -5 },
-        { 198, 7000, -5 },
-        { 205, 7000, -3 },
-        { 240, 6800, -2.5 },
-        { 300, 6200, -1.25 },
-        { 600, 4000, -1 },
-        { Double.MAX_VALUE, 0, -1 }
-
-    };
-
-    int start = 0, end = arr.length - 1;
-
-    if (!hasValidTarget())
-      return new double[] { 3000, -5 };
-
-    double yoffset = getHorizontalWidth();
-    int ans = 0;
-    while (start <= end) {
-      int mid = (start + end) / 2;
-
-      if (arr[mid][0] < yoffset) {
-        start = mid + 1;
+  /**
+   * Looks up the flywheel speed and hood angle for the current target.
+   *
+   * @param out Holder the shot is written into
+   */
+  public void calcHoodAndRPM(ShotMap.Shot out) {
+    ShotMap shotMap = m_shotMaps.get();
+    if (!hasConfidentTarget()) {
+      shotMap.noTarget(out);
+      return;
+    }
+    shotMap.lookup(m_distanceFilter.getDistance(), out);
+  }
+
+  @Override
+  public void periodic() {
+    m_profiler.start(m_periodicTimer);
+    updateFrame();
+    if (m_front.isNew()) {
+      m_distance = m_front.hasTarget() ? m_distanceEstimator.getDistance(m_front.getY()) : Double.NaN;
+      // Comparisons with NaN are false, so this also drops bad angles
+      if (m_distance > Constants.Limelight.MIN_DISTANCE_METERS
+          && m_distance < Constants.Limelight.MAX_DISTANCE_METERS) {
+        m_distanceFilter.update(m_distance, m_front.getCaptureTimestamp());
+        if (m_hubObservationConsumer != null) {
+          m_hubObservationConsumer.accept(m_distance, getX(), m_front.getCaptureTimestamp());
+        }
       }
+    }
+    m_distanceConfidence = m_distanceFilter.getConfidence(Timer.getFPGATimestamp());
+    m_profiler.stop(m_periodicTimer);
+  }
 
-      else {
-        ans = mid;
-        end = mid - 1;
+  /**
+   * Publishes the last complete frame as the new front frame, if one came in
+   * since the last loop. If the camera sent more than one, the older ones are
+   * skipped, but still counted in the frame number.
+   */
+  private void updateFrame() {
+    synchronized (m_pendingLock) {
+      // Nothing else came in for this frame, so it's done
+      if (m_buildingKeys != 0
+          && Timer.getFPGATimestamp() - m_building.m_receiveTimestamp > Constants.Limelight.FRAME_GAP_SECONDS) {
+        finishFrame();
+      }
+      if (!m_pendingChanged) {
+        m_front.m_isNew = false;
+        return;
       }
+      m_back.copyFrom(m_pending);
+      m_back.m_frameNumber = m_pendingFrameCount;
+      m_pendingChanged = false;
     }
+    m_back.m_isNew = true;
+    Frame front = m_back;
+    m_back = m_front;
+    m_front = front;
+  }
 
-    double[] output = {
-        MathUtilities.interpolate(arr[ans - 1][0], arr[ans][0], arr[ans - 1][1], arr[ans][1], yoffset),
-        MathUtilities.interpolate(arr[ans - 1][0], arr[ans][0], arr[ans - 1][2], arr[ans][2], yoffset)
-    };
-    // {6700, -10 }
-    // Increase first number to shoot farther decrease 2nd to have lower shot angle
-    // return new double[] {6600, -7}; THESE WORK FOR ON THE LINE!!!!!
-    // return new double[] {6800, -5};
-     //return new double[] {7500, -4.5};
-    return new double[] {output[0] - 1000, output[1] };
-    //return new double[] { arr[ans][1], arr[ans][2] };
+  /**
+   * Runs on the NetworkTables listener thread. The camera sends all of a
+   * frame's values in one burst, but NetworkTables only passes on the ones
+   * that changed, in no particular order, so no one key can be counted on to
+   * mark the end of a frame. Instead values collect into a frame until one of
+   * its keys comes in a second time, or until nothing has come in for a while,
+   * which periodic() checks for. Keys that didn't change keep their value from
+   * the last frame. The frame is stamped with when its first value came in.
+   */
+  private void onValue(String key, NetworkTableValue value) {
+    int keyBit = getKeyBit(key);
+    if (keyBit == 0 || !value.isDouble()) {
+      // Not part of a frame, like ledMode
+      return;
+    }
+    double number = value.getDouble();
+    double now = Timer.getFPGATimestamp();
+    synchronized (m_pendingLock) {
+      if (m_buildingKeys != 0 && ((m_buildingKeys & keyBit) != 0
+          || now - m_building.m_receiveTimestamp > Constants.Limelight.FRAME_GAP_SECONDS)) {
+        finishFrame();
+      }
+      if (m_buildingKeys == 0) {
+        m_building.m_receiveTimestamp = now;
+      }
+      m_buildingKeys |= keyBit;
+      switch (key) {
+        case "tv":
+          m_building.m_hasTarget = number == 1;
+          break;
+        case "tx":
+          m_building.m_tx = number;
+          break;
+        case "ty":
+          m_building.m_ty = number;
+          break;
+        case "ta":
+          m_building.m_ta = number;
+          break;
+        case "thor":
+          m_building.m_thor = number;
+          break;
+        case "tvert":
+          m_building.m_tvert = number;
+          break;
+        case "tl":
+          m_building.m_latencyMs = number;
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private static int getKeyBit(String key) {
+    switch (key) {
+      case "tv":
+        return 1;
+      case "tx":
+        return 1 << 1;
+      case "ty":
+        return 1 << 2;
+      case "ta":
+        return 1 << 3;
+      case "thor":
+        return 1 << 4;
+      case "tvert":
+        return 1 << 5;
+      case "tl":
+        return 1 << 6;
+      default:
+        return 0;
+    }
+  }
+
+  /** Hands the frame being built to the loop. Hold m_pendingLock. */
+  private void finishFrame() {
+    m_pending.copyFrom(m_building);
+    m_pendingFrameCount++;
+    m_pendingChanged = true;
+    m_buildingKeys = 0;
   }
 
   @Override
-  public void periodic() {
+  public void close() {
+    table.removeEntryListener(m_listenerHandle);
   }
 }
@@ -4,88 +4,295 @@
 
 package frc.robot.subsystems;
 
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.CANSparkMax.ControlType;
-import com.revrobotics.CANSparkMax.IdleMode;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-
-import edu.wpi.first.wpilibj.AnalogInput;
-import edu.wpi.first.wpilibj.XboxController;
-import edu.wpi.first.wpilibj.GenericHID.RumbleType;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.subsystems.io.MagazineIO;
+import frc.robot.subsystems.io.MagazineIO.MagazineIOInputs;
+import frc.robot.util.CalibrationStore;
+import frc.robot.util.CargoTracker;
+import frc.robot.util.CurrentSignatureDetector;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.Telemetry;
 
 public class Magazine extends SubsystemBase implements AutoCloseable {
 
-  public CANSparkMax lowerMagazine = new CANSparkMax(Constants.Magazine.LOWER_MOTOR, MotorType.kBrushless);
-  public CANSparkMax upperMagazine = new CANSparkMax(Constants.Magazine.UPPER_MOTOR, MotorType.kBrushless);
+  private final LoopProfiler m_profiler = LoopProfiler.getInstance();
+  private final int m_periodicTimer = m_profiler.register("Subsystems/Magazine.periodic()");
 
-  AnalogInput lowerBallSensor = new AnalogInput(Constants.Magazine.LOWER_SENSOR);
-  AnalogInput upperBallSensor = new AnalogInput(Constants.Magazine.UPPER_SENSOR);
+  private final MagazineIO m_io;
+  private final MagazineIOInputs m_inputs = new MagazineIOInputs();
+  private final CalibrationStore m_calibration = CalibrationStore.getInstance();
 
-  public Magazine() {
-    lowerMagazine.setIdleMode(IdleMode.kBrake);
-    upperMagazine.setIdleMode(IdleMode.kBrake);
-    upperMagazine.setInverted(true);
+  private double m_lowerThreshold;
+  private double m_upperThreshold;
+  // Sensor readings captured for calibration, NaN until they are
+  private double m_emptyLower = Double.NaN;
+  private double m_emptyUpper = Double.NaN;
+  private double m_loadedLower = Double.NaN;
+  private double m_loadedUpper = Double.NaN;
 
-    lowerMagazine.getPIDController().setP(0.0001);
-    upperMagazine.getPIDController().setP(0.0001);
-    lowerMagazine.getPIDController().setI(0.0000);
-    upperMagazine.getPIDController().setI(0.0000);
-    lowerMagazine.getPIDController().setD(0);
-    upperMagazine.getPIDController().setD(0);
+  private boolean m_wasBallInUpper;
+  private boolean m_cargoLeftUpper = false;
+
+  private final CargoTracker m_tracker = new CargoTracker(Constants.Magazine.MAX_CARGO,
+      Constants.Magazine.CLEAR_SECONDS, Constants.Magazine.TRANSIT_SECONDS);
+  // Last velocities asked for. An arrival can stop a motor without changing
+  // these, see getLowerSpeed()
+  private double m_lowerCommand = 0;
+  private double m_upperCommand = 0;
+
+  private final CurrentSignatureDetector m_jamDetector = new CurrentSignatureDetector(
+      Constants.Magazine.JAM_WINDOW_SAMPLES, Constants.Magazine.ACQUIRE_CURRENT_RISE,
+      Constants.Magazine.JAM_CURRENT, Constants.Magazine.JAM_SPEED, Constants.Magazine.JAM_HOLDOFF_SECONDS);
+
+  public Magazine(MagazineIO io) {
+    m_io = io;
+    setSensorThresholds(
+        m_calibration.getDouble(Constants.Magazine.LOWER_SENSOR_CALIBRATION,
+            Constants.Magazine.LOWER_SENSOR_THRESHOLD),
+        m_calibration.getDouble(Constants.Magazine.UPPER_SENSOR_CALIBRATION,
+            Constants.Magazine.UPPER_SENSOR_THRESHOLD));
+    m_io.updateInputs(m_inputs);
+    m_wasBallInUpper = ballInUpper();
+    m_tracker.reset(ballInLower(), ballInUpper());
+
+    SmartDashboard.putData(this);
+    Telemetry telemetry = Telemetry.getInstance();
+    telemetry.addBoolean("Magazine/BallInUpper", 20, this::ballInUpper);
+    telemetry.addBoolean("Magazine/BallInLower", 20, this::ballInLower);
+    telemetry.addDouble("Magazine/LowerSpeed", 10, () -> m_inputs.lowerOutput);
+    telemetry.addDouble("Magazine/UpperSpeed", 10, () -> m_inputs.upperOutput);
+    telemetry.addDouble("Magazine/CargoCount", 10, m_tracker::getCargoCount);
+    telemetry.addDouble("Magazine/LowerSensor", 10, () -> m_inputs.lowerSensorValue);
+    telemetry.addDouble("Magazine/UpperSensor", 10, () -> m_inputs.upperSensorValue);
+    telemetry.addDouble("Magazine/LowerArrivalTime", 10, () -> m_inputs.lowerArrivalTime);
+    telemetry.addDouble("Magazine/UpperArrivalTime", 10, () -> m_inputs.upperArrivalTime);
+    telemetry.addDouble("Magazine/LowerJamTime", 10, m_jamDetector::getLastJamTime);
+    telemetry.addDouble("Magazine/LowerJamCount", 10, m_jamDetector::getJamCount);
+    telemetry.addDouble("Magazine/LowerStopLatency", 10, () -> m_inputs.lowerStopLatency);
+    telemetry.addDouble("Magazine/UpperStopLatency", 10, () -> m_inputs.upperStopLatency);
   }
 
   public void runLowerMagazine(double speed) {
-    // lowerMagazine.set(speed*1.15);
-    lowerMagazine.getPIDController().setReference(speed, ControlType.kVelocity);
+    m_lowerCommand = speed;
+    m_io.setLowerVelocity(speed);
   }
 
   public void runUpperMagazine(double speed) {
-    // upperMagazine.set(speed);
-    upperMagazine.getPIDController().setReference(speed, ControlType.kVelocity);
+    m_upperCommand = speed;
+    m_io.setUpperVelocity(speed);
+  }
+
+  /**
+   * Runs the lower magazine until cargo reaches the lower sensor. The sensor
+   * interrupt stops it, so cargo stops in the same place however busy the
+   * robot loop is.
+   */
+  public void runLowerMagazineUntilArrival(double speed) {
+    m_lowerCommand = speed;
+    m_io.setLowerVelocityUntilArrival(speed);
+  }
+
+  /** Runs the upper magazine until cargo reaches the upper sensor. */
+  public void runUpperMagazineUntilArrival(double speed) {
+    m_upperCommand = speed;
+    m_io.setUpperVelocityUntilArrival(speed);
+  }
+
+  /**
+   * Moves cargo up to the upper sensor and holds it there, with the next one
+   * waiting behind it at the lower sensor. The motors only run while there's
+   * cargo to move.
+   *
+   * @param acceptingCargo Whether cargo could be coming in from the intake,
+   *                       to keep the lower magazine pulling it in
+   */
+  public void index(boolean acceptingCargo) {
+    if (isClearingJam()) {
+      // Back the cargo out of the jam, then carry on as usual to try again
+      runUpperMagazine(0);
+      runLowerMagazine(-Constants.Magazine.JAM_REVERSE_SPEED);
+      return;
+    }
+    if (!m_tracker.hasStagedCargo()) {
+      if (m_tracker.hasCargoBelowUpper()) {
+        runUpperMagazineUntilArrival(Constants.Magazine.STAGE_UPPER_SPEED);
+        runLowerMagazine(Constants.Magazine.STAGE_LOWER_SPEED);
+      } else {
+        runUpperMagazine(0);
+        runLowerMagazine(acceptingCargo ? Constants.Magazine.PULL_IN_LOWER_SPEED : 0);
+      }
+    } else {
+      runUpperMagazine(0);
+      // Room for one more behind it
+      boolean pullIn = acceptingCargo && !m_tracker.isFull()
+          && m_tracker.getState(CargoTracker.Slot.LOWER) == CargoTracker.State.EMPTY;
+      if (pullIn) {
+        runLowerMagazineUntilArrival(Constants.Magazine.PULL_IN_LOWER_SPEED);
+      } else {
+        runLowerMagazine(0);
+      }
+    }
+  }
+
+  /**
+   * Samples the lower magazine's current and speed for jams. Call it faster
+   * than the loop, from the main thread.
+   */
+  public void sampleMotors() {
+    m_io.updateMotorInputs(m_inputs);
+    // Only while pulling cargo up
+    m_jamDetector.addSample(Timer.getFPGATimestamp(), m_inputs.lowerCurrent, m_inputs.lowerVelocity,
+        getLowerSpeed() > 0);
+  }
+
+  /** Whether the lower magazine is backing out a jam. */
+  public boolean isClearingJam() {
+    return Timer.getFPGATimestamp() - m_jamDetector.getLastJamTime() < Constants.Magazine.JAM_REVERSE_SECONDS;
   }
 
   public boolean ballInUpper() {
-    return upperBallSensor.getValue() > Constants.Magazine.UPPER_SENSOR_THRESHOLD;
+    return m_inputs.ballInUpper;
   }
 
   public boolean ballInLower() {
-    return lowerBallSensor.getValue() < Constants.Magazine.LOWER_SENSOR_THRESHOLD;
+    return m_inputs.ballInLower;
+  }
+
+  /** Sets the raw sensor readings cargo is detected at. */
+  public void setSensorThresholds(double lower, double upper) {
+    m_lowerThreshold = lower;
+    m_upperThreshold = upper;
+    m_io.setSensorThresholds(lower, upper);
+  }
+
+  public double getLowerSensorThreshold() {
+    return m_lowerThreshold;
+  }
+
+  public double getUpperSensorThreshold() {
+    return m_upperThreshold;
+  }
+
+  /**
+   * Captures what the ball sensors read, with cargo in front of both of them
+   * or with the magazine empty. Once both have been captured, the thresholds
+   * move halfway between them.
+   */
+  public void captureSensorLevels(boolean loaded) {
+    if (loaded) {
+      m_loadedLower = m_inputs.lowerSensorValue;
+      m_loadedUpper = m_inputs.upperSensorValue;
+    } else {
+      m_emptyLower = m_inputs.lowerSensorValue;
+      m_emptyUpper = m_inputs.upperSensorValue;
+    }
+    if (Double.isNaN(m_emptyLower) || Double.isNaN(m_loadedLower)) {
+      return;
+    }
+    // Too close together and the hysteresis would swallow the difference
+    double minimumGap = 4 * Constants.Magazine.SENSOR_HYSTERESIS;
+    if (m_emptyLower - m_loadedLower < minimumGap || m_loadedUpper - m_emptyUpper < minimumGap) {
+      DriverStation.reportWarning("Ball sensors don't read far enough apart to calibrate, "
+          + "check the cargo is in front of them", false);
+      return;
+    }
+    setSensorThresholds((m_emptyLower + m_loadedLower) / 2, (m_emptyUpper + m_loadedUpper) / 2);
+  }
+
+  /** Saves the sensor thresholds, if they've been calibrated. */
+  public void saveCalibration() {
+    if (m_lowerThreshold != Constants.Magazine.LOWER_SENSOR_THRESHOLD
+        || m_upperThreshold != Constants.Magazine.UPPER_SENSOR_THRESHOLD) {
+      m_calibration.putDouble(Constants.Magazine.LOWER_SENSOR_CALIBRATION, m_lowerThreshold);
+      m_calibration.putDouble(Constants.Magazine.UPPER_SENSOR_CALIBRATION, m_upperThreshold);
+    }
+    m_calibration.commit();
   }
 
+  /**
+   * Whether cargo cleared the upper sensor this loop. While feeding, that's
+   * the cargo heading into the flywheel.
+   */
+  public boolean didCargoLeaveUpper() {
+    return m_cargoLeftUpper;
+  }
+
+  /**
+   * Whether cargo reached the upper sensor since the last loop, even if it's
+   * already moved past it.
+   */
+  public boolean didCargoArriveUpper() {
+    return m_inputs.upperArrived;
+  }
+
+  /** FPGA timestamp cargo last reached the upper sensor, seconds. */
+  public double getUpperArrivalTime() {
+    return m_inputs.upperArrivalTime;
+  }
+
+  /** Whether the magazine is holding as much cargo as it can. */
   public boolean isFull() {
-    return ballInLower() && ballInUpper();
+    return m_tracker.isFull();
+  }
+
+  public int getCargoCount() {
+    return m_tracker.getCargoCount();
+  }
+
+  /** Whether there's cargo at the upper sensor, ready to shoot. */
+  public boolean hasStagedCargo() {
+    return m_tracker.hasStagedCargo();
+  }
+
+  /** Whether there's cargo that still has to be moved up to be shot. */
+  public boolean hasCargoBelowUpper() {
+    return m_tracker.hasCargoBelowUpper();
+  }
+
+  public CargoTracker.State getCargoState(CargoTracker.Slot slot) {
+    return m_tracker.getState(slot);
   }
 
   public double getLowerBallSensor() {
-    return lowerBallSensor.getValue();
+    return m_inputs.lowerSensorValue;
   }
 
   public double getUpperBallSensor() {
-    return upperBallSensor.getValue();
+    return m_inputs.upperSensorValue;
   }
 
   public void stop() {
-    lowerMagazine.set(0);
-    upperMagazine.set(0);
+    m_lowerCommand = 0;
+    m_upperCommand = 0;
+    m_io.stop();
+  }
+
+  /** Lower magazine speed it's actually running at, 0 if an arrival stopped it. */
+  private double getLowerSpeed() {
+    return m_inputs.lowerStoppedOnArrival ? 0 : m_lowerCommand;
+  }
+
+  private double getUpperSpeed() {
+    return m_inputs.upperStoppedOnArrival ? 0 : m_upperCommand;
   }
 
   @Override
   public void periodic() {
-    SmartDashboard.putBoolean("Magazine/BallInUpper", ballInUpper());
-    SmartDashboard.putBoolean("Magazine/BallInLower", ballInLower());
-    SmartDashboard.putNumber("Magazine/LowerSpeed", lowerMagazine.get());
-    SmartDashboard.putNumber("Magazine/UpperSpeed", upperMagazine.get());
-    SmartDashboard.putData(this);
+    m_profiler.start(m_periodicTimer);
+    m_io.updateInputs(m_inputs);
+    boolean ballInUpper = ballInUpper();
+    m_cargoLeftUpper = m_wasBallInUpper && !ballInUpper;
+    m_wasBallInUpper = ballInUpper;
+    m_tracker.update(ballInLower(), ballInUpper, getLowerSpeed(), getUpperSpeed(), Timer.getFPGATimestamp());
+    m_profiler.stop(m_periodicTimer);
   }
 
   @Override
   public void close() throws Exception {
-    lowerMagazine.close();
-    upperMagazine.close();
-    lowerBallSensor.close();
-    upperBallSensor.close();
+    m_io.close();
   }
 }
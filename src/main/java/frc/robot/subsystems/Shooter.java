@@ -4,109 +4,288 @@
 
 package frc.robot.subsystems;
 
-import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.FollowerType;
-import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.can.TalonFX;
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.SparkMaxLimitSwitch;
-import com.revrobotics.CANSparkMax.ControlType;
-import com.revrobotics.CANSparkMax.IdleMode;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.subsystems.io.ShooterIO;
+import frc.robot.subsystems.io.ShooterIO.ShooterIOInputs;
+import frc.robot.util.CalibrationStore;
+import frc.robot.util.FlywheelController;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.ShooterReadiness;
+import frc.robot.util.Telemetry;
 
 public class Shooter extends SubsystemBase implements AutoCloseable {
-  TalonFX leftShooter = new TalonFX(Constants.Shooter.LEFT_MOTOR_ID);
-  TalonFX rightShooter = new TalonFX(Constants.Shooter.RIGHT_MOTOR_ID);
-  CANSparkMax hood = new CANSparkMax(Constants.Shooter.HOOD_MOTOR_ID, MotorType.kBrushless);
-  RelativeEncoder hoodEncoder = hood.getEncoder();
-  SparkMaxLimitSwitch backLimitSwitch = hood.getForwardLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
-  SparkMaxLimitSwitch frontLimitSwitch = hood.getReverseLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
+
+  private final LoopProfiler m_profiler = LoopProfiler.getInstance();
+  private final int m_periodicTimer = m_profiler.register("Subsystems/Shooter.periodic()");
+
+  private final ShooterIO m_io;
+  private final ShooterIOInputs m_inputs = new ShooterIOInputs();
+  private final CalibrationStore m_calibration = CalibrationStore.getInstance();
+
+  // LQR and Kalman filter on the flywheel, working in radians per second
+  private final FlywheelController m_flywheelController = new FlywheelController(
+      Constants.Shooter.kV, Constants.Shooter.kA,
+      Constants.Shooter.LQR_VELOCITY_TOLERANCE, Constants.Shooter.LQR_VOLTAGE_TOLERANCE,
+      Constants.Shooter.MODEL_STD_DEV, Constants.Shooter.MEASUREMENT_STD_DEV,
+      Constants.Shooter.MAX_VOLTAGE, TimedRobot.kDefaultPeriod);
+  double flywheelTarget = 0;
+  private double m_flywheelVoltage = 0;
+  private double m_boostEndTime = Double.NEGATIVE_INFINITY;
+  // A wait for the shooter gave up, and finishes once cargo is fed anyway
+  private boolean m_readyWaitTimedOut = false;
 
   double hoodAngleTarget = 0;
+  private boolean m_hoodHomed = false;
 
-  public Shooter() {
-    leftShooter.setNeutralMode(NeutralMode.Brake);
-    rightShooter.setNeutralMode(NeutralMode.Brake);
+  private final ShooterReadiness m_readiness = new ShooterReadiness(Constants.Shooter.HOOD_TOLERANCE,
+      Constants.Shooter.HOOD_RATE_TIME_CONSTANT, Constants.Shooter.BASELINE_WAIT_SECONDS,
+      Constants.Shooter.BASELINE_VELOCITY_TOLERANCE);
 
-    hood.setIdleMode(IdleMode.kBrake);
+  public Shooter(ShooterIO io) {
+    m_io = io;
+    runMotor(0);
+    m_io.updateInputs(m_inputs);
+    restoreHoodCalibration();
 
-    hood.getPIDController().setP(0.2);
-    hood.getPIDController().setIZone(0.2);
-    hood.getPIDController().setOutputRange(-.3, .3);
+    SmartDashboard.putData(this);
+    Telemetry telemetry = Telemetry.getInstance();
+    telemetry.addDouble("Shooter/HoodAngle", 5, () -> m_inputs.hoodPosition);
+    telemetry.addDouble("Shooter/SpeedError", 20, this::getShooterError);
+    telemetry.addDouble("Shooter/ShooterSpeed", 20, () -> m_inputs.flywheelVelocity);
+    telemetry.addDouble("Shooter/Voltage", 20, () -> m_flywheelVoltage);
+    telemetry.addDouble("Shooter/HoodSpeed", 5, () -> m_inputs.hoodOutput);
+    telemetry.addDouble("Shooter/TimeToReady", 20, m_readiness::getTimeToReady);
+    telemetry.addDouble("Shooter/TimeSaved", 5, m_readiness::getLastTimeSaved);
+    telemetry.addDouble("Shooter/TotalTimeSaved", 5, m_readiness::getTotalTimeSaved);
+  }
 
-    rightShooter.setInverted(true);
-    rightShooter.follow(leftShooter, FollowerType.AuxOutput1);
+  public double getShooterError() {
+    return flywheelTarget - m_inputs.flywheelVelocity;
+  }
 
-    leftShooter.setNeutralMode(NeutralMode.Coast);
-    rightShooter.setNeutralMode(NeutralMode.Coast);
+  /** Whether the flywheel is within tolerance of its target right now. */
+  public boolean isAtSpeed() {
+    return Math.abs(getShooterError()) < Constants.Shooter.VELOCITY_TOLERANCE;
+  }
 
-    leftShooter.config_kP(0, Constants.Shooter.kP, 30);
-    leftShooter.config_kI(0, Constants.Shooter.kI, 30);
-    leftShooter.config_kD(0, Constants.Shooter.kD, 30);
-    leftShooter.config_kF(0, Constants.Shooter.kF, 30);
-    leftShooter.config_IntegralZone(0, 50);
-    rightShooter.config_kP(0, Constants.Shooter.kP, 30);
-    rightShooter.config_kI(0, Constants.Shooter.kI, 30);
-    rightShooter.config_kD(0, Constants.Shooter.kD, 30);
-    rightShooter.config_kF(0, Constants.Shooter.kF, 30);
-    rightShooter.config_IntegralZone(0, 50);
+  /**
+   * Predicted seconds until the flywheel and hood are both within tolerance,
+   * infinity if the flywheel is off or isn't getting there.
+   */
+  public double getTimeToReady() {
+    return m_readiness.getTimeToReady();
+  }
 
-    runMotor(0);
+  /**
+   * Whether cargo fed now would reach a flywheel and hood that are ready for
+   * it.
+   */
+  public boolean isReadyToFeed() {
+    return m_readiness.isReadyWithin(Constants.Shooter.FEED_LATENCY_SECONDS);
   }
 
-  public double getShooterError() {
-    return leftShooter.getClosedLoopError();
+  /** Starts timing a wait for the shooter, to log how long it took. */
+  public void startReadyWait() {
+    m_readyWaitTimedOut = false;
+    m_readiness.startWait(Timer.getFPGATimestamp());
+  }
+
+  /** Stops timing a wait for the shooter, cargo is being fed. */
+  public void finishReadyWait() {
+    m_readyWaitTimedOut = false;
+    m_readiness.finishWait(Timer.getFPGATimestamp());
+  }
+
+  /**
+   * Gives up waiting for the shooter, but keeps timing until cargo is fed
+   * anyway, see {@link #finishTimedOutReadyWait()}.
+   */
+  public void timeOutReadyWait() {
+    m_readyWaitTimedOut = true;
+  }
+
+  /** Finishes a wait that timed out, if there is one, cargo is being fed. */
+  public void finishTimedOutReadyWait() {
+    if (m_readyWaitTimedOut) {
+      finishReadyWait();
+    }
+  }
+
+  /** Drops a wait for the shooter that ended without cargo being fed. */
+  public void cancelReadyWait() {
+    m_readyWaitTimedOut = false;
+    m_readiness.cancelWait();
   }
 
+  public double getShooterVelocity() {
+    return m_inputs.flywheelVelocity;
+  }
+
+  /**
+   * Runs the flywheel at a velocity in Talon units. 0 lets it coast. Takes
+   * effect in the next periodic().
+   */
   public void runMotor(double velocity) {
-    leftShooter.set(ControlMode.Velocity, velocity);
+    flywheelTarget = velocity;
+  }
+
+  /**
+   * Boosts the flywheel voltage for a moment, call it as cargo goes into the
+   * flywheel.
+   */
+  public void boostFlywheel() {
+    m_boostEndTime = Timer.getFPGATimestamp() + Constants.Shooter.SHOT_BOOST_SECONDS;
   }
 
   public double getHoodPosition() {
-    return hoodEncoder.getPosition();
+    return m_inputs.hoodPosition;
   }
 
   public void setHoodAngle(double angle) {
-    hood.getPIDController().setReference(angle, ControlType.kPosition);
+    m_io.setHoodPosition(angle);
     hoodAngleTarget = angle;
   }
 
+  /** The hood position last asked for. */
+  public double getHoodTarget() {
+    return hoodAngleTarget;
+  }
+
   public void setHoodSpeed(double speed) {
-    hood.set(speed);
+    m_io.setHoodOutput(speed);
   }
 
   public boolean isHoodBackSwitchTriggered() {
-    return backLimitSwitch.isPressed();
+    return m_inputs.hoodBackSwitch;
   }
 
   public boolean isHoodFrontSwitchTriggered() {
-    return frontLimitSwitch.isPressed();
+    return m_inputs.hoodFrontSwitch;
   }
 
   public boolean isHoodAtAngle() {
-    return Math.abs(hoodEncoder.getPosition() - hoodAngleTarget) < 0.2;
+    return Math.abs(m_inputs.hoodPosition - hoodAngleTarget) < Constants.Shooter.HOOD_TOLERANCE;
   }
 
   public void zeroHoodEncoder() {
-    hoodEncoder.setPosition(0);
+    m_io.resetHoodPosition(0);
+    m_inputs.hoodPosition = 0;
+    m_hoodHomed = true;
+  }
+
+  /**
+   * Picks the hood position back up from when the robot was last disabled,
+   * so it doesn't have to home again. That only works if the SparkMax kept
+   * power through a code restart, so its encoder still counts from the last
+   * homing. If it restarted, nothing held the hood while it was off, so it
+   * homes as usual. It also homes if the encoder doesn't agree with what was
+   * saved.
+   */
+  private void restoreHoodCalibration() {
+    boolean controllerReset = m_inputs.hoodControllerReset;
+    // Start watching for the next restart either way
+    m_io.clearHoodControllerReset();
+    if (controllerReset || !m_calibration.has(Constants.Shooter.HOOD_POSITION_CALIBRATION)) {
+      return;
+    }
+    double saved = m_calibration.getDouble(Constants.Shooter.HOOD_POSITION_CALIBRATION, 0);
+    if (Math.abs(m_inputs.hoodPosition - saved) > Constants.Shooter.HOOD_TOLERANCE) {
+      return;
+    }
+    hoodAngleTarget = saved;
+    m_hoodHomed = true;
+  }
+
+  /**
+   * Saves the hood position, if it's been homed, so the next boot can skip
+   * homing. Writes to flash, so only call it while disabled.
+   */
+  public void saveCalibration() {
+    if (m_hoodHomed) {
+      m_calibration.putDouble(Constants.Shooter.HOOD_POSITION_CALIBRATION, m_inputs.hoodPosition);
+    } else {
+      m_calibration.remove(Constants.Shooter.HOOD_POSITION_CALIBRATION);
+    }
+    m_calibration.commit();
+  }
+
+  /** Whether the hood encoder has been zeroed against the limit switch. */
+  public boolean isHoodHomed() {
+    return m_hoodHomed;
   }
 
   @Override
   public void periodic() {
-    SmartDashboard.putNumber("Shooter/HoodAngle", getHoodPosition());
-    SmartDashboard.putNumber("Shooter/SpeedError", leftShooter.getClosedLoopError());
-    SmartDashboard.putNumber("Shooter/ShooterSpeed", leftShooter.getSelectedSensorVelocity());
-    SmartDashboard.putNumber("Shooter/HoodSpeed", hood.get());
-    SmartDashboard.putData(this);
+    m_profiler.start(m_periodicTimer);
+    m_io.updateInputs(m_inputs);
+    checkHoodController();
+    updateFlywheel();
+    updateReadiness();
+    m_profiler.stop(m_periodicTimer);
+  }
+
+  /**
+   * If the hood controller browned out, its encoder starts over from 0
+   * wherever the hood is, so it has to home again. Whatever is running on the
+   * shooter gets cancelled, so the default command can start homing.
+   */
+  private void checkHoodController() {
+    if (!m_inputs.hoodControllerReset) {
+      return;
+    }
+    m_io.clearHoodControllerReset();
+    m_hoodHomed = false;
+    Command current = CommandScheduler.getInstance().requiring(this);
+    if (current != null) {
+      current.cancel();
+    }
+  }
+
+  private void updateFlywheel() {
+    double velocity = nativeToRadiansPerSecond(m_inputs.flywheelVelocity);
+    if (flywheelTarget == 0) {
+      // Coast down instead of braking, and pick up from wherever it's at
+      // when it's asked to spin again
+      m_flywheelController.reset(velocity);
+      m_flywheelVoltage = 0;
+      m_io.setFlywheelVoltage(0);
+      return;
+    }
+    m_flywheelController.correct(velocity);
+    m_flywheelVoltage = m_flywheelController.calculate(nativeToRadiansPerSecond(flywheelTarget));
+    if (Timer.getFPGATimestamp() < m_boostEndTime) {
+      // Left out of the controller's model on purpose, the boost should
+      // cancel out the cargo's drag so the estimate carries on as if neither
+      // were there
+      m_flywheelVoltage = Math.min(Constants.Shooter.MAX_VOLTAGE,
+          m_flywheelVoltage + Constants.Shooter.SHOT_BOOST_VOLTS);
+    }
+    m_io.setFlywheelVoltage(m_flywheelVoltage);
+  }
+
+  private void updateReadiness() {
+    double flywheelTimeToReady = Double.POSITIVE_INFINITY;
+    if (flywheelTarget != 0) {
+      flywheelTimeToReady = m_flywheelController.predictTimeToReach(nativeToRadiansPerSecond(flywheelTarget),
+          nativeToRadiansPerSecond(Constants.Shooter.VELOCITY_TOLERANCE),
+          Constants.Shooter.READY_PREDICTION_HORIZON_SECONDS);
+    }
+    m_readiness.update(Timer.getFPGATimestamp(), flywheelTimeToReady, getShooterError(), m_inputs.hoodPosition,
+        hoodAngleTarget);
+  }
+
+  private static double nativeToRadiansPerSecond(double velocity) {
+    return velocity * 10.0 / Constants.Shooter.TICKS_PER_REV * 2 * Math.PI;
   }
 
   @Override
   public void close() throws Exception {
-    hood.close();
+    m_io.close();
   }
 }
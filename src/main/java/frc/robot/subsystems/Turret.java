@@ -4,20 +4,41 @@
 
 package frc.robot.subsystems;
 
-import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.can.TalonFX;
-
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.subsystems.io.TurretIO;
+import frc.robot.subsystems.io.TurretIO.TurretIOInputs;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.Telemetry;
+import frc.robot.util.TurretAngles;
+
+public class Turret extends SubsystemBase implements AutoCloseable {
+
+  private final LoopProfiler m_profiler = LoopProfiler.getInstance();
+  private final int m_periodicTimer = m_profiler.register("Subsystems/Turret.periodic()");
 
-public class Turret extends SubsystemBase {
+  private static final double[] CLIMBER_POLES = new double[] {
+      Constants.Turret.CLIMBER_POLE_DEADZONE_CENTER,
+      -Constants.Turret.CLIMBER_POLE_DEADZONE_CENTER };
+  private static final double[] NO_POLES = new double[0];
+
+  private final TurretIO m_io;
+  private final TurretIOInputs m_inputs = new TurretIOInputs();
 
   Climber climber;
-  TalonFX rotationMotor = new TalonFX(Constants.Turret.MOTOR_ID);
+  double m_targetAngle = 0;
 
-  public Turret(Climber climber) {
+  public Turret(TurretIO io, Climber climber) {
+    m_io = io;
     this.climber = climber;
-    rotationMotor.setNeutralMode(NeutralMode.Brake);
+    m_io.updateInputs(m_inputs);
+
+    SmartDashboard.putData(this);
+    Telemetry telemetry = Telemetry.getInstance();
+    telemetry.addDouble("Turret/Angle", 10, () -> m_inputs.angleDegrees);
+    telemetry.addDouble("Turret/TargetAngle", 10, () -> m_targetAngle);
+    telemetry.addDouble("Turret/Output", 10, () -> m_inputs.output);
   }
 
   public boolean canTurretRotatePastClimberArms() {
@@ -26,8 +47,68 @@ public class Turret extends SubsystemBase {
     return climber.areArmsDown();
   }
 
+  /** Turret angle relative to the front of the robot, counterclockwise degrees. */
+  public double getAngle() {
+    return m_inputs.angleDegrees;
+  }
+
+  /** The angle the turret is heading to, after unwrapping and limits. */
+  public double getTargetAngle() {
+    return m_targetAngle;
+  }
+
+  /**
+   * Points the turret at an angle relative to the front of the robot. Takes
+   * whichever way around is shortest without going past the soft limits, or
+   * past the climber poles while the arms are up. If the angle can't be
+   * reached, the turret gets as close as it can.
+   *
+   * @param angleDegrees             Counterclockwise from the front, any number
+   *                                 of turns
+   * @param velocityDegreesPerSecond How fast the angle is changing, fed forward
+   *                                 so the turret keeps up with a moving target
+   */
+  public void setAngle(double angleDegrees, double velocityDegreesPerSecond) {
+    double[] keepOut = canTurretRotatePastClimberArms() ? NO_POLES : CLIMBER_POLES;
+    double current = m_inputs.angleDegrees;
+    double lower = TurretAngles.lowerBound(current, Constants.Turret.MIN_ANGLE_DEGREES,
+        Constants.Turret.MAX_ANGLE_DEGREES, keepOut, Constants.Turret.CLIMBER_POLE_DEADZONE_WIDTH);
+    double upper = TurretAngles.upperBound(current, Constants.Turret.MIN_ANGLE_DEGREES,
+        Constants.Turret.MAX_ANGLE_DEGREES, keepOut, Constants.Turret.CLIMBER_POLE_DEADZONE_WIDTH);
+    m_targetAngle = TurretAngles.chooseSetpoint(angleDegrees, current, lower, upper);
+
+    // No point pushing into a limit
+    double feedforward = velocityDegreesPerSecond * Constants.Turret.OUTPUT_PER_DEGREE_PER_SECOND;
+    if (m_targetAngle <= lower && feedforward < 0 || m_targetAngle >= upper && feedforward > 0) {
+      feedforward = 0;
+    }
+    m_io.setAngle(m_targetAngle, feedforward);
+  }
+
+  /** Whether the turret has reached its target angle. */
+  public boolean isAtAngle() {
+    return Math.abs(m_inputs.angleDegrees - m_targetAngle) < Constants.Turret.TOLERANCE_DEGREES;
+  }
+
+  public void runMotor(double output) {
+    m_io.setOutput(output);
+  }
+
+  /** Tells the turret it's facing the front of the robot right now. */
+  public void zeroAngle() {
+    m_io.resetAngle(0);
+    m_inputs.angleDegrees = 0;
+  }
+
   @Override
   public void periodic() {
-    // This method will be called once per scheduler run
+    m_profiler.start(m_periodicTimer);
+    m_io.updateInputs(m_inputs);
+    m_profiler.stop(m_periodicTimer);
+  }
+
+  @Override
+  public void close() throws Exception {
+    m_io.close();
   }
 }
@@ -0,0 +1,121 @@
+package frc.robot.subsystems.io;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.ControlType;
+
+import edu.wpi.first.wpilibj.AnalogTrigger;
+import edu.wpi.first.wpilibj.AnalogTriggerType;
+import edu.wpi.first.wpilibj.AsynchronousInterrupt;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Stops a magazine motor from a ball sensor interrupt, the moment cargo
+ * reaches the sensor, instead of on the next robot loop.
+ *
+ * <p>
+ * The interrupt runs on its own thread, so everything it shares with the
+ * robot loop is atomic or volatile. Once it stops the motor, the motor stays
+ * stopped for {@link #runUntilArrival(double)} until {@link #run(double)}
+ * takes it back over, so a command still asking to stage the cargo can't
+ * restart it before the loop sees it arrived. If the cargo bounces back off
+ * the sensor after the loop has seen it arrive, asking to stage it again
+ * restarts the motor to bring it back.
+ */
+class ArrivalStop implements AutoCloseable {
+  private final CANSparkMax m_motor;
+  private final AnalogTrigger m_trigger;
+  private final AsynchronousInterrupt m_interrupt;
+  private final boolean m_rising;
+
+  private final AtomicBoolean m_armed = new AtomicBoolean(false);
+  private final AtomicBoolean m_stopped = new AtomicBoolean(false);
+  private final AtomicBoolean m_arrived = new AtomicBoolean(false);
+  private volatile double m_arrivalTime = Double.NaN;
+  private volatile double m_stopLatency = Double.NaN;
+
+  /**
+   * @param rising Whether cargo arriving makes the trigger go high, otherwise
+   *               it goes low
+   */
+  ArrivalStop(CANSparkMax motor, AnalogTrigger trigger, boolean rising) {
+    m_motor = motor;
+    m_trigger = trigger;
+    m_rising = rising;
+    m_interrupt = new AsynchronousInterrupt(trigger.createOutput(AnalogTriggerType.kState), this::onEdge);
+    m_interrupt.setInterruptEdges(rising, !rising);
+    m_interrupt.enable();
+  }
+
+  private void onEdge(boolean rising, boolean falling) {
+    double edgeTime = m_rising ? m_interrupt.getRisingTimestamp() : m_interrupt.getFallingTimestamp();
+    if (m_armed.getAndSet(false)) {
+      // Mark it stopped before stopping it, so a loop starting it right now
+      // sees this and stops it again
+      m_stopped.set(true);
+      m_motor.stopMotor();
+      m_stopLatency = Timer.getFPGATimestamp() - edgeTime;
+    }
+    m_arrivalTime = edgeTime;
+    m_arrived.set(true);
+  }
+
+  /** Runs at a velocity, and stops when cargo arrives. */
+  void runUntilArrival(double velocity) {
+    if (m_stopped.get() && !m_arrived.get() && !isCargoPresent()) {
+      // The loop saw it arrive, and it's gone from the sensor since
+      m_stopped.set(false);
+    }
+    if (!m_stopped.get()) {
+      m_motor.getPIDController().setReference(velocity, ControlType.kVelocity);
+      m_armed.set(true);
+    }
+    // Cargo may have arrived while it was being started
+    if (m_stopped.get()) {
+      m_motor.stopMotor();
+    }
+  }
+
+  /** Runs at a velocity, ignoring arrivals. */
+  void run(double velocity) {
+    m_armed.set(false);
+    m_stopped.set(false);
+    m_motor.getPIDController().setReference(velocity, ControlType.kVelocity);
+  }
+
+  void stop() {
+    m_armed.set(false);
+    m_stopped.set(false);
+    m_motor.set(0);
+  }
+
+  private boolean isCargoPresent() {
+    return m_trigger.getTriggerState() == m_rising;
+  }
+
+  /** Whether an arrival stopped the motor, and nothing has restarted it. */
+  boolean isStopped() {
+    return m_stopped.get();
+  }
+
+  /** Whether cargo arrived since the last call. */
+  boolean takeArrived() {
+    return m_arrived.getAndSet(false);
+  }
+
+  /** FPGA timestamp of the last arrival, seconds. */
+  double getArrivalTime() {
+    return m_arrivalTime;
+  }
+
+  /** Seconds from the last edge that stopped the motor to stopping it. */
+  double getStopLatency() {
+    return m_stopLatency;
+  }
+
+  @Override
+  public void close() {
+    m_interrupt.close();
+  }
+}
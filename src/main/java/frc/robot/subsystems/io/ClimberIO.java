@@ -0,0 +1,44 @@
+package frc.robot.subsystems.io;
+
+/**
+ * Hardware layer for the {@link frc.robot.subsystems.Climber}. Positions are in
+ * Talon native units (encoder ticks).
+ */
+public interface ClimberIO extends AutoCloseable {
+
+  /** Everything the climber reads from hardware in one loop. */
+  class ClimberIOInputs {
+    public double position;
+    public double velocity;
+    // Lift motor stator current, amps
+    public double current;
+    public boolean lowerLimitSwitch;
+    public boolean upperLimitSwitch;
+  }
+
+  /** Reads every sensor once into the inputs object. */
+  void updateInputs(ClimberIOInputs inputs);
+
+  /**
+   * Runs a motion profile to a position, on the motor controller.
+   *
+   * @param position    Position to go to
+   * @param hanging     Whether the robot is hanging from the lift, for the
+   *                    gains and profile that can lift it
+   * @param feedforward Open loop output added on top of the profile
+   */
+  void setPosition(double position, boolean hanging, double feedforward);
+
+  /** Runs the lift open loop. */
+  void setLiftOutput(double output);
+
+  /** Tells the lift encoders they're at zero. */
+  void resetPosition();
+
+  /** Extends or retracts the climber arms. */
+  void setArmsOut(boolean armsOut);
+
+  @Override
+  default void close() {
+  }
+}
@@ -0,0 +1,89 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+
+import edu.wpi.first.wpilibj.PneumaticsModuleType;
+import edu.wpi.first.wpilibj.Solenoid;
+import frc.robot.Constants;
+
+public class ClimberIOReal implements ClimberIO {
+
+  public TalonFX leftMotor = new TalonFX(Constants.Climber.LEFT_MOTOR_ID);
+  public TalonFX rightMotor = new TalonFX(Constants.Climber.RIGHT_MOTOR_ID);
+
+  Solenoid climberSolenoid = new Solenoid(PneumaticsModuleType.REVPH, Constants.Climber.SOLENOID_ID);
+
+  private boolean m_hanging = false;
+
+  public ClimberIOReal() {
+    leftMotor.setNeutralMode(NeutralMode.Brake);
+    rightMotor.setNeutralMode(NeutralMode.Brake);
+    leftMotor.setInverted(true);
+    leftMotor.follow(rightMotor);
+
+    rightMotor.config_kP(Constants.Climber.UNLOADED_SLOT, Constants.Climber.UNLOADED_kP, 30);
+    rightMotor.config_kD(Constants.Climber.UNLOADED_SLOT, Constants.Climber.kD, 30);
+    rightMotor.config_kF(Constants.Climber.UNLOADED_SLOT, Constants.Climber.kF, 30);
+    rightMotor.config_kP(Constants.Climber.HANGING_SLOT, Constants.Climber.HANGING_kP, 30);
+    rightMotor.config_kD(Constants.Climber.HANGING_SLOT, Constants.Climber.kD, 30);
+    rightMotor.config_kF(Constants.Climber.HANGING_SLOT, Constants.Climber.kF, 30);
+    configureProfile(false, 30);
+  }
+
+  /**
+   * Switches the gains and profile between moving the lift alone and lifting
+   * the robot. Motion Magic only has one profile, so it's reconfigured.
+   */
+  private void configureProfile(boolean hanging, int timeoutMs) {
+    m_hanging = hanging;
+    rightMotor.selectProfileSlot(hanging ? Constants.Climber.HANGING_SLOT : Constants.Climber.UNLOADED_SLOT, 0);
+    rightMotor.configMotionCruiseVelocity(hanging
+        ? Constants.Climber.HANGING_CRUISE_VELOCITY
+        : Constants.Climber.UNLOADED_CRUISE_VELOCITY, timeoutMs);
+    rightMotor.configMotionAcceleration(hanging
+        ? Constants.Climber.HANGING_ACCELERATION
+        : Constants.Climber.UNLOADED_ACCELERATION, timeoutMs);
+  }
+
+  @Override
+  public void updateInputs(ClimberIOInputs inputs) {
+    inputs.position = rightMotor.getSelectedSensorPosition();
+    inputs.velocity = rightMotor.getSelectedSensorVelocity();
+    inputs.current = rightMotor.getStatorCurrent();
+    inputs.lowerLimitSwitch = rightMotor.isRevLimitSwitchClosed() == 0;
+    inputs.upperLimitSwitch = rightMotor.isFwdLimitSwitchClosed() == 0;
+  }
+
+  @Override
+  public void setPosition(double position, boolean hanging, double feedforward) {
+    if (hanging != m_hanging) {
+      // Don't wait on the Talon to confirm, the robot loop is running
+      configureProfile(hanging, 0);
+    }
+    rightMotor.set(ControlMode.MotionMagic, position, DemandType.ArbitraryFeedForward, feedforward);
+  }
+
+  @Override
+  public void setLiftOutput(double output) {
+    rightMotor.set(ControlMode.PercentOutput, output);
+  }
+
+  @Override
+  public void resetPosition() {
+    leftMotor.setSelectedSensorPosition(0);
+    rightMotor.setSelectedSensorPosition(0);
+  }
+
+  @Override
+  public void setArmsOut(boolean armsOut) {
+    climberSolenoid.set(armsOut);
+  }
+
+  @Override
+  public void close() {
+    climberSolenoid.close();
+  }
+}
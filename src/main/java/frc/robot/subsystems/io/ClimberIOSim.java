@@ -0,0 +1,78 @@
+package frc.robot.subsystems.io;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants;
+
+/**
+ * Simulated climber. The lift moves at a speed proportional to its output, or
+ * follows the same trapezoid profile Motion Magic would, and the limit
+ * switches trip at either end of travel.
+ */
+public class ClimberIOSim implements ClimberIO {
+  private static final double MAX_SPEED = 300000; // ticks per second at full output
+  private static final double TOP_POSITION = 280000;
+
+  private TrapezoidProfile.State m_state = new TrapezoidProfile.State(0, 0);
+  private TrapezoidProfile.Constraints m_constraints;
+  private double m_target = 0;
+  private boolean m_closedLoop = false;
+  private boolean m_hanging = false;
+  private double m_output = 0;
+  private double m_offset = 0;
+  private double m_lastTimestamp = Timer.getFPGATimestamp();
+
+  @Override
+  public void updateInputs(ClimberIOInputs inputs) {
+    double now = Timer.getFPGATimestamp();
+    double dt = now - m_lastTimestamp;
+    m_lastTimestamp = now;
+
+    if (m_closedLoop) {
+      m_state = new TrapezoidProfile(m_constraints, new TrapezoidProfile.State(m_target + m_offset, 0), m_state)
+          .calculate(dt);
+    } else {
+      m_state.velocity = m_output * MAX_SPEED;
+      m_state.position += m_state.velocity * dt;
+    }
+    if (m_state.position < 0 || m_state.position > TOP_POSITION) {
+      m_state.position = Math.max(0, Math.min(TOP_POSITION, m_state.position));
+      m_state.velocity = 0;
+    }
+
+    inputs.position = m_state.position - m_offset;
+    // Talon velocities are per 100ms
+    inputs.velocity = m_state.velocity / 10;
+    // Pretend the robot's weight comes on whenever it's told it's hanging
+    inputs.current = m_closedLoop && m_hanging ? 2 * Constants.Climber.HOOKED_CURRENT : 0;
+    inputs.lowerLimitSwitch = m_state.position <= 0;
+    inputs.upperLimitSwitch = m_state.position >= TOP_POSITION;
+  }
+
+  @Override
+  public void setPosition(double position, boolean hanging, double feedforward) {
+    m_constraints = hanging
+        ? new TrapezoidProfile.Constraints(Constants.Climber.HANGING_CRUISE_VELOCITY * 10,
+            Constants.Climber.HANGING_ACCELERATION * 10)
+        : new TrapezoidProfile.Constraints(Constants.Climber.UNLOADED_CRUISE_VELOCITY * 10,
+            Constants.Climber.UNLOADED_ACCELERATION * 10);
+    m_target = position;
+    m_hanging = hanging;
+    m_closedLoop = true;
+  }
+
+  @Override
+  public void setLiftOutput(double output) {
+    m_output = output;
+    m_closedLoop = false;
+  }
+
+  @Override
+  public void resetPosition() {
+    m_offset = m_state.position;
+  }
+
+  @Override
+  public void setArmsOut(boolean armsOut) {
+  }
+}
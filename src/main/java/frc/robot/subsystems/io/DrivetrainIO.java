@@ -0,0 +1,50 @@
+package frc.robot.subsystems.io;
+
+/**
+ * Hardware layer for the {@link frc.robot.subsystems.Drivetrain}. Modules are
+ * always indexed front left, front right, back left, back right, matching the
+ * kinematics.
+ */
+public interface DrivetrainIO extends AutoCloseable {
+
+  /** Everything the drivetrain reads from hardware in one loop. */
+  class DrivetrainIOInputs {
+    public double gyroYawDegrees;
+    public double gyroYawRateDegreesPerSecond;
+    // Front of the robot tipping up is positive
+    public double gyroPitchDegrees;
+    public double gyroPitchRateDegreesPerSecond;
+    public final double[] driveVelocityMetersPerSecond = new double[4];
+    public final double[] steerAngleRadians = new double[4];
+
+    public void copyFrom(DrivetrainIOInputs other) {
+      gyroYawDegrees = other.gyroYawDegrees;
+      gyroYawRateDegreesPerSecond = other.gyroYawRateDegreesPerSecond;
+      gyroPitchDegrees = other.gyroPitchDegrees;
+      gyroPitchRateDegreesPerSecond = other.gyroPitchRateDegreesPerSecond;
+      System.arraycopy(other.driveVelocityMetersPerSecond, 0, driveVelocityMetersPerSecond, 0,
+          driveVelocityMetersPerSecond.length);
+      System.arraycopy(other.steerAngleRadians, 0, steerAngleRadians, 0, steerAngleRadians.length);
+    }
+  }
+
+  /** Reads every sensor once into the inputs object. */
+  void updateInputs(DrivetrainIOInputs inputs);
+
+  /** Sends a drive voltage and steer angle to a single module. */
+  void setModule(int module, double driveVoltage, double steerAngleRadians);
+
+  /** Sets the gyroscope's yaw. */
+  void setGyroYaw(double degrees);
+
+  /**
+   * Saves steer offsets that make each module's current angle zero, for the
+   * next time the modules are created.
+   */
+  default void calibrateSteerOffsets() {
+  }
+
+  @Override
+  default void close() {
+  }
+}
@@ -0,0 +1,77 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.sensors.Pigeon2;
+import com.swervedrivespecialties.swervelib.Mk4iSwerveModuleHelper;
+import com.swervedrivespecialties.swervelib.SwerveModule;
+
+import edu.wpi.first.math.MathUtil;
+import frc.robot.Constants;
+import frc.robot.util.CalibrationStore;
+import frc.robot.util.SwerveConstants;
+
+public class DrivetrainIOReal implements DrivetrainIO {
+
+  private final Pigeon2 m_pigeon = new Pigeon2(Constants.Drivetrain.PIGEON_ID);
+  private final double[] m_gyroRates = new double[3];
+  private final CalibrationStore m_calibration = CalibrationStore.getInstance();
+  // Calibrated steer offsets win over the ones in Constants
+  private final double[] m_steerOffsets = new double[] {
+      loadSteerOffset(0, Constants.Drivetrain.FRONT_LEFT),
+      loadSteerOffset(1, Constants.Drivetrain.FRONT_RIGHT),
+      loadSteerOffset(2, Constants.Drivetrain.BACK_LEFT),
+      loadSteerOffset(3, Constants.Drivetrain.BACK_RIGHT)
+  };
+  private final SwerveModule[] m_modules = new SwerveModule[] {
+      createModule(Constants.Drivetrain.FRONT_LEFT, m_steerOffsets[0]),
+      createModule(Constants.Drivetrain.FRONT_RIGHT, m_steerOffsets[1]),
+      createModule(Constants.Drivetrain.BACK_LEFT, m_steerOffsets[2]),
+      createModule(Constants.Drivetrain.BACK_RIGHT, m_steerOffsets[3])
+  };
+
+  private double loadSteerOffset(int module, SwerveConstants constants) {
+    return m_calibration.getDouble(Constants.Drivetrain.STEER_OFFSET_CALIBRATION + module, constants.STEER_OFFSET);
+  }
+
+  private static SwerveModule createModule(SwerveConstants constants, double steerOffset) {
+    return Mk4iSwerveModuleHelper.createFalcon500(
+        Mk4iSwerveModuleHelper.GearRatio.L2,
+        constants.DRIVE_MOTOR_ID,
+        constants.STEER_MOTOR_ID,
+        constants.ENCODER_ID,
+        steerOffset);
+  }
+
+  @Override
+  public synchronized void updateInputs(DrivetrainIOInputs inputs) {
+    inputs.gyroYawDegrees = m_pigeon.getYaw();
+    m_pigeon.getRawGyro(m_gyroRates);
+    inputs.gyroYawRateDegreesPerSecond = m_gyroRates[2];
+    inputs.gyroPitchDegrees = m_pigeon.getPitch();
+    inputs.gyroPitchRateDegreesPerSecond = m_gyroRates[1];
+    for (int i = 0; i < m_modules.length; i++) {
+      inputs.driveVelocityMetersPerSecond[i] = m_modules[i].getDriveVelocity();
+      inputs.steerAngleRadians[i] = m_modules[i].getSteerAngle();
+    }
+  }
+
+  @Override
+  public void setModule(int module, double driveVoltage, double steerAngleRadians) {
+    m_modules[module].set(driveVoltage, steerAngleRadians);
+  }
+
+  @Override
+  public void setGyroYaw(double degrees) {
+    m_pigeon.setYaw(degrees);
+  }
+
+  @Override
+  public void calibrateSteerOffsets() {
+    // The offset is added to the absolute encoder angle, so take away
+    // whatever it reads now
+    for (int i = 0; i < m_modules.length; i++) {
+      double offset = MathUtil.angleModulus(m_steerOffsets[i] - m_modules[i].getSteerAngle());
+      m_calibration.putDouble(Constants.Drivetrain.STEER_OFFSET_CALIBRATION + i, offset);
+    }
+    m_calibration.commit();
+  }
+}
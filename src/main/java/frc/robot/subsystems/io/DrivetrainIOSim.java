@@ -0,0 +1,47 @@
+package frc.robot.subsystems.io;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants;
+import frc.robot.util.SwerveKinematics;
+
+/**
+ * Simulated drivetrain. Modules reach their commanded speed and angle
+ * instantly, and the yaw is integrated from the resulting chassis rotation.
+ */
+public class DrivetrainIOSim implements DrivetrainIO {
+
+  private final SwerveKinematics m_kinematics = new SwerveKinematics(
+      Constants.Drivetrain.TRACKWIDTH_METERS, Constants.Drivetrain.WHEELBASE_METERS);
+  private final double[] m_chassisSpeeds = new double[3];
+
+  private final double[] m_velocities = new double[4];
+  private final double[] m_angles = new double[4];
+  private double m_yawDegrees = 0;
+  private double m_lastTimestamp = Timer.getFPGATimestamp();
+
+  @Override
+  public synchronized void updateInputs(DrivetrainIOInputs inputs) {
+    double now = Timer.getFPGATimestamp();
+    double dt = now - m_lastTimestamp;
+    m_lastTimestamp = now;
+
+    m_kinematics.toChassisSpeeds(m_velocities, m_angles, m_chassisSpeeds);
+    m_yawDegrees += Math.toDegrees(m_chassisSpeeds[2] * dt);
+
+    inputs.gyroYawDegrees = m_yawDegrees;
+    inputs.gyroYawRateDegreesPerSecond = Math.toDegrees(m_chassisSpeeds[2]);
+    System.arraycopy(m_velocities, 0, inputs.driveVelocityMetersPerSecond, 0, 4);
+    System.arraycopy(m_angles, 0, inputs.steerAngleRadians, 0, 4);
+  }
+
+  @Override
+  public synchronized void setModule(int module, double driveVoltage, double steerAngleRadians) {
+    m_velocities[module] = driveVoltage / Constants.Swerve.MAX_VOLTAGE * Constants.Swerve.MAX_VELOCITY_METERS;
+    m_angles[module] = steerAngleRadians;
+  }
+
+  @Override
+  public synchronized void setGyroYaw(double degrees) {
+    m_yawDegrees = degrees;
+  }
+}
@@ -0,0 +1,72 @@
+package frc.robot.subsystems.io;
+
+/**
+ * Hardware layer for the {@link frc.robot.subsystems.Magazine}. Ball sensor
+ * values are averaged raw analog readings, and whether cargo is in front of
+ * each one comes from a threshold with hysteresis, in hardware where there is
+ * one.
+ */
+public interface MagazineIO extends AutoCloseable {
+
+  /** Everything the magazine reads from hardware in one loop. */
+  class MagazineIOInputs {
+    public double lowerSensorValue;
+    public double upperSensorValue;
+    public boolean ballInLower;
+    public boolean ballInUpper;
+    // Cargo reaching each sensor since the last update, caught by interrupt
+    public boolean lowerArrived;
+    public boolean upperArrived;
+    // FPGA timestamps of the last arrivals, seconds
+    public double lowerArrivalTime = Double.NaN;
+    public double upperArrivalTime = Double.NaN;
+    // Seconds from the last arrival that stopped a motor to it being stopped
+    public double lowerStopLatency = Double.NaN;
+    public double upperStopLatency = Double.NaN;
+    // Stopped by an arrival, even though they were last asked to run
+    public boolean lowerStoppedOnArrival;
+    public boolean upperStoppedOnArrival;
+    public double lowerOutput;
+    public double upperOutput;
+    public double lowerCurrent;
+    public double lowerVelocity;
+  }
+
+  /** Reads every sensor once into the inputs object. */
+  void updateInputs(MagazineIOInputs inputs);
+
+  /**
+   * Reads only the lower motor's current and velocity, cheap enough to call
+   * faster than the loop.
+   */
+  void updateMotorInputs(MagazineIOInputs inputs);
+
+  /** Runs the lower magazine closed loop at a velocity. */
+  void setLowerVelocity(double velocity);
+
+  /** Runs the upper magazine closed loop at a velocity. */
+  void setUpperVelocity(double velocity);
+
+  /**
+   * Runs the lower magazine at a velocity until cargo reaches the lower
+   * sensor, then stops it right away, without waiting for the robot loop. It
+   * stays stopped until {@link #setLowerVelocity(double)} or {@link #stop()}.
+   */
+  void setLowerVelocityUntilArrival(double velocity);
+
+  /** Same as {@link #setLowerVelocityUntilArrival(double)}, at the upper sensor. */
+  void setUpperVelocityUntilArrival(double velocity);
+
+  /**
+   * Sets the raw readings the ball sensors switch at. The lower sensor reads
+   * low with cargo in front of it, the upper one reads high.
+   */
+  void setSensorThresholds(double lower, double upper);
+
+  /** Stops both motors. */
+  void stop();
+
+  @Override
+  default void close() {
+  }
+}
@@ -0,0 +1,131 @@
+package frc.robot.subsystems.io;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+
+import edu.wpi.first.wpilibj.AnalogInput;
+import edu.wpi.first.wpilibj.AnalogTrigger;
+import frc.robot.Constants;
+
+public class MagazineIOReal implements MagazineIO {
+
+  public CANSparkMax lowerMagazine = new CANSparkMax(Constants.Magazine.LOWER_MOTOR, MotorType.kBrushless);
+  public CANSparkMax upperMagazine = new CANSparkMax(Constants.Magazine.UPPER_MOTOR, MotorType.kBrushless);
+
+  AnalogInput lowerBallSensor = new AnalogInput(Constants.Magazine.LOWER_SENSOR);
+  AnalogInput upperBallSensor = new AnalogInput(Constants.Magazine.UPPER_SENSOR);
+  // The FPGA checks these against every averaged sample, much faster than
+  // the robot loop
+  AnalogTrigger lowerBallTrigger;
+  AnalogTrigger upperBallTrigger;
+  // Cargo makes the lower trigger go low and the upper one go high
+  ArrivalStop lowerStop;
+  ArrivalStop upperStop;
+
+  public MagazineIOReal() {
+    lowerBallTrigger = configureSensor(lowerBallSensor);
+    upperBallTrigger = configureSensor(upperBallSensor);
+    setSensorThresholds(Constants.Magazine.LOWER_SENSOR_THRESHOLD, Constants.Magazine.UPPER_SENSOR_THRESHOLD);
+    lowerStop = new ArrivalStop(lowerMagazine, lowerBallTrigger, false);
+    upperStop = new ArrivalStop(upperMagazine, upperBallTrigger, true);
+
+    lowerMagazine.setIdleMode(IdleMode.kBrake);
+    upperMagazine.setIdleMode(IdleMode.kBrake);
+    upperMagazine.setInverted(true);
+    // Velocity and current, fast enough for updateMotorInputs()
+    lowerMagazine.setPeriodicFramePeriod(PeriodicFrame.kStatus1,
+        (int) (Constants.Intake.MOTOR_SAMPLE_PERIOD_SECONDS * 1000));
+
+    lowerMagazine.getPIDController().setP(0.0001);
+    upperMagazine.getPIDController().setP(0.0001);
+    lowerMagazine.getPIDController().setI(0.0000);
+    upperMagazine.getPIDController().setI(0.0000);
+    lowerMagazine.getPIDController().setD(0);
+    upperMagazine.getPIDController().setD(0);
+  }
+
+  private static AnalogTrigger configureSensor(AnalogInput sensor) {
+    sensor.setAverageBits(Constants.Magazine.SENSOR_AVERAGE_BITS);
+    sensor.setOversampleBits(Constants.Magazine.SENSOR_OVERSAMPLE_BITS);
+    AnalogTrigger trigger = new AnalogTrigger(sensor);
+    trigger.setAveraged(true);
+    return trigger;
+  }
+
+  @Override
+  public void updateInputs(MagazineIOInputs inputs) {
+    inputs.lowerSensorValue = lowerBallSensor.getAverageValue();
+    inputs.upperSensorValue = upperBallSensor.getAverageValue();
+    // Trigger state is high above the window, low below it, and holds inside
+    inputs.ballInLower = !lowerBallTrigger.getTriggerState();
+    inputs.ballInUpper = upperBallTrigger.getTriggerState();
+    inputs.lowerArrived = lowerStop.takeArrived();
+    inputs.upperArrived = upperStop.takeArrived();
+    inputs.lowerArrivalTime = lowerStop.getArrivalTime();
+    inputs.upperArrivalTime = upperStop.getArrivalTime();
+    inputs.lowerStopLatency = lowerStop.getStopLatency();
+    inputs.upperStopLatency = upperStop.getStopLatency();
+    inputs.lowerStoppedOnArrival = lowerStop.isStopped();
+    inputs.upperStoppedOnArrival = upperStop.isStopped();
+    inputs.lowerOutput = lowerMagazine.get();
+    inputs.upperOutput = upperMagazine.get();
+    updateMotorInputs(inputs);
+  }
+
+  @Override
+  public void updateMotorInputs(MagazineIOInputs inputs) {
+    inputs.lowerCurrent = lowerMagazine.getOutputCurrent();
+    inputs.lowerVelocity = lowerMagazine.getEncoder().getVelocity();
+  }
+
+  @Override
+  public void setLowerVelocity(double velocity) {
+    lowerStop.run(velocity);
+  }
+
+  @Override
+  public void setUpperVelocity(double velocity) {
+    upperStop.run(velocity);
+  }
+
+  @Override
+  public void setLowerVelocityUntilArrival(double velocity) {
+    lowerStop.runUntilArrival(velocity);
+  }
+
+  @Override
+  public void setUpperVelocityUntilArrival(double velocity) {
+    upperStop.runUntilArrival(velocity);
+  }
+
+  @Override
+  public void setSensorThresholds(double lower, double upper) {
+    setWindow(lowerBallTrigger, lower);
+    setWindow(upperBallTrigger, upper);
+  }
+
+  private static void setWindow(AnalogTrigger trigger, double threshold) {
+    trigger.setLimitsRaw((int) Math.round(threshold - Constants.Magazine.SENSOR_HYSTERESIS),
+        (int) Math.round(threshold + Constants.Magazine.SENSOR_HYSTERESIS));
+  }
+
+  @Override
+  public void stop() {
+    lowerStop.stop();
+    upperStop.stop();
+  }
+
+  @Override
+  public void close() {
+    lowerStop.close();
+    upperStop.close();
+    lowerMagazine.close();
+    upperMagazine.close();
+    lowerBallTrigger.close();
+    upperBallTrigger.close();
+    lowerBallSensor.close();
+    upperBallSensor.close();
+  }
+}
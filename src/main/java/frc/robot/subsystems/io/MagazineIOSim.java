@@ -0,0 +1,137 @@
+package frc.robot.subsystems.io;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants;
+
+/**
+ * Simulated magazine. Cargo is placed by toggling the "Sim/Magazine" booleans
+ * from the dashboard, and the sensor readings follow them. Arrivals are
+ * caught when the toggles are read instead of by interrupt.
+ */
+public class MagazineIOSim implements MagazineIO {
+  private static final double MAX_VELOCITY = 11000;
+
+  private final NetworkTable m_table = NetworkTableInstance.getDefault().getTable("Sim/Magazine");
+  private final NetworkTableEntry m_ballInLower = m_table.getEntry("BallInLower");
+  private final NetworkTableEntry m_ballInUpper = m_table.getEntry("BallInUpper");
+
+  private double m_lowerThreshold = Constants.Magazine.LOWER_SENSOR_THRESHOLD;
+  private double m_upperThreshold = Constants.Magazine.UPPER_SENSOR_THRESHOLD;
+  private double m_lowerOutput = 0;
+  private double m_upperOutput = 0;
+  private boolean m_wasBallInLower = false;
+  private boolean m_wasBallInUpper = false;
+  // Stop on the next arrival, and stopped by one
+  private boolean m_lowerArmed = false;
+  private boolean m_upperArmed = false;
+  private boolean m_lowerStopped = false;
+  private boolean m_upperStopped = false;
+
+  public MagazineIOSim() {
+    m_ballInLower.setBoolean(false);
+    m_ballInUpper.setBoolean(false);
+  }
+
+  @Override
+  public void updateInputs(MagazineIOInputs inputs) {
+    inputs.ballInLower = m_ballInLower.getBoolean(false);
+    inputs.ballInUpper = m_ballInUpper.getBoolean(false);
+    // The lower sensor reads low with cargo in front of it, the upper one reads high
+    inputs.lowerSensorValue = inputs.ballInLower ? m_lowerThreshold - 500 : m_lowerThreshold + 500;
+    inputs.upperSensorValue = inputs.ballInUpper ? m_upperThreshold + 500 : m_upperThreshold - 500;
+
+    double time = Timer.getFPGATimestamp();
+    inputs.lowerArrived = inputs.ballInLower && !m_wasBallInLower;
+    inputs.upperArrived = inputs.ballInUpper && !m_wasBallInUpper;
+    m_wasBallInLower = inputs.ballInLower;
+    m_wasBallInUpper = inputs.ballInUpper;
+    if (inputs.lowerArrived) {
+      inputs.lowerArrivalTime = time;
+      if (m_lowerArmed) {
+        m_lowerArmed = false;
+        m_lowerStopped = true;
+        m_lowerOutput = 0;
+        inputs.lowerStopLatency = 0;
+      }
+    }
+    if (inputs.upperArrived) {
+      inputs.upperArrivalTime = time;
+      if (m_upperArmed) {
+        m_upperArmed = false;
+        m_upperStopped = true;
+        m_upperOutput = 0;
+        inputs.upperStopLatency = 0;
+      }
+    }
+
+    inputs.lowerStoppedOnArrival = m_lowerStopped;
+    inputs.upperStoppedOnArrival = m_upperStopped;
+    inputs.lowerOutput = m_lowerOutput;
+    inputs.upperOutput = m_upperOutput;
+    updateMotorInputs(inputs);
+  }
+
+  @Override
+  public void updateMotorInputs(MagazineIOInputs inputs) {
+    // Free spinning, cargo never jams in simulation
+    inputs.lowerCurrent = 0;
+    inputs.lowerVelocity = m_lowerOutput * MAX_VELOCITY;
+  }
+
+  @Override
+  public void setLowerVelocity(double velocity) {
+    m_lowerArmed = false;
+    m_lowerStopped = false;
+    m_lowerOutput = velocity / MAX_VELOCITY;
+  }
+
+  @Override
+  public void setUpperVelocity(double velocity) {
+    m_upperArmed = false;
+    m_upperStopped = false;
+    m_upperOutput = velocity / MAX_VELOCITY;
+  }
+
+  @Override
+  public void setLowerVelocityUntilArrival(double velocity) {
+    // Arrivals are always reported as they stop it, so it can restart as soon
+    // as the cargo is gone from the sensor
+    if (m_lowerStopped && !m_wasBallInLower) {
+      m_lowerStopped = false;
+    }
+    if (!m_lowerStopped) {
+      m_lowerArmed = true;
+      m_lowerOutput = velocity / MAX_VELOCITY;
+    }
+  }
+
+  @Override
+  public void setUpperVelocityUntilArrival(double velocity) {
+    if (m_upperStopped && !m_wasBallInUpper) {
+      m_upperStopped = false;
+    }
+    if (!m_upperStopped) {
+      m_upperArmed = true;
+      m_upperOutput = velocity / MAX_VELOCITY;
+    }
+  }
+
+  @Override
+  public void setSensorThresholds(double lower, double upper) {
+    m_lowerThreshold = lower;
+    m_upperThreshold = upper;
+  }
+
+  @Override
+  public void stop() {
+    m_lowerArmed = false;
+    m_upperArmed = false;
+    m_lowerStopped = false;
+    m_upperStopped = false;
+    m_lowerOutput = 0;
+    m_upperOutput = 0;
+  }
+}
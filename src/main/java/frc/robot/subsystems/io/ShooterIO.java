@@ -0,0 +1,46 @@
+package frc.robot.subsystems.io;
+
+/**
+ * Hardware layer for the {@link frc.robot.subsystems.Shooter}. Flywheel
+ * velocities are in Talon native units (ticks per 100ms), hood positions are
+ * in SparkMax encoder rotations.
+ */
+public interface ShooterIO extends AutoCloseable {
+
+  /** Everything the shooter reads from hardware in one loop. */
+  class ShooterIOInputs {
+    public double flywheelVelocity;
+    public double hoodPosition;
+    public double hoodOutput;
+    public boolean hoodBackSwitch;
+    public boolean hoodFrontSwitch;
+    /**
+     * Whether the hood controller has restarted since
+     * {@link ShooterIO#clearHoodControllerReset()}, losing its encoder
+     * position.
+     */
+    public boolean hoodControllerReset;
+  }
+
+  /** Reads every sensor once into the inputs object. */
+  void updateInputs(ShooterIOInputs inputs);
+
+  /** Runs the flywheel open loop, compensated to a 12 volt battery. */
+  void setFlywheelVoltage(double volts);
+
+  /** Runs the hood to a position along a trapezoid profile. */
+  void setHoodPosition(double position);
+
+  /** Runs the hood open loop. */
+  void setHoodOutput(double output);
+
+  /** Tells the hood encoder it's currently at a position. */
+  void resetHoodPosition(double position);
+
+  /** Forgets that the hood controller restarted, to catch the next one. */
+  void clearHoodControllerReset();
+
+  @Override
+  default void close() {
+  }
+}
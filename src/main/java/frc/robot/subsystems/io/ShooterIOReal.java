@@ -0,0 +1,100 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.FollowerType;
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import com.ctre.phoenix.sensors.SensorVelocityMeasPeriod;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxLimitSwitch;
+import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.CANSparkMax.FaultID;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+
+import frc.robot.Constants;
+
+public class ShooterIOReal implements ShooterIO {
+  TalonFX leftShooter = new TalonFX(Constants.Shooter.LEFT_MOTOR_ID);
+  TalonFX rightShooter = new TalonFX(Constants.Shooter.RIGHT_MOTOR_ID);
+  CANSparkMax hood = new CANSparkMax(Constants.Shooter.HOOD_MOTOR_ID, MotorType.kBrushless);
+  RelativeEncoder hoodEncoder = hood.getEncoder();
+  SparkMaxPIDController hoodController = hood.getPIDController();
+  SparkMaxLimitSwitch backLimitSwitch = hood.getForwardLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
+  SparkMaxLimitSwitch frontLimitSwitch = hood.getReverseLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
+
+  public ShooterIOReal() {
+    leftShooter.setNeutralMode(NeutralMode.Brake);
+    rightShooter.setNeutralMode(NeutralMode.Brake);
+
+    hood.setIdleMode(IdleMode.kBrake);
+
+    // SmartMotion, the SparkMax profiles each move itself
+    hoodController.setP(Constants.Shooter.HOOD_kP);
+    hoodController.setFF(Constants.Shooter.HOOD_kFF);
+    hoodController.setOutputRange(-1, 1);
+    hoodController.setSmartMotionMaxVelocity(Constants.Shooter.HOOD_MAX_VELOCITY_RPM, 0);
+    hoodController.setSmartMotionMaxAccel(Constants.Shooter.HOOD_MAX_ACCELERATION_RPM_PER_SECOND, 0);
+    hoodController.setSmartMotionAllowedClosedLoopError(Constants.Shooter.HOOD_ALLOWED_ERROR, 0);
+
+    rightShooter.setInverted(true);
+    rightShooter.follow(leftShooter, FollowerType.AuxOutput1);
+
+    leftShooter.setNeutralMode(NeutralMode.Coast);
+    rightShooter.setNeutralMode(NeutralMode.Coast);
+
+    // The flywheel controller works out voltages, so make output track
+    // voltage instead of battery percentage
+    leftShooter.configVoltageCompSaturation(Constants.Shooter.MAX_VOLTAGE, 30);
+    leftShooter.enableVoltageCompensation(true);
+    rightShooter.configVoltageCompSaturation(Constants.Shooter.MAX_VOLTAGE, 30);
+    rightShooter.enableVoltageCompensation(true);
+
+    // The default 100ms velocity window adds more lag than the Kalman filter
+    // expects, its own filtering is enough
+    leftShooter.configVelocityMeasurementPeriod(SensorVelocityMeasPeriod.Period_10Ms, 30);
+    leftShooter.configVelocityMeasurementWindow(1, 30);
+  }
+
+  @Override
+  public void updateInputs(ShooterIOInputs inputs) {
+    inputs.flywheelVelocity = leftShooter.getSelectedSensorVelocity();
+    inputs.hoodPosition = hoodEncoder.getPosition();
+    inputs.hoodOutput = hood.get();
+    inputs.hoodBackSwitch = backLimitSwitch.isPressed();
+    inputs.hoodFrontSwitch = frontLimitSwitch.isPressed();
+    inputs.hoodControllerReset = hood.getStickyFault(FaultID.kHasReset);
+  }
+
+  @Override
+  public void setFlywheelVoltage(double volts) {
+    leftShooter.set(ControlMode.PercentOutput, volts / Constants.Shooter.MAX_VOLTAGE);
+  }
+
+  @Override
+  public void setHoodPosition(double position) {
+    hoodController.setReference(position, ControlType.kSmartMotion);
+  }
+
+  @Override
+  public void setHoodOutput(double output) {
+    hood.set(output);
+  }
+
+  @Override
+  public void resetHoodPosition(double position) {
+    hoodEncoder.setPosition(position);
+  }
+
+  @Override
+  public void clearHoodControllerReset() {
+    hood.clearFaults();
+  }
+
+  @Override
+  public void close() {
+    hood.close();
+  }
+}
@@ -0,0 +1,103 @@
+package frc.robot.subsystems.io;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants;
+
+/**
+ * Simulated shooter. The flywheel is the characterized two Falcon flywheel
+ * model. The hood follows the same trapezoid profile SmartMotion would,
+ * perfectly, between its two limit switches.
+ */
+public class ShooterIOSim implements ShooterIO {
+  private static final double HOOD_MAX_SPEED = Constants.Shooter.HOOD_FREE_SPEED_RPM / 60;
+  private static final double HOOD_FRONT_POSITION = 0;
+  private static final double HOOD_BACK_POSITION = -45;
+
+  private final FlywheelSim m_flywheel = new FlywheelSim(
+      LinearSystemId.identifyVelocitySystem(Constants.Shooter.kV, Constants.Shooter.kA),
+      DCMotor.getFalcon500(2), 1.0);
+
+  private final TrapezoidProfile.Constraints m_hoodConstraints = new TrapezoidProfile.Constraints(
+      Constants.Shooter.HOOD_MAX_VELOCITY_RPM / 60, Constants.Shooter.HOOD_MAX_ACCELERATION_RPM_PER_SECOND / 60);
+
+  private double m_flywheelVoltage = 0;
+  private TrapezoidProfile.State m_hoodState = new TrapezoidProfile.State(-3, 0);
+  private double m_hoodEncoderOffset = 0;
+  private double m_hoodTarget = 0;
+  private double m_hoodOutput = 0;
+  private boolean m_hoodClosedLoop = false;
+  // Starts like a freshly powered SparkMax
+  private boolean m_hoodControllerReset = true;
+  private double m_lastTimestamp = Timer.getFPGATimestamp();
+
+  @Override
+  public void updateInputs(ShooterIOInputs inputs) {
+    double now = Timer.getFPGATimestamp();
+    double dt = now - m_lastTimestamp;
+    m_lastTimestamp = now;
+
+    m_flywheel.setInputVoltage(MathUtil.clamp(m_flywheelVoltage, -Constants.Shooter.MAX_VOLTAGE,
+        Constants.Shooter.MAX_VOLTAGE));
+    m_flywheel.update(dt);
+
+    if (m_hoodClosedLoop) {
+      m_hoodState = new TrapezoidProfile(m_hoodConstraints,
+          new TrapezoidProfile.State(m_hoodTarget + m_hoodEncoderOffset, 0), m_hoodState).calculate(dt);
+      m_hoodOutput = m_hoodState.velocity / HOOD_MAX_SPEED;
+    } else {
+      m_hoodState.velocity = m_hoodOutput * HOOD_MAX_SPEED;
+      m_hoodState.position += m_hoodState.velocity * dt;
+    }
+    if (m_hoodState.position < HOOD_BACK_POSITION || m_hoodState.position > HOOD_FRONT_POSITION) {
+      m_hoodState.position = MathUtil.clamp(m_hoodState.position, HOOD_BACK_POSITION, HOOD_FRONT_POSITION);
+      m_hoodState.velocity = 0;
+    }
+
+    inputs.flywheelVelocity = radiansPerSecondToNative(m_flywheel.getAngularVelocityRadPerSec());
+    inputs.hoodPosition = getHoodEncoder();
+    inputs.hoodOutput = m_hoodOutput;
+    inputs.hoodBackSwitch = m_hoodState.position <= HOOD_BACK_POSITION;
+    inputs.hoodFrontSwitch = m_hoodState.position >= HOOD_FRONT_POSITION;
+    inputs.hoodControllerReset = m_hoodControllerReset;
+  }
+
+  private double getHoodEncoder() {
+    return m_hoodState.position - m_hoodEncoderOffset;
+  }
+
+  private static double radiansPerSecondToNative(double radiansPerSecond) {
+    return radiansPerSecond / (2 * Math.PI) * Constants.Shooter.TICKS_PER_REV / 10.0;
+  }
+
+  @Override
+  public void setFlywheelVoltage(double volts) {
+    m_flywheelVoltage = volts;
+  }
+
+  @Override
+  public void setHoodPosition(double position) {
+    m_hoodTarget = position;
+    m_hoodClosedLoop = true;
+  }
+
+  @Override
+  public void setHoodOutput(double output) {
+    m_hoodOutput = output;
+    m_hoodClosedLoop = false;
+  }
+
+  @Override
+  public void resetHoodPosition(double position) {
+    m_hoodEncoderOffset = m_hoodState.position - position;
+  }
+
+  @Override
+  public void clearHoodControllerReset() {
+    m_hoodControllerReset = false;
+  }
+}
@@ -0,0 +1,37 @@
+package frc.robot.subsystems.io;
+
+/**
+ * Hardware layer for the {@link frc.robot.subsystems.Turret}. Angles are in
+ * degrees of turret rotation, 0 facing the front of the robot and
+ * counterclockwise positive.
+ */
+public interface TurretIO extends AutoCloseable {
+
+  /** Everything the turret reads from hardware in one loop. */
+  class TurretIOInputs {
+    public double angleDegrees;
+    public double velocityDegreesPerSecond;
+    public double output;
+  }
+
+  /** Reads every sensor once into the inputs object. */
+  void updateInputs(TurretIOInputs inputs);
+
+  /**
+   * Runs a motion profile to an angle.
+   *
+   * @param angleDegrees Angle to go to, within the soft limits
+   * @param feedforward  Open loop output added on top of the profile
+   */
+  void setAngle(double angleDegrees, double feedforward);
+
+  /** Runs the turret open loop. */
+  void setOutput(double output);
+
+  /** Tells the encoder the turret is currently at an angle. */
+  void resetAngle(double angleDegrees);
+
+  @Override
+  default void close() {
+  }
+}
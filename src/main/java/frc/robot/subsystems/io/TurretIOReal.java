@@ -0,0 +1,60 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+
+import frc.robot.Constants;
+
+public class TurretIOReal implements TurretIO {
+  public TalonFX rotationMotor = new TalonFX(Constants.Turret.MOTOR_ID);
+
+  public TurretIOReal() {
+    rotationMotor.configFactoryDefault(30);
+    rotationMotor.setNeutralMode(NeutralMode.Brake);
+
+    rotationMotor.config_kP(0, Constants.Turret.kP, 30);
+    rotationMotor.config_kI(0, Constants.Turret.kI, 30);
+    rotationMotor.config_kD(0, Constants.Turret.kD, 30);
+    rotationMotor.config_kF(0, Constants.Turret.kF, 30);
+
+    // Talon velocities are per 100ms
+    rotationMotor.configMotionCruiseVelocity(
+        Constants.Turret.MAX_VELOCITY_DEGREES * Constants.Turret.TICKS_PER_DEGREE / 10, 30);
+    rotationMotor.configMotionAcceleration(
+        Constants.Turret.MAX_ACCELERATION_DEGREES * Constants.Turret.TICKS_PER_DEGREE / 10, 30);
+
+    // Backs up the limits the subsystem already keeps the setpoint within
+    rotationMotor.configForwardSoftLimitThreshold(
+        Constants.Turret.MAX_ANGLE_DEGREES * Constants.Turret.TICKS_PER_DEGREE, 30);
+    rotationMotor.configReverseSoftLimitThreshold(
+        Constants.Turret.MIN_ANGLE_DEGREES * Constants.Turret.TICKS_PER_DEGREE, 30);
+    rotationMotor.configForwardSoftLimitEnable(true, 30);
+    rotationMotor.configReverseSoftLimitEnable(true, 30);
+  }
+
+  @Override
+  public void updateInputs(TurretIOInputs inputs) {
+    inputs.angleDegrees = rotationMotor.getSelectedSensorPosition() / Constants.Turret.TICKS_PER_DEGREE;
+    inputs.velocityDegreesPerSecond = rotationMotor.getSelectedSensorVelocity() * 10
+        / Constants.Turret.TICKS_PER_DEGREE;
+    inputs.output = rotationMotor.getMotorOutputPercent();
+  }
+
+  @Override
+  public void setAngle(double angleDegrees, double feedforward) {
+    rotationMotor.set(ControlMode.MotionMagic, angleDegrees * Constants.Turret.TICKS_PER_DEGREE,
+        DemandType.ArbitraryFeedForward, feedforward);
+  }
+
+  @Override
+  public void setOutput(double output) {
+    rotationMotor.set(ControlMode.PercentOutput, output);
+  }
+
+  @Override
+  public void resetAngle(double angleDegrees) {
+    rotationMotor.setSelectedSensorPosition(angleDegrees * Constants.Turret.TICKS_PER_DEGREE);
+  }
+}
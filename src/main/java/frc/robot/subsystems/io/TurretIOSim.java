@@ -0,0 +1,63 @@
+package frc.robot.subsystems.io;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants;
+
+/**
+ * Simulated turret. Follows the same trapezoid profile Motion Magic would,
+ * perfectly, with the feedforward added on as extra speed.
+ */
+public class TurretIOSim implements TurretIO {
+  private final TrapezoidProfile.Constraints m_constraints = new TrapezoidProfile.Constraints(
+      Constants.Turret.MAX_VELOCITY_DEGREES, Constants.Turret.MAX_ACCELERATION_DEGREES);
+
+  private TrapezoidProfile.State m_state = new TrapezoidProfile.State();
+  private double m_target = 0;
+  private double m_feedforward = 0;
+  private double m_output = 0;
+  private boolean m_closedLoop = true;
+  private double m_encoderOffset = 0;
+  private double m_lastTimestamp = Timer.getFPGATimestamp();
+
+  @Override
+  public void updateInputs(TurretIOInputs inputs) {
+    double now = Timer.getFPGATimestamp();
+    double dt = now - m_lastTimestamp;
+    m_lastTimestamp = now;
+
+    if (m_closedLoop) {
+      m_state = new TrapezoidProfile(m_constraints, new TrapezoidProfile.State(m_target, 0), m_state)
+          .calculate(dt);
+      m_state.position += m_feedforward / Constants.Turret.OUTPUT_PER_DEGREE_PER_SECOND * dt;
+    } else {
+      m_state.velocity = m_output / Constants.Turret.OUTPUT_PER_DEGREE_PER_SECOND;
+      m_state.position += m_state.velocity * dt;
+    }
+    m_state.position = MathUtil.clamp(m_state.position,
+        Constants.Turret.MIN_ANGLE_DEGREES, Constants.Turret.MAX_ANGLE_DEGREES);
+
+    inputs.angleDegrees = m_state.position - m_encoderOffset;
+    inputs.velocityDegreesPerSecond = m_state.velocity;
+    inputs.output = m_closedLoop ? m_feedforward : m_output;
+  }
+
+  @Override
+  public void setAngle(double angleDegrees, double feedforward) {
+    m_target = angleDegrees + m_encoderOffset;
+    m_feedforward = feedforward;
+    m_closedLoop = true;
+  }
+
+  @Override
+  public void setOutput(double output) {
+    m_output = output;
+    m_closedLoop = false;
+  }
+
+  @Override
+  public void resetAngle(double angleDegrees) {
+    m_encoderOffset = m_state.position - angleDegrees;
+  }
+}
@@ -0,0 +1,209 @@
+package frc.robot.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+
+/**
+ * Calibrations that survive a reboot, like the hood zero, so the robot can
+ * skip homing routines when it starts up.
+ *
+ * <p>
+ * Values live in a small memory mapped file on the roboRIO. The file has two
+ * slots, and each commit writes the whole set of values to whichever slot
+ * wasn't written last, with a sequence number and a CRC. On load, the newest
+ * slot with a good CRC wins. If power drops partway through a write, that
+ * slot's CRC won't match and the previous commit is used instead.
+ *
+ * <p>
+ * Off the robot nothing is saved, so simulation and tests always start
+ * uncalibrated.
+ */
+public class CalibrationStore {
+    public static final String DEFAULT_FILE = "calibration.bin";
+
+    static final int SLOT_SIZE = 4096;
+    private static final int MAGIC = 0x43414C31; // "CAL1"
+    // Magic, CRC, sequence, payload length
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+    private static final int CRC_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+
+    private static CalibrationStore instance;
+
+    private final ByteBuffer buffer;
+    private final Map<String, Double> values = new TreeMap<>();
+    private long sequence = 0;
+    private int lastSlot = 1;
+    private boolean dirty = false;
+
+    CalibrationStore(ByteBuffer buffer) {
+        this.buffer = buffer;
+        load();
+    }
+
+    public static synchronized CalibrationStore getInstance() {
+        if (instance == null) {
+            if (RobotBase.isReal()) {
+                try {
+                    instance = open(new File(Filesystem.getOperatingDirectory(), DEFAULT_FILE));
+                } catch (IOException e) {
+                    DriverStation.reportError("Couldn't open calibration store, calibrations won't be saved: "
+                            + e.getMessage(), false);
+                }
+            }
+            if (instance == null) {
+                instance = new CalibrationStore(ByteBuffer.allocate(2 * SLOT_SIZE));
+            }
+        }
+        return instance;
+    }
+
+    /** Opens a store file, creating it if it doesn't exist. */
+    public static CalibrationStore open(File file) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            return new CalibrationStore(channel.map(FileChannel.MapMode.READ_WRITE, 0, 2 * SLOT_SIZE));
+        }
+    }
+
+    private void load() {
+        int best = -1;
+        for (int slot = 0; slot < 2; slot++) {
+            if (isValid(slot) && (best < 0 || slotSequence(slot) > slotSequence(best))) {
+                best = slot;
+            }
+        }
+        if (best < 0) {
+            return;
+        }
+        lastSlot = best;
+        sequence = slotSequence(best);
+
+        int offset = best * SLOT_SIZE + HEADER_SIZE;
+        int count = buffer.getInt(offset);
+        offset += 4;
+        for (int i = 0; i < count; i++) {
+            byte[] key = new byte[buffer.getShort(offset)];
+            offset += 2;
+            for (int j = 0; j < key.length; j++) {
+                key[j] = buffer.get(offset + j);
+            }
+            offset += key.length;
+            values.put(new String(key, StandardCharsets.UTF_8), buffer.getDouble(offset));
+            offset += 8;
+        }
+    }
+
+    private boolean isValid(int slot) {
+        int start = slot * SLOT_SIZE;
+        if (buffer.getInt(start) != MAGIC) {
+            return false;
+        }
+        int length = buffer.getInt(start + HEADER_SIZE - 4);
+        if (length < 4 || length > SLOT_SIZE - HEADER_SIZE) {
+            return false;
+        }
+        return buffer.getInt(start + CRC_OFFSET) == crc(start, length);
+    }
+
+    private long slotSequence(int slot) {
+        return buffer.getLong(slot * SLOT_SIZE + SEQUENCE_OFFSET);
+    }
+
+    /** CRC of a slot's sequence, length and payload. */
+    private int crc(int start, int length) {
+        ByteBuffer covered = buffer.duplicate();
+        covered.position(start + SEQUENCE_OFFSET);
+        covered.limit(start + HEADER_SIZE + length);
+        CRC32 crc = new CRC32();
+        crc.update(covered);
+        return (int) crc.getValue();
+    }
+
+    public synchronized boolean has(String key) {
+        return values.containsKey(key);
+    }
+
+    public synchronized double getDouble(String key, double defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * Sets a value, saved on the next {@link #commit()}.
+     *
+     * @throws IllegalArgumentException If the value is NaN or infinite
+     */
+    public synchronized void putDouble(String key, double value) {
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException("Calibration " + key + " isn't a number: " + value);
+        }
+        Double old = values.put(key, value);
+        dirty |= old == null || old != value;
+    }
+
+    /** Forgets a value, on the next {@link #commit()}. */
+    public synchronized void remove(String key) {
+        dirty |= values.remove(key) != null;
+    }
+
+    /**
+     * Writes every value to the file, if anything changed. Blocks until it's
+     * on flash, so don't call it every loop.
+     */
+    public synchronized void commit() {
+        if (!dirty) {
+            return;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(SLOT_SIZE - HEADER_SIZE);
+        try {
+            payload.putInt(values.size());
+            for (Map.Entry<String, Double> entry : values.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                payload.putShort((short) key.length);
+                payload.put(key);
+                payload.putDouble(entry.getValue());
+            }
+        } catch (java.nio.BufferOverflowException e) {
+            DriverStation.reportError("Too many calibrations to save", false);
+            return;
+        }
+        payload.flip();
+
+        // Never overwrite the last good commit
+        int slot = 1 - lastSlot;
+        int start = slot * SLOT_SIZE;
+        int length = payload.remaining();
+        buffer.putInt(start, MAGIC);
+        buffer.putLong(start + SEQUENCE_OFFSET, sequence + 1);
+        buffer.putInt(start + HEADER_SIZE - 4, length);
+        for (int i = 0; i < length; i++) {
+            buffer.put(start + HEADER_SIZE + i, payload.get(i));
+        }
+        buffer.putInt(start + CRC_OFFSET, crc(start, length));
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+
+        sequence++;
+        lastSlot = slot;
+        dirty = false;
+    }
+
+    /** How many commits have been made to this file. */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,106 @@
+package frc.robot.util;
+
+/**
+ * Works out how far away a target is from its vertical angle in the camera
+ * image, given how high the camera and target are and how far up the camera
+ * is tilted.
+ *
+ * <p>
+ * Unlike the target's width in pixels, this doesn't care how much of the
+ * target is visible, but it's only as good as the mount pitch. A degree off
+ * is roughly 10 cm at 3 m. The pitch can be fit from a few shots at known
+ * distances, see {@link #addCalibrationSample(double, double)}.
+ */
+public class CameraDistanceEstimator {
+    private final double heightDifference;
+    private final double targetRadius;
+    private double pitchDegrees;
+
+    // Calibration samples, ty and the elevation angle to the target at the
+    // measured distance, both degrees
+    private final double[] sampleTy;
+    private final double[] sampleElevations;
+    private int sampleCount = 0;
+
+    /**
+     * @param cameraHeightMeters Height of the camera lens off the floor
+     * @param targetHeightMeters Height of the middle of the target off the floor
+     * @param targetRadiusMeters Added to the distance, so it's measured to the
+     *                           middle of a round target rather than its edge
+     * @param pitchDegrees       How far up the camera is tilted
+     * @param maxSamples         Most calibration samples to keep
+     */
+    public CameraDistanceEstimator(double cameraHeightMeters, double targetHeightMeters, double targetRadiusMeters,
+            double pitchDegrees, int maxSamples) {
+        if (targetHeightMeters <= cameraHeightMeters) {
+            throw new IllegalArgumentException("Target has to be above the camera");
+        }
+        this.heightDifference = targetHeightMeters - cameraHeightMeters;
+        this.targetRadius = targetRadiusMeters;
+        this.pitchDegrees = pitchDegrees;
+        this.sampleTy = new double[maxSamples];
+        this.sampleElevations = new double[maxSamples];
+    }
+
+    /**
+     * @param tyDegrees Vertical angle to the target in the image, positive is up
+     * @return Horizontal distance to the target in meters, or NaN if the target
+     *         would be at or below the camera's horizon
+     */
+    public double getDistance(double tyDegrees) {
+        double angle = Math.toRadians(pitchDegrees + tyDegrees);
+        if (angle <= 0 || angle >= Math.PI / 2) {
+            return Double.NaN;
+        }
+        return heightDifference / Math.tan(angle) + targetRadius;
+    }
+
+    public double getPitchDegrees() {
+        return pitchDegrees;
+    }
+
+    public void setPitchDegrees(double pitchDegrees) {
+        this.pitchDegrees = pitchDegrees;
+    }
+
+    /**
+     * Records where the target showed up with the robot at a measured distance,
+     * then refits the pitch from every sample so far. Samples spread over the
+     * shooting range give the best fit. Once full, the oldest sample is
+     * replaced.
+     *
+     * @param tyDegrees      Vertical angle to the target, averaged over a few
+     *                       frames
+     * @param distanceMeters Measured distance, same reference as
+     *                       {@link #getDistance(double)}
+     * @return The new pitch in degrees
+     */
+    public double addCalibrationSample(double tyDegrees, double distanceMeters) {
+        if (distanceMeters <= targetRadius) {
+            throw new IllegalArgumentException("Distance has to be outside of the target");
+        }
+        int index = sampleCount % sampleTy.length;
+        sampleTy[index] = tyDegrees;
+        sampleElevations[index] = Math.toDegrees(Math.atan2(heightDifference, distanceMeters - targetRadius));
+        sampleCount++;
+
+        // pitch + ty = elevation is linear in pitch, so the least squares fit
+        // of the angle error is just the mean of each sample's own pitch
+        int count = getCalibrationSampleCount();
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += sampleElevations[i] - sampleTy[i];
+        }
+        pitchDegrees = sum / count;
+        return pitchDegrees;
+    }
+
+    /** Forgets the calibration samples, the pitch stays where it is. */
+    public void clearCalibrationSamples() {
+        sampleCount = 0;
+    }
+
+    public int getCalibrationSampleCount() {
+        return Math.min(sampleCount, sampleTy.length);
+    }
+}
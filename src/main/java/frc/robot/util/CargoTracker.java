@@ -0,0 +1,193 @@
+package frc.robot.util;
+
+/**
+ * Keeps track of how many cargo are in the magazine and where, from edges on
+ * the two ball sensors and which way the magazine is running.
+ *
+ * <p>
+ * Cargo come in from the intake past the lower sensor, travel up between the
+ * sensors, wait at the upper sensor, and leave into the shooter. Each sensor
+ * only sees cargo right in front of it, so cargo between the sensors are
+ * counted by the edges: the lower sensor clearing while the lower magazine
+ * runs up puts one in transit, and the upper sensor tripping takes it out.
+ *
+ * <p>
+ * Cargo in transit are a guess, so if both magazines run up for longer than
+ * it takes cargo to get from one sensor to the other and nothing shows up at
+ * the upper sensor, the guess was wrong and one is dropped.
+ */
+public class CargoTracker {
+
+    /** Places cargo can be. */
+    public enum Slot {
+        /** In front of the lower sensor. */
+        LOWER,
+        /** Between the sensors, where neither can see it. */
+        TRANSIT,
+        /** In front of the upper sensor, next to be shot. */
+        UPPER
+    }
+
+    /** What the cargo in a slot is doing. */
+    public enum State {
+        EMPTY,
+        /** Moving up the magazine. */
+        ENTERING,
+        /** Sitting still at a sensor. */
+        STAGED,
+        /** Just left the upper sensor on its way into the shooter. */
+        FEEDING
+    }
+
+    private final int maxCargo;
+    private final double feedClearSeconds;
+    private final double transitSeconds;
+
+    private boolean lower;
+    private boolean upper;
+    private int transit = 0;
+    private boolean lowerMoving = false;
+    private double lastFeedTime = Double.NEGATIVE_INFINITY;
+    // How long the magazine has been moving the oldest cargo in transit up
+    private double transitRunTime = 0;
+    private double time = Double.NaN;
+    private long fedCount = 0;
+
+    /**
+     * @param maxCargo         Most cargo the magazine can hold
+     * @param feedClearSeconds How long cargo counts as feeding after leaving
+     *                         the upper sensor
+     * @param transitSeconds   Longest cargo takes from the lower sensor to the
+     *                         upper one with the magazine running
+     */
+    public CargoTracker(int maxCargo, double feedClearSeconds, double transitSeconds) {
+        this.maxCargo = maxCargo;
+        this.feedClearSeconds = feedClearSeconds;
+        this.transitSeconds = transitSeconds;
+    }
+
+    /**
+     * Starts over from what the sensors see, forgetting anything in transit.
+     */
+    public void reset(boolean lowerSensor, boolean upperSensor) {
+        lower = lowerSensor;
+        upper = upperSensor;
+        transit = 0;
+        transitRunTime = 0;
+        lastFeedTime = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Call once a loop, after reading the sensors.
+     *
+     * @param lowerSensor    Whether the lower sensor sees cargo
+     * @param upperSensor    Whether the upper sensor sees cargo
+     * @param lowerDirection Lower magazine speed, positive is up
+     * @param upperDirection Upper magazine speed, positive is toward the
+     *                       shooter
+     * @param time           Timestamp, seconds
+     */
+    public void update(boolean lowerSensor, boolean upperSensor, double lowerDirection, double upperDirection,
+            double time) {
+        double dt = Double.isNaN(this.time) ? 0 : time - this.time;
+        this.time = time;
+        lowerMoving = lowerDirection > 0;
+
+        if (lowerSensor && !lower && lowerDirection < 0) {
+            // Backed down from transit
+            transit = Math.max(0, transit - 1);
+        } else if (!lowerSensor && lower && lowerDirection >= 0) {
+            // Left going up. Stopped, the intake is the only thing that could
+            // have pushed it, and that's up too. Backing out, it's gone.
+            transit++;
+        }
+
+        if (upperSensor && !upper) {
+            // From transit, or not seen before, like at startup
+            transit = Math.max(0, transit - 1);
+            transitRunTime = 0;
+        } else if (!upperSensor && upper) {
+            if (upperDirection > 0) {
+                lastFeedTime = time;
+                fedCount++;
+            } else {
+                // Backed down, or rolled back off the sensor while stopped
+                transit++;
+            }
+        }
+
+        lower = lowerSensor;
+        upper = upperSensor;
+        // Can't have more than fit, drop the ones in transit first since
+        // they're the guess
+        transit = Math.max(0, Math.min(transit, maxCargo - (lower ? 1 : 0) - (upper ? 1 : 0)));
+
+        if (transit == 0) {
+            transitRunTime = 0;
+        } else if (lowerDirection > 0 && upperDirection > 0) {
+            transitRunTime += dt;
+            if (transitRunTime > transitSeconds) {
+                // It would have made it by now
+                transit--;
+                transitRunTime = 0;
+            }
+        }
+    }
+
+    /** Cargo on board, not counting any on their way into the shooter. */
+    public int getCargoCount() {
+        return (lower ? 1 : 0) + transit + (upper ? 1 : 0);
+    }
+
+    public boolean isFull() {
+        return getCargoCount() >= maxCargo;
+    }
+
+    public boolean isEmpty() {
+        return getCargoCount() == 0;
+    }
+
+    /** Whether there's cargo waiting at the upper sensor, ready to shoot. */
+    public boolean hasStagedCargo() {
+        return upper;
+    }
+
+    /** Whether there's cargo that still has to move up to the upper sensor. */
+    public boolean hasCargoBelowUpper() {
+        return lower || transit > 0;
+    }
+
+    public State getState(Slot slot) {
+        switch (slot) {
+            case LOWER:
+                if (!lower) {
+                    return State.EMPTY;
+                }
+                return lowerMoving ? State.ENTERING : State.STAGED;
+            case TRANSIT:
+                return transit > 0 ? State.ENTERING : State.EMPTY;
+            case UPPER:
+                if (upper) {
+                    return State.STAGED;
+                }
+                return isFeeding() ? State.FEEDING : State.EMPTY;
+            default:
+                return State.EMPTY;
+        }
+    }
+
+    /** Whether cargo left for the shooter recently enough to still be in it. */
+    public boolean isFeeding() {
+        return time - lastFeedTime < feedClearSeconds;
+    }
+
+    /** Timestamp the last cargo left for the shooter. */
+    public double getLastFeedTime() {
+        return lastFeedTime;
+    }
+
+    /** How many cargo have left for the shooter. */
+    public long getFedCount() {
+        return fedCount;
+    }
+}
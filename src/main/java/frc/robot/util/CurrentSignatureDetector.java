@@ -0,0 +1,146 @@
+package frc.robot.util;
+
+/**
+ * Recognizes cargo in a roller from its motor's current and speed, sampled
+ * faster than the robot loop.
+ *
+ * <p>
+ * Samples go into a fixed size window. Two signatures are picked out of it:
+ * <ul>
+ * <li>Acquired: current jumps up from where it was earlier in the window
+ * while the roller keeps turning, the load of grabbing cargo.</li>
+ * <li>Jammed: high current with the roller barely turning for the whole
+ * window, cargo wedged against something.</li>
+ * </ul>
+ * After either one, the window starts over and nothing is reported for a
+ * holdoff time, so one cargo is one event.
+ */
+public class CurrentSignatureDetector {
+
+    public enum Event {
+        NONE,
+        ACQUIRED,
+        JAMMED
+    }
+
+    private final double[] currents;
+    private final double[] speeds;
+    private final double acquireCurrentRise;
+    private final double jamCurrent;
+    private final double jamSpeed;
+    private final double holdoffSeconds;
+
+    private int count = 0;
+    private int head = 0;
+    private double holdoffUntil = Double.NEGATIVE_INFINITY;
+
+    private double lastAcquireTime = Double.NaN;
+    private double lastJamTime = Double.NaN;
+    private int acquireCount = 0;
+    private int jamCount = 0;
+
+    /**
+     * @param windowSize         Number of samples in the window
+     * @param acquireCurrentRise How far current has to rise from the start of
+     *                           the window to the end for cargo, amps
+     * @param jamCurrent         Current above which the roller is straining,
+     *                           amps
+     * @param jamSpeed           Speed below which a straining roller is
+     *                           stalled, either direction
+     * @param holdoffSeconds     Time after an event before the next one
+     */
+    public CurrentSignatureDetector(int windowSize, double acquireCurrentRise, double jamCurrent, double jamSpeed,
+            double holdoffSeconds) {
+        currents = new double[windowSize];
+        speeds = new double[windowSize];
+        this.acquireCurrentRise = acquireCurrentRise;
+        this.jamCurrent = jamCurrent;
+        this.jamSpeed = jamSpeed;
+        this.holdoffSeconds = holdoffSeconds;
+    }
+
+    /**
+     * Adds a sample.
+     *
+     * @param time    Timestamp, seconds
+     * @param current Output current, amps
+     * @param speed   Roller speed
+     * @param running Whether the roller is being driven to move cargo. While
+     *                it isn't, the window is emptied, since the current
+     *                doesn't mean anything.
+     * @return What the window shows, if it's new
+     */
+    public Event addSample(double time, double current, double speed, boolean running) {
+        if (!running) {
+            count = 0;
+            return Event.NONE;
+        }
+        currents[head] = current;
+        speeds[head] = Math.abs(speed);
+        head = (head + 1) % currents.length;
+        count = Math.min(count + 1, currents.length);
+        if (count < currents.length || time < holdoffUntil) {
+            return Event.NONE;
+        }
+
+        Event event = classify();
+        if (event != Event.NONE) {
+            count = 0;
+            holdoffUntil = time + holdoffSeconds;
+            if (event == Event.JAMMED) {
+                lastJamTime = time;
+                jamCount++;
+            } else {
+                lastAcquireTime = time;
+                acquireCount++;
+            }
+        }
+        return event;
+    }
+
+    private Event classify() {
+        int size = currents.length;
+        int baselineSize = size / 2;
+        int recentSize = Math.max(1, size / 4);
+        double baseline = 0;
+        double recent = 0;
+        boolean stalled = true;
+        // The window is full, so the oldest sample is at the head
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % size;
+            if (i < baselineSize) {
+                baseline += currents[index];
+            }
+            if (i >= size - recentSize) {
+                recent += currents[index];
+            }
+            stalled &= currents[index] > jamCurrent && speeds[index] < jamSpeed;
+        }
+        if (stalled) {
+            return Event.JAMMED;
+        }
+        int newest = (head + size - 1) % size;
+        if (recent / recentSize - baseline / baselineSize > acquireCurrentRise && speeds[newest] >= jamSpeed) {
+            return Event.ACQUIRED;
+        }
+        return Event.NONE;
+    }
+
+    /** Timestamp of the last acquisition, NaN before any. */
+    public double getLastAcquireTime() {
+        return lastAcquireTime;
+    }
+
+    /** Timestamp of the last jam, NaN before any. */
+    public double getLastJamTime() {
+        return lastJamTime;
+    }
+
+    public int getAcquireCount() {
+        return acquireCount;
+    }
+
+    public int getJamCount() {
+        return jamCount;
+    }
+}
@@ -0,0 +1,224 @@
+package frc.robot.util;
+
+/**
+ * Smooths a noisy distance measurement from the Limelight.
+ *
+ * <p>
+ * Each new measurement goes through three stages:
+ * <ol>
+ * <li>A short median window, which removes single-frame spikes.</li>
+ * <li>Outlier rejection, which drops medians too far from where the Kalman
+ * filter expects the distance to be. If enough are rejected in a row, the
+ * target really did move (or we were locked onto the wrong thing), so the
+ * filter restarts from the new value.</li>
+ * <li>A constant velocity Kalman filter on distance and its rate of change,
+ * so the output follows the robot driving towards or away from the hub
+ * without lagging.</li>
+ * </ol>
+ *
+ * <p>
+ * It also reports a confidence between 0 and 1, which drops as the estimate
+ * gets uncertain or old. Everything is stored in fixed size primitive
+ * buffers, so updates take constant time and don't allocate.
+ */
+public class DistanceFilter {
+    private final double[] window;
+    private final double[] sorted;
+    private final double outlierThreshold;
+    private final int maxRejections;
+    private final double accelerationVariance;
+    private final double measurementVariance;
+    private final double staleTimeout;
+
+    private int windowCount = 0;
+    private int windowHead = 0;
+    private int rejections = 0;
+
+    private boolean initialized = false;
+    private double lastTimestamp = 0;
+    // State, distance and velocity
+    private double distance = 0;
+    private double velocity = 0;
+    // Covariance, p01 == p10
+    private double p00 = 0;
+    private double p01 = 0;
+    private double p11 = 0;
+
+    /**
+     * @param windowSize            Number of measurements in the median window
+     * @param outlierThreshold      Medians further than this from the predicted
+     *                              distance are rejected
+     * @param maxRejections         Consecutive rejections before restarting
+     * @param accelerationStdDev    How quickly the distance can change speed,
+     *                              standard deviation in distance per second
+     *                              squared
+     * @param measurementStdDev     Noise of a median measurement, standard
+     *                              deviation in distance
+     * @param staleTimeoutSeconds   Confidence falls to 0 when there hasn't been a
+     *                              measurement for this long
+     */
+    public DistanceFilter(int windowSize, double outlierThreshold, int maxRejections, double accelerationStdDev,
+            double measurementStdDev, double staleTimeoutSeconds) {
+        this.window = new double[windowSize];
+        this.sorted = new double[windowSize];
+        this.outlierThreshold = outlierThreshold;
+        this.maxRejections = maxRejections;
+        this.accelerationVariance = accelerationStdDev * accelerationStdDev;
+        this.measurementVariance = measurementStdDev * measurementStdDev;
+        this.staleTimeout = staleTimeoutSeconds;
+    }
+
+    /**
+     * Adds a measurement. Only call this with new frames, feeding the same
+     * frame twice would make the filter overconfident.
+     *
+     * @param measurement Measured distance
+     * @param timestamp   When the measurement was taken, seconds
+     * @return Whether the measurement made it past outlier rejection
+     */
+    public boolean update(double measurement, double timestamp) {
+        if (initialized && timestamp - lastTimestamp > staleTimeout) {
+            // Too old to predict from, start over
+            reset();
+        }
+
+        window[windowHead] = measurement;
+        windowHead = (windowHead + 1) % window.length;
+        if (windowCount < window.length) {
+            windowCount++;
+        }
+        double median = median();
+
+        if (!initialized) {
+            distance = median;
+            velocity = 0;
+            p00 = measurementVariance;
+            p01 = 0;
+            p11 = accelerationVariance;
+            lastTimestamp = timestamp;
+            initialized = true;
+            return true;
+        }
+
+        predict(timestamp - lastTimestamp);
+        lastTimestamp = timestamp;
+
+        if (Math.abs(median - distance) > outlierThreshold) {
+            rejections++;
+            if (rejections >= maxRejections) {
+                restartAt(measurement, timestamp);
+            }
+            return false;
+        }
+        rejections = 0;
+
+        // Measurement update, we only measure distance
+        double innovation = median - distance;
+        double s = p00 + measurementVariance;
+        double k0 = p00 / s;
+        double k1 = p01 / s;
+        distance += k0 * innovation;
+        velocity += k1 * innovation;
+        double newP00 = (1 - k0) * p00;
+        double newP01 = (1 - k0) * p01;
+        double newP11 = p11 - k1 * p01;
+        p00 = newP00;
+        p01 = newP01;
+        p11 = newP11;
+        return true;
+    }
+
+    /** Forgets everything, confidence goes to 0 until the next measurement. */
+    public void reset() {
+        initialized = false;
+        windowCount = 0;
+        windowHead = 0;
+        rejections = 0;
+    }
+
+    /** The filtered distance as of the last measurement. */
+    public double getDistance() {
+        return distance;
+    }
+
+    /** Rate of change of the distance, distance per second. */
+    public double getVelocity() {
+        return velocity;
+    }
+
+    /** Standard deviation of the filtered distance. */
+    public double getStdDev() {
+        return Math.sqrt(p00);
+    }
+
+    /**
+     * How much to trust the filtered distance, from 0 to 1. Falls off with
+     * uncertainty relative to the measurement noise, and with time since the
+     * last measurement.
+     *
+     * @param now Current time, seconds, same clock as the measurements
+     */
+    public double getConfidence(double now) {
+        if (!initialized) {
+            return 0;
+        }
+        double age = now - lastTimestamp;
+        if (age >= staleTimeout) {
+            return 0;
+        }
+        double freshness = 1 - Math.max(age, 0) / staleTimeout;
+        // Right after starting, p00 equals the measurement noise and this is
+        // 0.5. It approaches 1 as measurements agree with each other.
+        double certainty = measurementVariance / (measurementVariance + p00);
+        double confidence = certainty * freshness;
+        // Filling the median window counts too
+        return confidence * windowCount / window.length;
+    }
+
+    private void predict(double dt) {
+        if (dt <= 0) {
+            return;
+        }
+        distance += velocity * dt;
+        // P = F P F' + Q, with white noise acceleration
+        double dt2 = dt * dt;
+        double newP00 = p00 + 2 * dt * p01 + dt2 * p11 + accelerationVariance * dt2 * dt2 / 4;
+        double newP01 = p01 + dt * p11 + accelerationVariance * dt2 * dt / 2;
+        double newP11 = p11 + accelerationVariance * dt2;
+        p00 = newP00;
+        p01 = newP01;
+        p11 = newP11;
+    }
+
+    private void restartAt(double measurement, double timestamp) {
+        reset();
+        window[0] = measurement;
+        windowHead = 1;
+        windowCount = 1;
+        distance = measurement;
+        velocity = 0;
+        p00 = measurementVariance;
+        p01 = 0;
+        p11 = accelerationVariance;
+        lastTimestamp = timestamp;
+        initialized = true;
+    }
+
+    /** Median of the window, insertion sort is plenty for a handful of values. */
+    private double median() {
+        System.arraycopy(window, 0, sorted, 0, windowCount);
+        for (int i = 1; i < windowCount; i++) {
+            double value = sorted[i];
+            int j = i - 1;
+            while (j >= 0 && sorted[j] > value) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = value;
+        }
+        if (windowCount % 2 == 1) {
+            return sorted[windowCount / 2];
+        }
+        return (sorted[windowCount / 2 - 1] + sorted[windowCount / 2]) / 2;
+    }
+}
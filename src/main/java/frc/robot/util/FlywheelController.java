@@ -0,0 +1,164 @@
+package frc.robot.util;
+
+/**
+ * State space velocity controller for a flywheel: an LQR for feedback, plant
+ * inversion feedforward, and a Kalman filter smoothing the velocity
+ * measurement.
+ *
+ * <p>
+ * The flywheel is modelled from a characterization run as
+ * {@code volts = kV * velocity + kA * acceleration}. That's a single state, so
+ * every matrix in WPILib's {@code LinearSystemLoop} is a scalar, and the
+ * regulator and filter gains have closed form solutions. Working them out here
+ * gives the same gains and outputs as the WPILib classes, without allocating a
+ * matrix every loop.
+ *
+ * <p>
+ * Each loop, call {@link #correct(double)} with the measured velocity, then
+ * {@link #calculate(double)} to get the voltage to apply.
+ */
+public class FlywheelController {
+    private final double a;
+    private final double b;
+    private final double maxVoltage;
+    private final double dtSeconds;
+    private final double regulatorGain;
+    private final double observerGain;
+
+    private double estimate = 0;
+    private double reference = 0;
+    private double voltage = 0;
+
+    /**
+     * @param kV                Volts per unit of velocity
+     * @param kA                Volts per unit of acceleration
+     * @param velocityTolerance LQR, how much velocity error is acceptable.
+     *                          Smaller is more aggressive.
+     * @param voltageTolerance  LQR, how much voltage is acceptable to spend
+     *                          fixing the error
+     * @param modelStdDev       Kalman filter, how much to trust the model,
+     *                          standard deviation in velocity
+     * @param measurementStdDev Kalman filter, how much to trust the sensor,
+     *                          standard deviation in velocity
+     * @param maxVoltage        Output is clamped to plus or minus this
+     * @param dtSeconds         Loop period
+     */
+    public FlywheelController(double kV, double kA, double velocityTolerance, double voltageTolerance,
+            double modelStdDev, double measurementStdDev, double maxVoltage, double dtSeconds) {
+        if (kV <= 0 || kA <= 0) {
+            throw new IllegalArgumentException("kV and kA have to be positive");
+        }
+        // Continuous model, dx/dt = -kV/kA x + 1/kA u, discretized with a
+        // zero order hold on the input
+        double continuousA = -kV / kA;
+        this.a = Math.exp(continuousA * dtSeconds);
+        this.b = (a - 1) / continuousA / kA;
+        this.maxVoltage = maxVoltage;
+        this.dtSeconds = dtSeconds;
+
+        // LQR with Bryson's rule costs
+        double q = 1 / (velocityTolerance * velocityTolerance);
+        double r = 1 / (voltageTolerance * voltageTolerance);
+        double p = solveDare(a, b, q, r);
+        this.regulatorGain = b * p * a / (r + b * b * p);
+
+        // Steady state Kalman filter, with the noise discretized the same way
+        // WPILib's KalmanFilter does
+        double processNoise = modelStdDev * modelStdDev * (a * a - 1) / (2 * continuousA);
+        double measurementNoise = measurementStdDev * measurementStdDev / dtSeconds;
+        double prior = solveDare(a, 1, processNoise, measurementNoise);
+        this.observerGain = prior / (prior + measurementNoise);
+    }
+
+    /**
+     * Solves the scalar discrete algebraic Riccati equation,
+     * {@code p = a^2 p - (a b p)^2 / (r + b^2 p) + q}, for its positive root.
+     */
+    static double solveDare(double a, double b, double q, double r) {
+        // Rearranged into b^2 p^2 + (r (1 - a^2) - q b^2) p - q r = 0
+        double quadA = b * b;
+        double quadB = r * (1 - a * a) - q * b * b;
+        double quadC = -q * r;
+        return (-quadB + Math.sqrt(quadB * quadB - 4 * quadA * quadC)) / (2 * quadA);
+    }
+
+    /** Feeds in a velocity measurement. */
+    public void correct(double measuredVelocity) {
+        estimate += observerGain * (measuredVelocity - estimate);
+    }
+
+    /**
+     * Works out the voltage for this loop and predicts where the flywheel will
+     * be next loop.
+     *
+     * @param referenceVelocity Velocity to run at
+     * @return Voltage to apply
+     */
+    public double calculate(double referenceVelocity) {
+        // Plant inversion, the voltage that takes the last reference to this
+        // one. Holding a speed, it's kV * velocity.
+        double feedforward = (referenceVelocity - a * reference) / b;
+        reference = referenceVelocity;
+        double output = regulatorGain * (referenceVelocity - estimate) + feedforward;
+        voltage = Math.max(-maxVoltage, Math.min(maxVoltage, output));
+        estimate = a * estimate + b * voltage;
+        return voltage;
+    }
+
+    /**
+     * Predicts how long until the flywheel is within tolerance of a reference,
+     * by running the model and this controller forward from the estimate. The
+     * regulator doesn't overshoot, so once it's within tolerance it stays
+     * there. Counts from the last measurement, so the soonest it can be is one
+     * loop.
+     *
+     * @param referenceVelocity Velocity the flywheel is running to
+     * @param tolerance         How close counts as there
+     * @param maxSeconds        How far ahead to look
+     * @return Seconds, or infinity if it won't get there within maxSeconds
+     */
+    public double predictTimeToReach(double referenceVelocity, double tolerance, double maxSeconds) {
+        // Holding a constant reference, plant inversion is just enough to
+        // cancel the decay
+        double feedforward = referenceVelocity * (1 - a) / b;
+        double velocity = estimate;
+        double time = dtSeconds;
+        while (Math.abs(referenceVelocity - velocity) >= tolerance) {
+            time += dtSeconds;
+            if (time > maxSeconds) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double output = regulatorGain * (referenceVelocity - velocity) + feedforward;
+            velocity = a * velocity + b * Math.max(-maxVoltage, Math.min(maxVoltage, output));
+        }
+        return time;
+    }
+
+    /**
+     * Starts over from a known velocity, like after the flywheel has been
+     * coasting with the controller off.
+     */
+    public void reset(double velocity) {
+        estimate = velocity;
+        reference = velocity;
+        voltage = 0;
+    }
+
+    /** The filtered velocity. */
+    public double getEstimate() {
+        return estimate;
+    }
+
+    /** The voltage from the last {@link #calculate(double)}. */
+    public double getVoltage() {
+        return voltage;
+    }
+
+    public double getRegulatorGain() {
+        return regulatorGain;
+    }
+
+    public double getObserverGain() {
+        return observerGain;
+    }
+}
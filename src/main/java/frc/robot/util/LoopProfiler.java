@@ -0,0 +1,149 @@
+package frc.robot.util;
+
+import java.util.Arrays;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Times pieces of the main robot loop (subsystem periodics, command
+ * execute/isFinished, the scheduler itself) and publishes p50/p99/max and
+ * overrun counts for each of them under the "Profiler" table.
+ *
+ * <p>
+ * Everything is preallocated when an entry is registered, so start/stop only
+ * touch primitive arrays and never allocate on the hot path. Entries are
+ * registered once (normally from a constructor) and referred to by the integer
+ * id that {@link #register(String, double)} returns.
+ */
+public final class LoopProfiler {
+    /** Maximum number of entries that can be registered. */
+    private static final int MAX_ENTRIES = 64;
+    /** Samples kept per entry, about 5 seconds of loops at 50 Hz. */
+    private static final int WINDOW_SIZE = 256;
+    /** How many loops between publishing statistics. */
+    private static final int PUBLISH_PERIOD_LOOPS = 50;
+    /** Budget used when an entry doesn't provide its own. */
+    public static final double DEFAULT_BUDGET_SECONDS = 0.002;
+
+    private static LoopProfiler instance;
+
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable("Profiler");
+
+    private final String[] names = new String[MAX_ENTRIES];
+    private final long[][] samples = new long[MAX_ENTRIES][WINDOW_SIZE];
+    private final int[] heads = new int[MAX_ENTRIES];
+    private final int[] sampleCounts = new int[MAX_ENTRIES];
+    private final long[] startTimes = new long[MAX_ENTRIES];
+    private final long[] budgets = new long[MAX_ENTRIES];
+    private final long[] overruns = new long[MAX_ENTRIES];
+
+    private final NetworkTableEntry[] p50Entries = new NetworkTableEntry[MAX_ENTRIES];
+    private final NetworkTableEntry[] p99Entries = new NetworkTableEntry[MAX_ENTRIES];
+    private final NetworkTableEntry[] maxEntries = new NetworkTableEntry[MAX_ENTRIES];
+    private final NetworkTableEntry[] overrunEntries = new NetworkTableEntry[MAX_ENTRIES];
+
+    private final long[] scratch = new long[WINDOW_SIZE];
+
+    private int entryCount = 0;
+    private int loopsSincePublish = 0;
+
+    private LoopProfiler() {
+    }
+
+    public static synchronized LoopProfiler getInstance() {
+        if (instance == null) {
+            instance = new LoopProfiler();
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a timed entry with the default budget.
+     *
+     * @param name Name the entry is published under
+     * @return Id to pass to {@link #start(int)} and {@link #stop(int)}
+     */
+    public int register(String name) {
+        return register(name, DEFAULT_BUDGET_SECONDS);
+    }
+
+    /**
+     * Registers a timed entry. Registering the same name twice returns the same
+     * id, so every instance of a command shares one set of statistics.
+     *
+     * @param name          Name the entry is published under
+     * @param budgetSeconds Samples longer than this count as an overrun
+     * @return Id to pass to {@link #start(int)} and {@link #stop(int)}
+     */
+    public synchronized int register(String name, double budgetSeconds) {
+        for (int i = 0; i < entryCount; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        if (entryCount == MAX_ENTRIES) {
+            throw new IllegalStateException("LoopProfiler is full, can't register " + name);
+        }
+        int id = entryCount;
+        names[id] = name;
+        budgets[id] = (long) (budgetSeconds * 1e9);
+        p50Entries[id] = table.getEntry(name + "/p50Ms");
+        p99Entries[id] = table.getEntry(name + "/p99Ms");
+        maxEntries[id] = table.getEntry(name + "/MaxMs");
+        overrunEntries[id] = table.getEntry(name + "/Overruns");
+        entryCount++;
+        return id;
+    }
+
+    /** Marks the start of a timed section. */
+    public void start(int id) {
+        startTimes[id] = System.nanoTime();
+    }
+
+    /** Marks the end of a timed section started with {@link #start(int)}. */
+    public void stop(int id) {
+        record(id, System.nanoTime() - startTimes[id]);
+    }
+
+    /** Adds a sample to an entry's ring buffer. */
+    public void record(int id, long nanos) {
+        long[] window = samples[id];
+        window[heads[id]] = nanos;
+        heads[id] = (heads[id] + 1) % WINDOW_SIZE;
+        if (sampleCounts[id] < WINDOW_SIZE) {
+            sampleCounts[id]++;
+        }
+        if (nanos > budgets[id]) {
+            overruns[id]++;
+        }
+    }
+
+    /**
+     * Call once at the end of every robot loop. Statistics are only computed and
+     * published every {@value #PUBLISH_PERIOD_LOOPS} loops.
+     */
+    public void periodic() {
+        if (++loopsSincePublish < PUBLISH_PERIOD_LOOPS) {
+            return;
+        }
+        loopsSincePublish = 0;
+        publish();
+    }
+
+    private void publish() {
+        for (int id = 0; id < entryCount; id++) {
+            int count = sampleCounts[id];
+            if (count == 0) {
+                continue;
+            }
+            System.arraycopy(samples[id], 0, scratch, 0, count);
+            Arrays.sort(scratch, 0, count);
+            p50Entries[id].setDouble(scratch[(count - 1) / 2] / 1e6);
+            p99Entries[id].setDouble(scratch[(int) Math.ceil(count * 0.99) - 1] / 1e6);
+            maxEntries[id].setDouble(scratch[count - 1] / 1e6);
+            overrunEntries[id].setDouble(overruns[id]);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package frc.robot.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * Hands a pose from one writer thread to any number of readers without
+ * blocking either side. The writer takes the write stamp of a
+ * {@link StampedLock} (nobody ever holds a read lock, so it never waits),
+ * and readers use optimistic reads, retrying in the rare case a write
+ * happened while they were copying the fields. This is the seqlock pattern.
+ */
+public class SeqLockPose {
+    private final StampedLock lock = new StampedLock();
+
+    private double x;
+    private double y;
+    private double rotationRadians;
+    private double timestamp;
+
+    /**
+     * Publishes a new pose. Only call this from one thread at a time.
+     *
+     * @param x               X position in meters
+     * @param y               Y position in meters
+     * @param rotationRadians Heading in radians
+     * @param timestamp       FPGA timestamp the pose was measured at, in seconds
+     */
+    public void set(double x, double y, double rotationRadians, double timestamp) {
+        long stamp = lock.writeLock();
+        try {
+            this.x = x;
+            this.y = y;
+            this.rotationRadians = rotationRadians;
+            this.timestamp = timestamp;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Gets the latest pose. Never blocks. */
+    public Pose2d get() {
+        double readX;
+        double readY;
+        double readRotation;
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            readX = x;
+            readY = y;
+            readRotation = rotationRadians;
+            if (lock.validate(stamp)) {
+                break;
+            }
+            Thread.onSpinWait();
+        }
+        return new Pose2d(readX, readY, new Rotation2d(readRotation));
+    }
+
+    /**
+     * Gets the latest pose without allocating. Never blocks.
+     *
+     * @param out Filled with x and y in meters and the heading in radians
+     */
+    public void get(double[] out) {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            out[0] = x;
+            out[1] = y;
+            out[2] = rotationRadians;
+            if (lock.validate(stamp)) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /** Gets the FPGA timestamp of the latest pose. Never blocks. */
+    public double getTimestamp() {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            double readTimestamp = timestamp;
+            if (lock.validate(stamp)) {
+                return readTimestamp;
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
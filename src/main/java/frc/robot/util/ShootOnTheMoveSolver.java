@@ -0,0 +1,176 @@
+package frc.robot.util;
+
+import java.util.Map;
+import java.util.NavigableMap;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Works out where to aim and how hard to shoot while the robot is moving.
+ *
+ * <p>
+ * Cargo leaves the shooter with the robot's velocity on top of whatever the
+ * shooter gives it, so over the time of flight it drifts by velocity * time.
+ * Aiming at a virtual target, shifted from the real one by the opposite of
+ * that drift, cancels it out. The time of flight depends on the distance to
+ * the virtual target, which depends on the time of flight, so the two are
+ * solved for by going back and forth until the time of flight settles. This
+ * usually takes two or three tries.
+ *
+ * <p>
+ * The flywheel speed and hood angle are then looked up from the shot map at
+ * the virtual target's distance. Solving doesn't allocate, so it's fine to run
+ * every loop.
+ */
+public class ShootOnTheMoveSolver {
+    private final double targetX;
+    private final double targetY;
+    private final double[] tofDistances;
+    private final double[] tofSeconds;
+    private final double keyOffset;
+    private final double tolerance;
+    private final int maxIterations;
+
+    private double virtualX;
+    private double virtualY;
+    private double distance;
+    private double timeOfFlight;
+    private double heading;
+    private double headingRate;
+    private int iterations;
+    private final ShotMap.Shot shot = new ShotMap.Shot();
+
+    /**
+     * @param target           Where the cargo should end up on the field
+     * @param timeOfFlight     Seconds in the air, keyed by distance in meters
+     *                         from the robot to the target
+     * @param keyOffsetMeters  Added to the robot's distance to get the distance
+     *                         the shot map is keyed on, for when that's
+     *                         measured from the camera
+     * @param toleranceSeconds Stop once the time of flight changes by less than
+     *                         this
+     * @param maxIterations    Most tries before settling for the last answer
+     */
+    public ShootOnTheMoveSolver(Translation2d target, NavigableMap<Double, Double> timeOfFlight,
+            double keyOffsetMeters, double toleranceSeconds, int maxIterations) {
+        if (timeOfFlight.isEmpty()) {
+            throw new IllegalArgumentException("Time of flight table is empty");
+        }
+        this.targetX = target.getX();
+        this.targetY = target.getY();
+        this.tofDistances = new double[timeOfFlight.size()];
+        this.tofSeconds = new double[timeOfFlight.size()];
+        int i = 0;
+        for (Map.Entry<Double, Double> entry : timeOfFlight.entrySet()) {
+            tofDistances[i] = entry.getKey();
+            tofSeconds[i] = entry.getValue();
+            i++;
+        }
+        this.keyOffset = keyOffsetMeters;
+        this.tolerance = toleranceSeconds;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Solves for this loop.
+     *
+     * @param x       Robot x on the field, meters
+     * @param y       Robot y on the field, meters
+     * @param vx      Field relative x velocity, meters per second
+     * @param vy      Field relative y velocity, meters per second
+     * @param shotMap Flywheel speeds and hood angles to pick from
+     */
+    public void solve(double x, double y, double vx, double vy, ShotMap shotMap) {
+        double dx = targetX - x;
+        double dy = targetY - y;
+        double time = getTimeOfFlight(Math.hypot(dx, dy));
+
+        iterations = 0;
+        while (true) {
+            virtualX = targetX - vx * time;
+            virtualY = targetY - vy * time;
+            dx = virtualX - x;
+            dy = virtualY - y;
+            distance = Math.hypot(dx, dy);
+            double newTime = getTimeOfFlight(distance);
+            iterations++;
+            boolean settled = Math.abs(newTime - time) < tolerance;
+            time = newTime;
+            if (settled || iterations >= maxIterations) {
+                break;
+            }
+        }
+        timeOfFlight = time;
+
+        heading = Math.atan2(dy, dx);
+        // How fast the line to the virtual target turns as the robot moves
+        // past it, so the heading can be fed forward instead of chased
+        double distanceSquared = distance * distance;
+        headingRate = distanceSquared > 1e-6 ? (dy * vx - dx * vy) / distanceSquared : 0;
+
+        shotMap.lookup(distance + keyOffset, shot);
+    }
+
+    /**
+     * Time of flight for a distance in meters, linearly interpolated and
+     * clamped to the ends of the table.
+     */
+    public double getTimeOfFlight(double distanceMeters) {
+        int last = tofDistances.length - 1;
+        if (distanceMeters <= tofDistances[0]) {
+            return tofSeconds[0];
+        }
+        if (distanceMeters >= tofDistances[last]) {
+            return tofSeconds[last];
+        }
+        int i = 1;
+        while (tofDistances[i] < distanceMeters) {
+            i++;
+        }
+        return MathUtilities.interpolate(tofDistances[i - 1], tofDistances[i], tofSeconds[i - 1], tofSeconds[i],
+                distanceMeters);
+    }
+
+    /** Flywheel speed for the last solve, rpm. */
+    public double getRpm() {
+        return shot.rpm;
+    }
+
+    /** Hood angle for the last solve. */
+    public double getHoodAngle() {
+        return shot.hoodAngle;
+    }
+
+    /** Field relative heading to face the virtual target, radians. */
+    public double getHeadingRadians() {
+        return heading;
+    }
+
+    /** How fast the heading is changing, radians per second. */
+    public double getHeadingRate() {
+        return headingRate;
+    }
+
+    /** Distance from the robot to the virtual target, meters. */
+    public double getDistance() {
+        return distance;
+    }
+
+    /** Seconds the cargo will be in the air. */
+    public double getTimeOfFlight() {
+        return timeOfFlight;
+    }
+
+    public double getVirtualTargetX() {
+        return virtualX;
+    }
+
+    public double getVirtualTargetY() {
+        return virtualY;
+    }
+
+    /** How many tries the last solve took. */
+    public int getIterations() {
+        return iterations;
+    }
+}
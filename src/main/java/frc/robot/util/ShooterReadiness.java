@@ -0,0 +1,176 @@
+package frc.robot.util;
+
+/**
+ * Predicts when the shooter will be ready to shoot, so cargo can be fed early
+ * enough to reach the flywheel right as it gets there instead of after a
+ * fixed delay.
+ *
+ * <p>
+ * The flywheel prediction comes from its model, see
+ * {@link FlywheelController#predictTimeToReach(double, double, double)}. The
+ * hood is a position loop on the SparkMax with no model here, so its time is
+ * extrapolated from how fast it's been closing on its target.
+ *
+ * <p>
+ * It also keeps score against the old wait: a fixed delay, then a loose
+ * velocity threshold. Each shot logs how much sooner it was fed than that
+ * would have been, negative if it was later.
+ */
+public class ShooterReadiness {
+    private final double hoodTolerance;
+    private final double hoodRateTimeConstant;
+    private final double baselineDelay;
+    private final double baselineTolerance;
+
+    private double lastTime = Double.NaN;
+    private double lastHoodPosition = Double.NaN;
+    private double hoodRate = 0;
+
+    private double flywheelTimeToReady = Double.POSITIVE_INFINITY;
+    private double hoodTimeToReady = Double.POSITIVE_INFINITY;
+
+    // Timing of the shot being waited on, NaN when there isn't one
+    private double waitStart = Double.NaN;
+    private double readyTime = Double.NaN;
+    private double baselineTime = Double.NaN;
+
+    private double lastTimeSaved = Double.NaN;
+    private double totalTimeSaved = 0;
+    private int shotCount = 0;
+
+    /**
+     * @param hoodTolerance        How close the hood has to be to its target
+     * @param hoodRateTimeConstant Low pass filter on the hood's speed, seconds
+     * @param baselineDelay        Old fixed wait before checking speed, seconds
+     * @param baselineTolerance    Old flywheel error threshold
+     */
+    public ShooterReadiness(double hoodTolerance, double hoodRateTimeConstant, double baselineDelay,
+            double baselineTolerance) {
+        this.hoodTolerance = hoodTolerance;
+        this.hoodRateTimeConstant = hoodRateTimeConstant;
+        this.baselineDelay = baselineDelay;
+        this.baselineTolerance = baselineTolerance;
+    }
+
+    /**
+     * Call once a loop.
+     *
+     * @param time                Timestamp, seconds
+     * @param flywheelTimeToReady Predicted seconds until the flywheel is in
+     *                            tolerance, infinity if it's off or won't be
+     * @param flywheelError       Measured flywheel error, for the baseline
+     * @param hoodPosition        Measured hood position
+     * @param hoodTarget          Where the hood is going
+     */
+    public void update(double time, double flywheelTimeToReady, double flywheelError, double hoodPosition,
+            double hoodTarget) {
+        double dt = time - lastTime;
+        if (dt > 0) {
+            double rate = (hoodPosition - lastHoodPosition) / dt;
+            hoodRate += (rate - hoodRate) * dt / (hoodRateTimeConstant + dt);
+        }
+        lastTime = time;
+        lastHoodPosition = hoodPosition;
+
+        this.flywheelTimeToReady = flywheelTimeToReady;
+        this.hoodTimeToReady = timeToReach(hoodTarget - hoodPosition, hoodRate, hoodTolerance);
+
+        if (!Double.isNaN(waitStart) && Double.isNaN(baselineTime) && time - waitStart >= baselineDelay
+                && Math.abs(flywheelError) < baselineTolerance) {
+            baselineTime = time;
+            recordIfDone();
+        }
+    }
+
+    /**
+     * Seconds until an error is within tolerance, closing at a constant rate.
+     */
+    static double timeToReach(double error, double rate, double tolerance) {
+        double distance = Math.abs(error) - tolerance;
+        if (distance < 0) {
+            return 0;
+        }
+        // Rate is how fast the position moves, so it has to be the same sign
+        // as the error to be closing
+        double closing = Math.signum(error) * rate;
+        return closing > 0 ? distance / closing : Double.POSITIVE_INFINITY;
+    }
+
+    /** Predicted seconds until both the flywheel and hood are in tolerance. */
+    public double getTimeToReady() {
+        return Math.max(flywheelTimeToReady, hoodTimeToReady);
+    }
+
+    public double getFlywheelTimeToReady() {
+        return flywheelTimeToReady;
+    }
+
+    public double getHoodTimeToReady() {
+        return hoodTimeToReady;
+    }
+
+    /** Hood speed in position units per second, filtered. */
+    public double getHoodRate() {
+        return hoodRate;
+    }
+
+    /**
+     * Whether the shooter will be ready within some time, like how long cargo
+     * takes to reach the flywheel once it's fed.
+     */
+    public boolean isReadyWithin(double seconds) {
+        return getTimeToReady() <= seconds;
+    }
+
+    /** Marks the start of waiting for the shooter, before a shot. */
+    public void startWait(double time) {
+        waitStart = time;
+        readyTime = Double.NaN;
+        baselineTime = Double.NaN;
+    }
+
+    /**
+     * Marks when the wait ended and cargo was fed. Time saved is logged once
+     * the baseline would have fed too, which can be later.
+     */
+    public void finishWait(double time) {
+        if (Double.isNaN(waitStart)) {
+            return;
+        }
+        readyTime = time;
+        recordIfDone();
+    }
+
+    /**
+     * Forgets the wait if it ended without cargo being fed. A shot that was
+     * fed is still logged once the baseline catches up.
+     */
+    public void cancelWait() {
+        if (Double.isNaN(readyTime)) {
+            waitStart = Double.NaN;
+        }
+    }
+
+    private void recordIfDone() {
+        if (Double.isNaN(readyTime) || Double.isNaN(baselineTime)) {
+            return;
+        }
+        lastTimeSaved = baselineTime - readyTime;
+        totalTimeSaved += lastTimeSaved;
+        shotCount++;
+        waitStart = Double.NaN;
+    }
+
+    /** Seconds the last shot was fed before the baseline, NaN before any. */
+    public double getLastTimeSaved() {
+        return lastTimeSaved;
+    }
+
+    public double getTotalTimeSaved() {
+        return totalTimeSaved;
+    }
+
+    public int getShotCount() {
+        return shotCount;
+    }
+}
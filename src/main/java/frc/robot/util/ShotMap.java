@@ -0,0 +1,519 @@
+package frc.robot.util;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Table of flywheel speeds and hood angles keyed on how far away the hub is
+ * (whatever measurement the table was tuned against, see {@link #getKeyName()}).
+ *
+ * <p>
+ * Loaded once from a JSON file in the deploy directory, so tables can be
+ * swapped without recompiling. Instances never change after they're built,
+ * and lookups write into a caller owned {@link Shot}, so looking up a shot
+ * every loop doesn't allocate. Keys outside of the table are clamped to its
+ * ends.
+ *
+ * <p>
+ * File format:
+ *
+ * <pre>
+ * {
+ *     "key": "meters",
+ *     "interpolation": "linear" or "cubic",
+ *     "rpmOffset": -1000,
+ *     "noTarget": { "rpm": 3000, "hood": -5 },
+ *     "shots": [ { "key": 1.02, "rpm": 4000, "hood": -1 }, ... ],
+ *     "presets": [ { "name": "Low Goal", "rpm": 3000, "hood": -5 }, ... ]
+ * }
+ * </pre>
+ *
+ * rpmOffset is added to every shot in the table (but not the no target shot
+ * or presets), for shifting the whole table when the flywheel wears or the
+ * cargo changes. Presets are the fixed shots bound to operator buttons.
+ */
+public final class ShotMap {
+    public static final String DEFAULT_FILE = "shotmap.json";
+
+    public enum Interpolation {
+        LINEAR("linear"),
+        /** Monotone cubic (Fritsch-Carlson), smooth without overshooting. */
+        MONOTONE_CUBIC("cubic");
+
+        private final String jsonName;
+
+        Interpolation(String jsonName) {
+            this.jsonName = jsonName;
+        }
+
+        public String getJsonName() {
+            return jsonName;
+        }
+
+        public static Interpolation fromJsonName(String name) {
+            for (Interpolation interpolation : values()) {
+                if (interpolation.jsonName.equals(name)) {
+                    return interpolation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown interpolation " + name);
+        }
+    }
+
+    /** Mutable holder that lookups write into. */
+    public static final class Shot {
+        public double rpm;
+        public double hoodAngle;
+
+        public void set(double rpm, double hoodAngle) {
+            this.rpm = rpm;
+            this.hoodAngle = hoodAngle;
+        }
+    }
+
+    private final String keyName;
+    private final Interpolation interpolation;
+    private final double rpmOffset;
+    private final double noTargetRpm;
+    private final double noTargetHood;
+
+    private final double[] keys;
+    private final double[] rpms;
+    private final double[] hoods;
+    // Tangents for cubic interpolation, empty when linear
+    private final double[] rpmTangents;
+    private final double[] hoodTangents;
+
+    private final String[] presetNames;
+    private final double[] presetRpms;
+    private final double[] presetHoods;
+
+    /**
+     * Shot map without presets.
+     *
+     * @see #ShotMap(String, Interpolation, double, double, double, double[],
+     *      double[], double[], String[], double[], double[])
+     */
+    public ShotMap(String keyName, Interpolation interpolation, double rpmOffset, double noTargetRpm,
+            double noTargetHood, double[] keys, double[] rpms, double[] hoods) {
+        this(keyName, interpolation, rpmOffset, noTargetRpm, noTargetHood, keys, rpms, hoods,
+                new String[0], new double[0], new double[0]);
+    }
+
+    /**
+     * @param keyName       What the keys are measured in, just for reference
+     * @param interpolation How to interpolate between points
+     * @param rpmOffset     Added to every shot from the table
+     * @param noTargetRpm   Flywheel speed to use without a target
+     * @param noTargetHood  Hood angle to use without a target
+     * @param keys          Keys, strictly increasing
+     * @param rpms          Flywheel speed at each key
+     * @param hoods         Hood angle at each key
+     * @param presetNames   Names of the preset shots, unique
+     * @param presetRpms    Flywheel speed for each preset
+     * @param presetHoods   Hood angle for each preset
+     * @throws IllegalArgumentException if the table is malformed
+     */
+    public ShotMap(String keyName, Interpolation interpolation, double rpmOffset, double noTargetRpm,
+            double noTargetHood, double[] keys, double[] rpms, double[] hoods,
+            String[] presetNames, double[] presetRpms, double[] presetHoods) {
+        if (keys.length == 0 || keys.length != rpms.length || keys.length != hoods.length) {
+            throw new IllegalArgumentException("Shot map needs the same, nonzero, number of keys, rpms and hoods");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (!Double.isFinite(keys[i]) || !Double.isFinite(rpms[i]) || !Double.isFinite(hoods[i])) {
+                throw new IllegalArgumentException("Shot map point " + i + " isn't a finite number");
+            }
+            if (i > 0 && keys[i] <= keys[i - 1]) {
+                throw new IllegalArgumentException("Shot map keys must be strictly increasing, " + keys[i - 1]
+                        + " is followed by " + keys[i]);
+            }
+        }
+        if (!Double.isFinite(rpmOffset) || !Double.isFinite(noTargetRpm) || !Double.isFinite(noTargetHood)) {
+            throw new IllegalArgumentException("Shot map offsets and no target shot must be finite numbers");
+        }
+        if (presetNames.length != presetRpms.length || presetNames.length != presetHoods.length) {
+            throw new IllegalArgumentException("Shot map needs the same number of preset names, rpms and hoods");
+        }
+        for (int i = 0; i < presetNames.length; i++) {
+            if (presetNames[i] == null || presetNames[i].isEmpty()) {
+                throw new IllegalArgumentException("Shot map preset " + i + " has no name");
+            }
+            if (!Double.isFinite(presetRpms[i]) || !Double.isFinite(presetHoods[i])) {
+                throw new IllegalArgumentException("Shot map preset " + presetNames[i] + " isn't a finite number");
+            }
+            for (int j = 0; j < i; j++) {
+                if (presetNames[j].equals(presetNames[i])) {
+                    throw new IllegalArgumentException("Shot map has two presets named " + presetNames[i]);
+                }
+            }
+        }
+
+        this.keyName = keyName;
+        this.interpolation = interpolation;
+        this.rpmOffset = rpmOffset;
+        this.noTargetRpm = noTargetRpm;
+        this.noTargetHood = noTargetHood;
+        this.keys = keys.clone();
+        this.rpms = rpms.clone();
+        this.hoods = hoods.clone();
+        if (interpolation == Interpolation.MONOTONE_CUBIC) {
+            this.rpmTangents = monotoneTangents(this.keys, this.rpms);
+            this.hoodTangents = monotoneTangents(this.keys, this.hoods);
+        } else {
+            this.rpmTangents = new double[0];
+            this.hoodTangents = new double[0];
+        }
+        this.presetNames = presetNames.clone();
+        this.presetRpms = presetRpms.clone();
+        this.presetHoods = presetHoods.clone();
+    }
+
+    /**
+     * Looks up the shot for a key.
+     *
+     * @param key Distance measurement, in the same units as the table
+     * @param out Holder the shot is written into
+     */
+    public void lookup(double key, Shot out) {
+        int last = keys.length - 1;
+        if (key <= keys[0]) {
+            out.set(rpms[0] + rpmOffset, hoods[0]);
+            return;
+        }
+        if (key >= keys[last]) {
+            out.set(rpms[last] + rpmOffset, hoods[last]);
+            return;
+        }
+
+        // Find the first key above the one we're looking for
+        int upper = Arrays.binarySearch(keys, key);
+        if (upper >= 0) {
+            out.set(rpms[upper] + rpmOffset, hoods[upper]);
+            return;
+        }
+        upper = -upper - 1;
+        int lower = upper - 1;
+
+        double width = keys[upper] - keys[lower];
+        double t = (key - keys[lower]) / width;
+        if (interpolation == Interpolation.MONOTONE_CUBIC) {
+            out.set(
+                    hermite(rpms[lower], rpms[upper], rpmTangents[lower], rpmTangents[upper], width, t) + rpmOffset,
+                    hermite(hoods[lower], hoods[upper], hoodTangents[lower], hoodTangents[upper], width, t));
+        } else {
+            out.set(
+                    rpms[lower] + (rpms[upper] - rpms[lower]) * t + rpmOffset,
+                    hoods[lower] + (hoods[upper] - hoods[lower]) * t);
+        }
+    }
+
+    /** Writes the shot to use when there's no target. */
+    public void noTarget(Shot out) {
+        out.set(noTargetRpm, noTargetHood);
+    }
+
+    /**
+     * Writes a preset shot. Falls back to the no target shot if there's no
+     * preset with that name, so a bad edit can't leave a button without a shot.
+     *
+     * @param name Preset name
+     * @param out  Holder the shot is written into
+     * @return Whether the preset exists
+     */
+    public boolean preset(String name, Shot out) {
+        for (int i = 0; i < presetNames.length; i++) {
+            if (presetNames[i].equals(name)) {
+                out.set(presetRpms[i], presetHoods[i]);
+                return true;
+            }
+        }
+        noTarget(out);
+        return false;
+    }
+
+    /** Flywheel speed of a preset, or the no target shot's if it doesn't exist. */
+    public double getPresetRpm(String name) {
+        for (int i = 0; i < presetNames.length; i++) {
+            if (presetNames[i].equals(name)) {
+                return presetRpms[i];
+            }
+        }
+        return noTargetRpm;
+    }
+
+    /** Hood angle of a preset, or the no target shot's if it doesn't exist. */
+    public double getPresetHood(String name) {
+        for (int i = 0; i < presetNames.length; i++) {
+            if (presetNames[i].equals(name)) {
+                return presetHoods[i];
+            }
+        }
+        return noTargetHood;
+    }
+
+    public String getKeyName() {
+        return keyName;
+    }
+
+    public Interpolation getInterpolation() {
+        return interpolation;
+    }
+
+    public double getRpmOffset() {
+        return rpmOffset;
+    }
+
+    public double getNoTargetRpm() {
+        return noTargetRpm;
+    }
+
+    public double getNoTargetHood() {
+        return noTargetHood;
+    }
+
+    /** Copy of the keys. */
+    public double[] getKeys() {
+        return keys.clone();
+    }
+
+    /** Copy of the flywheel speeds, without rpmOffset. */
+    public double[] getRpms() {
+        return rpms.clone();
+    }
+
+    /** Copy of the hood angles. */
+    public double[] getHoods() {
+        return hoods.clone();
+    }
+
+    /** Copy of the preset names. */
+    public String[] getPresetNames() {
+        return presetNames.clone();
+    }
+
+    /** Copy of the preset flywheel speeds. */
+    public double[] getPresetRpms() {
+        return presetRpms.clone();
+    }
+
+    /** Copy of the preset hood angles. */
+    public double[] getPresetHoods() {
+        return presetHoods.clone();
+    }
+
+    /**
+     * Loads the default shot map from the deploy directory. If it can't be
+     * loaded, reports an error and returns a map that always uses the no target
+     * shot, so the robot still runs.
+     */
+    public static ShotMap loadFromDeploy() {
+        File file = new File(Filesystem.getDeployDirectory(), DEFAULT_FILE);
+        try {
+            return load(file);
+        } catch (IOException | IllegalArgumentException e) {
+            DriverStation.reportError("Couldn't load shot map " + file + ": " + e.getMessage(), false);
+            return new ShotMap("none", Interpolation.LINEAR, 0, 3000, -5,
+                    new double[] { 0 }, new double[] { 3000 }, new double[] { -5 });
+        }
+    }
+
+    /**
+     * Loads a shot map from a JSON file.
+     *
+     * @throws IOException              if the file can't be read or parsed
+     * @throws IllegalArgumentException if the table is malformed
+     */
+    public static ShotMap load(File file) throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return fromJson((JSONObject) new JSONParser().parse(reader));
+        } catch (ParseException | ClassCastException e) {
+            throw new IOException("Invalid shot map JSON", e);
+        }
+    }
+
+    /**
+     * Builds a shot map from parsed JSON.
+     *
+     * @throws IllegalArgumentException if the table is missing fields or is
+     *                                  malformed
+     */
+    public static ShotMap fromJson(JSONObject json) {
+        try {
+            JSONObject noTarget = (JSONObject) json.get("noTarget");
+            JSONArray shots = (JSONArray) json.get("shots");
+            double[] keys = new double[shots.size()];
+            double[] rpms = new double[shots.size()];
+            double[] hoods = new double[shots.size()];
+            for (int i = 0; i < shots.size(); i++) {
+                JSONObject shot = (JSONObject) shots.get(i);
+                keys[i] = number(shot, "key");
+                rpms[i] = number(shot, "rpm");
+                hoods[i] = number(shot, "hood");
+            }
+            JSONArray presets = json.containsKey("presets") ? (JSONArray) json.get("presets") : new JSONArray();
+            String[] presetNames = new String[presets.size()];
+            double[] presetRpms = new double[presets.size()];
+            double[] presetHoods = new double[presets.size()];
+            for (int i = 0; i < presets.size(); i++) {
+                JSONObject preset = (JSONObject) presets.get(i);
+                presetNames[i] = (String) preset.get("name");
+                presetRpms[i] = number(preset, "rpm");
+                presetHoods[i] = number(preset, "hood");
+            }
+            Object interpolation = json.get("interpolation");
+            Object keyName = json.get("key");
+            return new ShotMap(
+                    keyName == null ? "" : keyName.toString(),
+                    interpolation == null ? Interpolation.LINEAR : Interpolation.fromJsonName(interpolation.toString()),
+                    json.containsKey("rpmOffset") ? number(json, "rpmOffset") : 0,
+                    number(noTarget, "rpm"),
+                    number(noTarget, "hood"),
+                    keys, rpms, hoods,
+                    presetNames, presetRpms, presetHoods);
+        } catch (ClassCastException | NullPointerException e) {
+            throw new IllegalArgumentException("Shot map JSON is missing fields or has the wrong types", e);
+        }
+    }
+
+    /** Converts this map back into the JSON format it's loaded from. */
+    @SuppressWarnings("unchecked")
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("key", keyName);
+        json.put("interpolation", interpolation.getJsonName());
+        json.put("rpmOffset", rpmOffset);
+
+        JSONObject noTarget = new JSONObject();
+        noTarget.put("rpm", noTargetRpm);
+        noTarget.put("hood", noTargetHood);
+        json.put("noTarget", noTarget);
+
+        JSONArray shots = new JSONArray();
+        for (int i = 0; i < keys.length; i++) {
+            JSONObject shot = new JSONObject();
+            shot.put("key", keys[i]);
+            shot.put("rpm", rpms[i]);
+            shot.put("hood", hoods[i]);
+            shots.add(shot);
+        }
+        json.put("shots", shots);
+
+        JSONArray presets = new JSONArray();
+        for (int i = 0; i < presetNames.length; i++) {
+            JSONObject preset = new JSONObject();
+            preset.put("name", presetNames[i]);
+            preset.put("rpm", presetRpms[i]);
+            preset.put("hood", presetHoods[i]);
+            presets.add(preset);
+        }
+        json.put("presets", presets);
+        return json;
+    }
+
+    /**
+     * Same as {@link #toJson()}, laid out one shot per line like the file in the
+     * repo so saved tables diff cleanly.
+     */
+    public String toPrettyJson() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\n");
+        builder.append("    \"key\": ").append(quote(keyName)).append(",\n");
+        builder.append("    \"interpolation\": ").append(quote(interpolation.getJsonName())).append(",\n");
+        builder.append("    \"rpmOffset\": ").append(rpmOffset).append(",\n");
+        builder.append("    \"noTarget\": { \"rpm\": ").append(noTargetRpm)
+                .append(", \"hood\": ").append(noTargetHood).append(" },\n");
+        builder.append("    \"shots\": [\n");
+        for (int i = 0; i < keys.length; i++) {
+            builder.append("        { \"key\": ").append(keys[i])
+                    .append(", \"rpm\": ").append(rpms[i])
+                    .append(", \"hood\": ").append(hoods[i])
+                    .append(i < keys.length - 1 ? " },\n" : " }\n");
+        }
+        builder.append("    ],\n");
+        builder.append("    \"presets\": [\n");
+        for (int i = 0; i < presetNames.length; i++) {
+            builder.append("        { \"name\": ").append(quote(presetNames[i]))
+                    .append(", \"rpm\": ").append(presetRpms[i])
+                    .append(", \"hood\": ").append(presetHoods[i])
+                    .append(i < presetNames.length - 1 ? " },\n" : " }\n");
+        }
+        builder.append("    ]\n");
+        builder.append("}\n");
+        return builder.toString();
+    }
+
+    private static String quote(String value) {
+        return "\"" + JSONObject.escape(value) + "\"";
+    }
+
+    private static double number(JSONObject json, String field) {
+        Object value = json.get(field);
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException("Shot map field " + field + " should be a number, got " + value);
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * Fritsch-Carlson tangents, which keep the curve from overshooting between
+     * points, so a flat spot in the table stays flat.
+     */
+    private static double[] monotoneTangents(double[] x, double[] y) {
+        int n = x.length;
+        double[] tangents = new double[n];
+        if (n < 2) {
+            return tangents;
+        }
+        double[] secants = new double[n - 1];
+        for (int i = 0; i < n - 1; i++) {
+            secants[i] = (y[i + 1] - y[i]) / (x[i + 1] - x[i]);
+        }
+        tangents[0] = secants[0];
+        tangents[n - 1] = secants[n - 2];
+        for (int i = 1; i < n - 1; i++) {
+            if (secants[i - 1] * secants[i] <= 0) {
+                tangents[i] = 0;
+            } else {
+                tangents[i] = (secants[i - 1] + secants[i]) / 2;
+            }
+        }
+        for (int i = 0; i < n - 1; i++) {
+            if (secants[i] == 0) {
+                tangents[i] = 0;
+                tangents[i + 1] = 0;
+                continue;
+            }
+            double alpha = tangents[i] / secants[i];
+            double beta = tangents[i + 1] / secants[i];
+            double magnitude = alpha * alpha + beta * beta;
+            if (magnitude > 9) {
+                double tau = 3 / Math.sqrt(magnitude);
+                tangents[i] = tau * alpha * secants[i];
+                tangents[i + 1] = tau * beta * secants[i];
+            }
+        }
+        return tangents;
+    }
+
+    /** Cubic Hermite between two points, t from 0 to 1 across an interval of width. */
+    private static double hermite(double y0, double y1, double m0, double m1, double width, double t) {
+        double t2 = t * t;
+        double t3 = t2 * t;
+        return (2 * t3 - 3 * t2 + 1) * y0
+                + (t3 - 2 * t2 + t) * width * m0
+                + (-2 * t3 + 3 * t2) * y1
+                + (t3 - t2) * width * m1;
+    }
+}
@@ -0,0 +1,152 @@
+package frc.robot.util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.EntryNotification;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Holds the shot map the robot is using, and lets it be edited live over
+ * NetworkTables under "ShotMap".
+ *
+ * <p>
+ * The table and presets are published as arrays. Edit them from the
+ * dashboard, then set "Apply" to true. The edits are validated and, if they're
+ * good, built into a new {@link ShotMap} and swapped in with a single atomic
+ * reference write. The control loop just calls {@link #get()}, so it never
+ * waits on a lock or sees a half edited table. Setting "Save" to true writes
+ * the map in use back to the deploy directory. "Status" says how the last
+ * apply or save went.
+ *
+ * <p>
+ * The deploy directory gets overwritten on the next code deploy, so copy a
+ * saved file back into src/main/deploy before deploying again.
+ */
+public final class ShotMapTuner {
+    private static ShotMapTuner instance;
+
+    private final AtomicReference<ShotMap> current;
+    private final File file = new File(Filesystem.getDeployDirectory(), ShotMap.DEFAULT_FILE);
+
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable("ShotMap");
+    private final NetworkTableEntry keysEntry = table.getEntry("Keys");
+    private final NetworkTableEntry rpmsEntry = table.getEntry("Rpms");
+    private final NetworkTableEntry hoodsEntry = table.getEntry("Hoods");
+    private final NetworkTableEntry rpmOffsetEntry = table.getEntry("RpmOffset");
+    private final NetworkTableEntry interpolationEntry = table.getEntry("Interpolation");
+    private final NetworkTableEntry noTargetRpmEntry = table.getEntry("NoTargetRpm");
+    private final NetworkTableEntry noTargetHoodEntry = table.getEntry("NoTargetHood");
+    private final NetworkTableEntry presetNamesEntry = table.getEntry("PresetNames");
+    private final NetworkTableEntry presetRpmsEntry = table.getEntry("PresetRpms");
+    private final NetworkTableEntry presetHoodsEntry = table.getEntry("PresetHoods");
+    private final NetworkTableEntry applyEntry = table.getEntry("Apply");
+    private final NetworkTableEntry saveEntry = table.getEntry("Save");
+    private final NetworkTableEntry statusEntry = table.getEntry("Status");
+
+    private ShotMapTuner() {
+        current = new AtomicReference<>(ShotMap.loadFromDeploy());
+        publish(current.get());
+        applyEntry.setBoolean(false);
+        saveEntry.setBoolean(false);
+        statusEntry.setString("Loaded " + file.getName());
+
+        // Listeners run on the NetworkTables thread, not the robot loop
+        int flags = EntryListenerFlags.kNew | EntryListenerFlags.kUpdate | EntryListenerFlags.kLocal;
+        applyEntry.addListener(this::onApply, flags);
+        saveEntry.addListener(this::onSave, flags);
+    }
+
+    public static synchronized ShotMapTuner getInstance() {
+        if (instance == null) {
+            instance = new ShotMapTuner();
+        }
+        return instance;
+    }
+
+    /** The shot map to use right now. Never blocks. */
+    public ShotMap get() {
+        return current.get();
+    }
+
+    /**
+     * Validates the values on NetworkTables and, if they're good, swaps them in.
+     *
+     * @return Whether the new map was applied
+     */
+    public synchronized boolean apply() {
+        ShotMap map;
+        try {
+            map = new ShotMap(
+                    current.get().getKeyName(),
+                    ShotMap.Interpolation.fromJsonName(interpolationEntry.getString("")),
+                    rpmOffsetEntry.getDouble(Double.NaN),
+                    noTargetRpmEntry.getDouble(Double.NaN),
+                    noTargetHoodEntry.getDouble(Double.NaN),
+                    keysEntry.getDoubleArray(new double[0]),
+                    rpmsEntry.getDoubleArray(new double[0]),
+                    hoodsEntry.getDoubleArray(new double[0]),
+                    presetNamesEntry.getStringArray(new String[0]),
+                    presetRpmsEntry.getDoubleArray(new double[0]),
+                    presetHoodsEntry.getDoubleArray(new double[0]));
+        } catch (IllegalArgumentException e) {
+            statusEntry.setString("Not applied: " + e.getMessage());
+            return false;
+        }
+        current.set(map);
+        statusEntry.setString("Applied");
+        return true;
+    }
+
+    /**
+     * Writes the shot map in use to the deploy directory.
+     *
+     * @return Whether it was saved
+     */
+    public synchronized boolean save() {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(current.get().toPrettyJson());
+        } catch (IOException e) {
+            statusEntry.setString("Not saved: " + e.getMessage());
+            DriverStation.reportError("Couldn't save shot map " + file + ": " + e.getMessage(), false);
+            return false;
+        }
+        statusEntry.setString("Saved to " + file + ", copy it into src/main/deploy before deploying");
+        return true;
+    }
+
+    private void onApply(EntryNotification notification) {
+        if (notification.value.getBoolean()) {
+            apply();
+            applyEntry.setBoolean(false);
+        }
+    }
+
+    private void onSave(EntryNotification notification) {
+        if (notification.value.getBoolean()) {
+            save();
+            saveEntry.setBoolean(false);
+        }
+    }
+
+    private void publish(ShotMap map) {
+        keysEntry.setDoubleArray(map.getKeys());
+        rpmsEntry.setDoubleArray(map.getRpms());
+        hoodsEntry.setDoubleArray(map.getHoods());
+        rpmOffsetEntry.setDouble(map.getRpmOffset());
+        interpolationEntry.setString(map.getInterpolation().getJsonName());
+        noTargetRpmEntry.setDouble(map.getNoTargetRpm());
+        noTargetHoodEntry.setDouble(map.getNoTargetHood());
+        presetNamesEntry.setStringArray(map.getPresetNames());
+        presetRpmsEntry.setDoubleArray(map.getPresetRpms());
+        presetHoodsEntry.setDoubleArray(map.getPresetHoods());
+    }
+}
@@ -0,0 +1,107 @@
+package frc.robot.util;
+
+/**
+ * Swerve kinematics for our four module layout, working on primitive arrays
+ * so nothing is allocated when driving or running odometry. Gives the same
+ * results as WPILib's SwerveDriveKinematics with the modules in the same
+ * order (front left, front right, back left, back right).
+ *
+ * <p>
+ * Because the modules sit symmetrically around the center of the robot, the
+ * least squares forward kinematics that WPILib solves with a pseudo-inverse
+ * reduce to a few sums.
+ */
+public class SwerveKinematics {
+    public static final int MODULE_COUNT = 4;
+
+    private final double[] moduleX = new double[MODULE_COUNT];
+    private final double[] moduleY = new double[MODULE_COUNT];
+    private final double radiusSquaredSum;
+
+    /**
+     * @param xSpacingMeters Distance between the front and back modules
+     * @param ySpacingMeters Distance between the left and right modules
+     */
+    public SwerveKinematics(double xSpacingMeters, double ySpacingMeters) {
+        double halfX = xSpacingMeters / 2.0;
+        double halfY = ySpacingMeters / 2.0;
+        double[] signX = { 1, 1, -1, -1 };
+        double[] signY = { 1, -1, 1, -1 };
+        double sum = 0;
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            moduleX[i] = signX[i] * halfX;
+            moduleY[i] = signY[i] * halfY;
+            sum += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+        }
+        radiusSquaredSum = sum;
+    }
+
+    /**
+     * Inverse kinematics, robot relative chassis speeds to module states. When
+     * the robot is commanded to stop, the speeds are zeroed and the angles are
+     * left alone, so the modules don't snap back to 0 degrees.
+     *
+     * @param vx     Forward velocity, meters per second
+     * @param vy     Left velocity, meters per second
+     * @param omega  Counterclockwise angular velocity, radians per second
+     * @param speeds Output, module speeds in meters per second
+     * @param angles Output, module angles in radians. Should hold the previous
+     *               angles on the way in.
+     */
+    public void toModuleStates(double vx, double vy, double omega, double[] speeds, double[] angles) {
+        if (vx == 0 && vy == 0 && omega == 0) {
+            for (int i = 0; i < MODULE_COUNT; i++) {
+                speeds[i] = 0;
+            }
+            return;
+        }
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            double moduleVx = vx - omega * moduleY[i];
+            double moduleVy = vy + omega * moduleX[i];
+            speeds[i] = Math.hypot(moduleVx, moduleVy);
+            angles[i] = Math.atan2(moduleVy, moduleVx);
+        }
+    }
+
+    /**
+     * Scales the module speeds down so none of them go faster than a module can,
+     * while keeping their ratios the same.
+     *
+     * @param speeds         Module speeds, modified in place
+     * @param maxSpeedMeters Fastest a module can go
+     */
+    public static void desaturate(double[] speeds, double maxSpeedMeters) {
+        double realMax = 0;
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            realMax = Math.max(realMax, Math.abs(speeds[i]));
+        }
+        if (realMax > maxSpeedMeters) {
+            for (int i = 0; i < MODULE_COUNT; i++) {
+                speeds[i] = speeds[i] / realMax * maxSpeedMeters;
+            }
+        }
+    }
+
+    /**
+     * Forward kinematics, module states to robot relative chassis speeds.
+     *
+     * @param speeds Module speeds, meters per second
+     * @param angles Module angles, radians
+     * @param out    Output, {vx, vy, omega}
+     */
+    public void toChassisSpeeds(double[] speeds, double[] angles, double[] out) {
+        double sumVx = 0;
+        double sumVy = 0;
+        double sumOmega = 0;
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            double moduleVx = speeds[i] * Math.cos(angles[i]);
+            double moduleVy = speeds[i] * Math.sin(angles[i]);
+            sumVx += moduleVx;
+            sumVy += moduleVy;
+            sumOmega += moduleX[i] * moduleVy - moduleY[i] * moduleVx;
+        }
+        out[0] = sumVx / MODULE_COUNT;
+        out[1] = sumVy / MODULE_COUNT;
+        out[2] = sumOmega / radiusSquaredSum;
+    }
+}
@@ -0,0 +1,278 @@
+package frc.robot.util;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Central registry for dashboard values. Subsystems register a supplier for
+ * each key once, and a low priority background thread samples them at the
+ * rate given for that key and only publishes values that changed. This keeps
+ * the main loop free of SmartDashboard calls.
+ *
+ * <p>
+ * Values are published into the SmartDashboard table, so the keys show up in
+ * the same place they always have. The registry also estimates how many bytes
+ * per second it's pushing through NetworkTables and publishes that under
+ * "Telemetry/" so we can keep an eye on it against the FMS bandwidth limit.
+ */
+public final class Telemetry {
+    /** How often the background thread wakes up to check for due channels. */
+    private static final double TICK_RATE_HZ = 100;
+    /** Rough size of a NetworkTables value update, not including the value. */
+    private static final int UPDATE_OVERHEAD_BYTES = 6;
+    private static final int DOUBLE_BYTES = 8;
+    private static final int BOOLEAN_BYTES = 1;
+    /**
+     * Bandwidth we allow ourselves before warning. The FMS caps the whole robot
+     * at 4 Mbit/s, telemetry should stay well below that.
+     */
+    private static final double BANDWIDTH_BUDGET_BYTES_PER_SECOND = 50_000;
+
+    private static Telemetry instance;
+
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+    private final NetworkTableEntry bytesPerSecondEntry = table.getEntry("Telemetry/BytesPerSecond");
+    private final NetworkTableEntry updatesPerSecondEntry = table.getEntry("Telemetry/UpdatesPerSecond");
+    private final NetworkTableEntry overBudgetEntry = table.getEntry("Telemetry/OverBudget");
+
+    private volatile Channel[] channels = new Channel[0];
+    private Thread thread;
+
+    private long bytesThisWindow = 0;
+    private long updatesThisWindow = 0;
+    private long windowStart = System.nanoTime();
+    private boolean warnedOverBudget = false;
+
+    private Telemetry() {
+    }
+
+    public static synchronized Telemetry getInstance() {
+        if (instance == null) {
+            instance = new Telemetry();
+        }
+        return instance;
+    }
+
+    /**
+     * Publishes a number.
+     *
+     * @param key      SmartDashboard key
+     * @param rateHz   How often to sample the supplier
+     * @param supplier Value to publish
+     */
+    public void addDouble(String key, double rateHz, DoubleSupplier supplier) {
+        add(new DoubleChannel(key, rateHz, table.getEntry(key), supplier));
+    }
+
+    /**
+     * Publishes a boolean.
+     *
+     * @param key      SmartDashboard key
+     * @param rateHz   How often to sample the supplier
+     * @param supplier Value to publish
+     */
+    public void addBoolean(String key, double rateHz, BooleanSupplier supplier) {
+        add(new BooleanChannel(key, rateHz, table.getEntry(key), supplier));
+    }
+
+    /**
+     * Runs a custom publisher, for things like Field2d that handle their own
+     * NetworkTables entries.
+     *
+     * @param name           Unique name for the publisher
+     * @param rateHz         How often to run it
+     * @param estimatedBytes Rough number of bytes each run sends, for bandwidth
+     *                       tracking
+     * @param publisher      Code that publishes the value
+     */
+    public void addPublisher(String name, double rateHz, int estimatedBytes, Runnable publisher) {
+        add(new RunnableChannel(name, rateHz, estimatedBytes, publisher));
+    }
+
+    /**
+     * Registering a key that already exists replaces it, so recreating a
+     * subsystem (like in the unit tests) doesn't leave stale suppliers behind.
+     */
+    private synchronized void add(Channel channel) {
+        Channel[] current = channels;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].key.equals(channel.key)) {
+                Channel[] replaced = current.clone();
+                replaced[i] = channel;
+                channels = replaced;
+                return;
+            }
+        }
+        Channel[] grown = new Channel[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = channel;
+        channels = grown;
+    }
+
+    /** Starts the background publishing thread. Safe to call more than once. */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this::run, "Telemetry");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Samples every channel immediately, ignoring their rates. Mostly useful for
+     * tests, where the background thread isn't running.
+     */
+    public synchronized void flush() {
+        long now = System.nanoTime();
+        for (Channel channel : channels) {
+            publish(channel, now);
+        }
+    }
+
+    private void run() {
+        long tickNanos = (long) (1e9 / TICK_RATE_HZ);
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            synchronized (this) {
+                for (Channel channel : channels) {
+                    if (now >= channel.nextPublish) {
+                        publish(channel, now);
+                    }
+                }
+                updateBandwidth(now);
+            }
+            long sleepNanos = tickNanos - (System.nanoTime() - now);
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void publish(Channel channel, long now) {
+        channel.nextPublish = now + channel.periodNanos;
+        int bytes;
+        try {
+            bytes = channel.sample();
+        } catch (RuntimeException e) {
+            // A bad supplier shouldn't take down the rest of the dashboard
+            return;
+        }
+        if (bytes > 0) {
+            bytesThisWindow += bytes;
+            updatesThisWindow++;
+        }
+    }
+
+    private void updateBandwidth(long now) {
+        double elapsed = (now - windowStart) / 1e9;
+        if (elapsed < 1.0) {
+            return;
+        }
+        double bytesPerSecond = bytesThisWindow / elapsed;
+        bytesPerSecondEntry.setDouble(bytesPerSecond);
+        updatesPerSecondEntry.setDouble(updatesThisWindow / elapsed);
+        boolean overBudget = bytesPerSecond > BANDWIDTH_BUDGET_BYTES_PER_SECOND;
+        overBudgetEntry.setBoolean(overBudget);
+        if (overBudget && !warnedOverBudget) {
+            DriverStation.reportWarning("Telemetry is using " + (int) bytesPerSecond + " bytes/s", false);
+        }
+        warnedOverBudget = overBudget;
+        bytesThisWindow = 0;
+        updatesThisWindow = 0;
+        windowStart = now;
+    }
+
+    private abstract static class Channel {
+        final String key;
+        final long periodNanos;
+        long nextPublish = 0;
+
+        Channel(String key, double rateHz) {
+            this.key = key;
+            this.periodNanos = (long) (1e9 / rateHz);
+        }
+
+        /**
+         * Samples the value and publishes it if needed.
+         *
+         * @return Estimated bytes sent, 0 if nothing was published
+         */
+        abstract int sample();
+    }
+
+    private static final class DoubleChannel extends Channel {
+        private final NetworkTableEntry entry;
+        private final DoubleSupplier supplier;
+        private double lastValue = Double.NaN;
+
+        DoubleChannel(String key, double rateHz, NetworkTableEntry entry, DoubleSupplier supplier) {
+            super(key, rateHz);
+            this.entry = entry;
+            this.supplier = supplier;
+        }
+
+        @Override
+        int sample() {
+            double value = supplier.getAsDouble();
+            if (Double.doubleToLongBits(value) == Double.doubleToLongBits(lastValue)) {
+                return 0;
+            }
+            lastValue = value;
+            entry.setDouble(value);
+            return UPDATE_OVERHEAD_BYTES + DOUBLE_BYTES;
+        }
+    }
+
+    private static final class BooleanChannel extends Channel {
+        private final NetworkTableEntry entry;
+        private final BooleanSupplier supplier;
+        private boolean hasPublished = false;
+        private boolean lastValue;
+
+        BooleanChannel(String key, double rateHz, NetworkTableEntry entry, BooleanSupplier supplier) {
+            super(key, rateHz);
+            this.entry = entry;
+            this.supplier = supplier;
+        }
+
+        @Override
+        int sample() {
+            boolean value = supplier.getAsBoolean();
+            if (hasPublished && value == lastValue) {
+                return 0;
+            }
+            hasPublished = true;
+            lastValue = value;
+            entry.setBoolean(value);
+            return UPDATE_OVERHEAD_BYTES + BOOLEAN_BYTES;
+        }
+    }
+
+    private static final class RunnableChannel extends Channel {
+        private final int estimatedBytes;
+        private final Runnable publisher;
+
+        RunnableChannel(String key, double rateHz, int estimatedBytes, Runnable publisher) {
+            super(key, rateHz);
+            this.estimatedBytes = estimatedBytes;
+            this.publisher = publisher;
+        }
+
+        @Override
+        int sample() {
+            publisher.run();
+            return estimatedBytes;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package frc.robot.util;
+
+/**
+ * Angle math for a turret that can turn more than a full circle, with spots
+ * it isn't allowed to pass through. All angles are in degrees and unwrapped,
+ * so 370 and 10 point the same way but are different turret positions.
+ */
+public class TurretAngles {
+
+    /**
+     * The lowest angle the turret can reach from where it is without going
+     * below the soft limit or through a keep out zone.
+     *
+     * @param current        Current turret angle
+     * @param min            Reverse soft limit
+     * @param max            Forward soft limit
+     * @param keepOutCenters Centers of the keep out zones, each repeats every
+     *                       full turn
+     * @param keepOutWidth   Width of each keep out zone
+     */
+    public static double lowerBound(double current, double min, double max, double[] keepOutCenters,
+            double keepOutWidth) {
+        // Past a soft limit shouldn't happen, but if it does, head back in
+        current = Math.max(min, Math.min(max, current));
+        double bound = min;
+        for (double center : keepOutCenters) {
+            if (isInside(current, center, keepOutWidth)) {
+                // Let the turret back out of a zone it's already in
+                continue;
+            }
+            bound = Math.max(bound, nearestBelow(center + keepOutWidth / 2, current));
+        }
+        return bound;
+    }
+
+    /**
+     * The highest angle the turret can reach from where it is, see
+     * {@link #lowerBound(double, double, double, double[], double)}.
+     */
+    public static double upperBound(double current, double min, double max, double[] keepOutCenters,
+            double keepOutWidth) {
+        current = Math.max(min, Math.min(max, current));
+        double bound = max;
+        for (double center : keepOutCenters) {
+            if (isInside(current, center, keepOutWidth)) {
+                continue;
+            }
+            bound = Math.min(bound, nearestAbove(center - keepOutWidth / 2, current));
+        }
+        return bound;
+    }
+
+    /** Whether an angle is inside a keep out zone, on any turn. */
+    public static boolean isInside(double angle, double center, double width) {
+        return Math.abs(Math.IEEEremainder(angle - center, 360)) < width / 2;
+    }
+
+    /**
+     * Picks the turret angle pointing at a target angle that's closest to
+     * where the turret is, out of the ones between the bounds. If none of
+     * them are, it gets as close as it can.
+     *
+     * @param target  Angle to point at, any number of turns
+     * @param current Current turret angle
+     * @param lower   Lowest reachable angle
+     * @param upper   Highest reachable angle
+     */
+    public static double chooseSetpoint(double target, double current, double lower, double upper) {
+        // The equivalent angle closest to current, then a turn either way
+        double closest = current + Math.IEEEremainder(target - current, 360);
+        double best = Double.NaN;
+        for (int turns = -1; turns <= 1; turns++) {
+            double candidate = closest + 360 * turns;
+            if (candidate >= lower && candidate <= upper
+                    && (Double.isNaN(best) || Math.abs(candidate - current) < Math.abs(best - current))) {
+                best = candidate;
+            }
+        }
+        if (Double.isNaN(best)) {
+            best = Math.max(lower, Math.min(upper, closest));
+        }
+        return best;
+    }
+
+    /** The angle equivalent to angle that's at or below reference, but within a turn of it. */
+    private static double nearestBelow(double angle, double reference) {
+        return reference - ((reference - angle) % 360 + 360) % 360;
+    }
+
+    /** The angle equivalent to angle that's at or above reference, but within a turn of it. */
+    private static double nearestAbove(double angle, double reference) {
+        return reference + ((angle - reference) % 360 + 360) % 360;
+    }
+}
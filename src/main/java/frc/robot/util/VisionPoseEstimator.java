@@ -0,0 +1,210 @@
+package frc.robot.util;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Wheel odometry with latency compensated vision corrections.
+ *
+ * <p>
+ * Odometry is integrated the same way as WPILib's SwerveDriveOdometry, but on
+ * primitives so the odometry thread doesn't allocate. Every pose it produces is stored with its
+ * timestamp in a ring buffer. The fused pose is the odometry pose plus a
+ * field-relative translation offset. When a vision measurement comes in, we
+ * look up where the fused pose was at the moment the camera captured the
+ * frame, and move the offset a fraction of the way towards the measurement.
+ * Because the offset is a plain translation, correcting it at capture time
+ * also corrects every pose after it, so nothing needs to be replayed.
+ *
+ * <p>
+ * Heading is left to the gyro, which is far better at it than a single
+ * retroreflective target.
+ *
+ * <p>
+ * Not thread safe on its own, callers should synchronize on the estimator.
+ */
+public class VisionPoseEstimator {
+    /** Odometry history kept for latency compensation, about 2 seconds at 250 Hz. */
+    private static final int HISTORY_SIZE = 512;
+
+    private final SwerveKinematics kinematics;
+    private final double visionGain;
+
+    private final double[] chassisSpeeds = new double[3];
+    private double odometryX = 0;
+    private double odometryY = 0;
+    private double odometryTheta = 0;
+    private double gyroOffset = 0;
+    private double previousTimestamp = -1;
+
+    private final double[] historyTimes = new double[HISTORY_SIZE];
+    private final double[] historyX = new double[HISTORY_SIZE];
+    private final double[] historyY = new double[HISTORY_SIZE];
+    private final double[] historyTheta = new double[HISTORY_SIZE];
+    private int historyHead = 0;
+    private int historyCount = 0;
+
+    private double offsetX = 0;
+    private double offsetY = 0;
+
+    /**
+     * @param kinematics Drivetrain kinematics
+     * @param visionGain Fraction of the measured error applied per vision
+     *                   measurement, between 0 and 1
+     */
+    public VisionPoseEstimator(SwerveKinematics kinematics, double visionGain) {
+        this.kinematics = kinematics;
+        this.visionGain = visionGain;
+    }
+
+    /**
+     * Updates odometry with a new sample.
+     *
+     * @param timestamp   FPGA timestamp the sample was taken at, in seconds
+     * @param gyroRadians Raw gyro angle
+     * @param speeds      Module speeds, meters per second
+     * @param angles      Module angles, radians
+     */
+    public void update(double timestamp, double gyroRadians, double[] speeds, double[] angles) {
+        double dt = previousTimestamp >= 0 ? timestamp - previousTimestamp : 0;
+        previousTimestamp = timestamp;
+
+        double theta = gyroRadians + gyroOffset;
+        kinematics.toChassisSpeeds(speeds, angles, chassisSpeeds);
+
+        // Pose exponential, same as Pose2d.exp(), with the heading change
+        // taken from the gyro
+        double dx = chassisSpeeds[0] * dt;
+        double dy = chassisSpeeds[1] * dt;
+        double dtheta = MathUtil.angleModulus(theta - odometryTheta);
+        double s;
+        double c;
+        if (Math.abs(dtheta) < 1e-9) {
+            s = 1.0 - dtheta * dtheta / 6.0;
+            c = 0.5 * dtheta;
+        } else {
+            s = Math.sin(dtheta) / dtheta;
+            c = (1 - Math.cos(dtheta)) / dtheta;
+        }
+        double localX = dx * s - dy * c;
+        double localY = dx * c + dy * s;
+        double cos = Math.cos(odometryTheta);
+        double sin = Math.sin(odometryTheta);
+        odometryX += localX * cos - localY * sin;
+        odometryY += localX * sin + localY * cos;
+        odometryTheta = MathUtil.angleModulus(theta);
+
+        historyTimes[historyHead] = timestamp;
+        historyX[historyHead] = odometryX;
+        historyY[historyHead] = odometryY;
+        historyTheta[historyHead] = odometryTheta;
+        historyHead = (historyHead + 1) % HISTORY_SIZE;
+        if (historyCount < HISTORY_SIZE) {
+            historyCount++;
+        }
+    }
+
+    /**
+     * Resets the pose and throws away the history and any vision correction.
+     *
+     * @param pose      New pose
+     * @param gyroAngle Raw gyro angle at this moment
+     */
+    public void resetPosition(Pose2d pose, Rotation2d gyroAngle) {
+        odometryX = pose.getX();
+        odometryY = pose.getY();
+        odometryTheta = pose.getRotation().getRadians();
+        gyroOffset = odometryTheta - gyroAngle.getRadians();
+        historyCount = 0;
+        offsetX = 0;
+        offsetY = 0;
+    }
+
+    /** Fused X position, meters. */
+    public double getX() {
+        return odometryX + offsetX;
+    }
+
+    /** Fused Y position, meters. */
+    public double getY() {
+        return odometryY + offsetY;
+    }
+
+    /** Heading, radians. */
+    public double getRotationRadians() {
+        return odometryTheta;
+    }
+
+    /**
+     * Applies a vision observation of a target at a known field position.
+     *
+     * @param targetLocation Where the target is on the field
+     * @param robotToTarget  Where the camera saw the target, relative to the
+     *                       robot center in the robot's frame (x forward, y left)
+     * @param timestamp      FPGA timestamp the frame was captured at, in seconds
+     * @return Whether the measurement was used. It's dropped when it's older
+     *         than the history or no odometry has run yet.
+     */
+    public boolean addTargetObservation(Translation2d targetLocation, Translation2d robotToTarget, double timestamp) {
+        if (historyCount == 0 || timestamp < historyTimes[index(historyCount - 1)]) {
+            return false;
+        }
+
+        double x;
+        double y;
+        double theta;
+        int newer = findNewerSample(timestamp);
+        int newerIndex = index(newer);
+        if (historyTimes[newerIndex] <= timestamp || newer == historyCount - 1) {
+            // Either newer than any odometry we have, or lands right on a sample
+            x = historyX[newerIndex];
+            y = historyY[newerIndex];
+            theta = historyTheta[newerIndex];
+        } else {
+            int olderIndex = index(newer + 1);
+            double t = (timestamp - historyTimes[olderIndex]) / (historyTimes[newerIndex] - historyTimes[olderIndex]);
+            x = historyX[olderIndex] + (historyX[newerIndex] - historyX[olderIndex]) * t;
+            y = historyY[olderIndex] + (historyY[newerIndex] - historyY[olderIndex]) * t;
+            theta = historyTheta[olderIndex]
+                    + MathUtil.angleModulus(historyTheta[newerIndex] - historyTheta[olderIndex]) * t;
+        }
+
+        // Rotate the observation into the field frame using the heading at
+        // capture time, and work back from the target to the robot
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
+        double measuredX = targetLocation.getX() - (robotToTarget.getX() * cos - robotToTarget.getY() * sin);
+        double measuredY = targetLocation.getY() - (robotToTarget.getX() * sin + robotToTarget.getY() * cos);
+
+        offsetX += (measuredX - (x + offsetX)) * visionGain;
+        offsetY += (measuredY - (y + offsetY)) * visionGain;
+        return true;
+    }
+
+    /**
+     * Finds the oldest sample taken at or after a timestamp. Ages run from the
+     * newest sample (0) to the oldest ({@code historyCount - 1}).
+     *
+     * @return Age of the sample, 0 if the timestamp is newer than every sample
+     */
+    private int findNewerSample(double timestamp) {
+        int low = 0;
+        int high = historyCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) / 2;
+            if (historyTimes[index(mid)] >= timestamp) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /** Converts an age (0 is the newest sample) into a ring buffer index. */
+    private int index(int age) {
+        return (historyHead - 1 - age + HISTORY_SIZE * 2) % HISTORY_SIZE;
+    }
+}
@@ -4,14 +4,18 @@ import static org.junit.Assert.*;
 
 import edu.wpi.first.hal.HAL;
 import edu.wpi.first.wpilibj.simulation.REVPHSim;
+import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.TalonFXSimCollection;
 import frc.robot.Constants;
 import frc.robot.subsystems.Climber;
+import frc.robot.subsystems.io.ClimberIOReal;
+import frc.robot.util.CalibrationStore;
 import org.junit.*;
 
 public class ClimberTest {
 
     Climber climber;
+    ClimberIOReal climberIO;
     REVPHSim simPH;
     TalonFXSimCollection leftMotorSim;
     TalonFXSimCollection rightMotorSim;
@@ -19,10 +23,11 @@ public class ClimberTest {
     @Before
     public void setup() {
         assert HAL.initialize(500, 0);
-        climber = new Climber();
+        climberIO = new ClimberIOReal();
+        climber = new Climber(climberIO);
         simPH = new REVPHSim();
-        leftMotorSim = climber.leftMotor.getSimCollection();
-        rightMotorSim = climber.rightMotor.getSimCollection();
+        leftMotorSim = climberIO.leftMotor.getSimCollection();
+        rightMotorSim = climberIO.rightMotor.getSimCollection();
     }
 
     @After
@@ -44,15 +49,59 @@ public class ClimberTest {
 
     @Test
     public void armsDoGoUp() {
-        climber.setSetpoint(1500);
-        assertEquals(1500, climber.getSetpoint(), 0.1);
-        assertEquals(1, climber.getController().calculate(0), .1);
+        climber.setPosition(1500, false);
+        assertEquals(1500, climber.getTargetPosition(), 0.1);
+        assertEquals(ControlMode.MotionMagic, climberIO.rightMotor.getControlMode());
+        assertEquals(false, climber.atPosition());
+    }
+
+    /**
+     * Moves the simulated encoders, then runs periodic() until the Talon
+     * reports the new position, which takes a status frame or two.
+     */
+    void displaceLift(double ticks) throws InterruptedException {
+        leftMotorSim.addIntegratedSensorPosition((int) ticks);
+        rightMotorSim.addIntegratedSensorPosition((int) ticks);
+        for (int i = 0; i < 100 && Math.abs(climber.getMeasurement() - ticks) > 1; i++) {
+            Thread.sleep(10);
+            climber.periodic();
+        }
+        assertEquals(ticks, climber.getMeasurement(), 1);
+    }
+
+    @Test
+    public void armsDoGoDown() throws InterruptedException {
+        displaceLift(1500);
+        climber.setPosition(0, true);
+        climber.periodic();
+        assertEquals(0, climber.getTargetPosition(), 0.1);
+        assertEquals(ControlMode.MotionMagic, climberIO.rightMotor.getControlMode());
+        assertTrue(climber.getTargetPosition() < climber.getMeasurement());
+        assertEquals(false, climber.atPosition());
+    }
+
+    @Test
+    public void calibratesOnlyWhenZeroed() {
+        CalibrationStore calibration = CalibrationStore.getInstance();
+        // Reading the limit switch doesn't zero anything
+        climber.getLimitSwitchDown();
+        assertEquals(false, climber.isCalibrated());
+        climber.saveCalibration();
+        assertEquals(false, calibration.has(Constants.Climber.POSITION_CALIBRATION));
+
+        climber.resetEncoders();
+        assertEquals(true, climber.isCalibrated());
+        climber.saveCalibration();
+        assertEquals(0, calibration.getDouble(Constants.Climber.POSITION_CALIBRATION, Double.NaN), 0);
+
+        calibration.remove(Constants.Climber.POSITION_CALIBRATION);
     }
 
     @Test
-    public void armsDoGoDown() {
-        leftMotorSim.addIntegratedSensorPosition(1500);
-        climber.setSetpoint(0);
-        assertEquals(-12, leftMotorSim.getMotorOutputLeadVoltage(), 1);
+    public void runsOpenLoop() {
+        climber.setPosition(1500, false);
+        climber.runLift(0.5);
+        assertEquals(ControlMode.PercentOutput, climberIO.rightMotor.getControlMode());
+        assertEquals(false, climber.atPosition());
     }
 }
@@ -8,6 +8,7 @@ import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.Constants;
 import frc.robot.subsystems.Intake;
+import frc.robot.util.Telemetry;
 import com.revrobotics.REVPhysicsSim;
 import org.junit.After;
 import org.junit.Before;
@@ -62,6 +63,7 @@ public class IntakeTest {
         intake.setIntakeSpeed(0.2);
         intake.setIntakeDown(true);
         intake.periodic();
+        Telemetry.getInstance().flush();
         assertEquals(0.2, SmartDashboard.getNumber("Intake/Speed", 0), 0.1);
         assertEquals(true, SmartDashboard.getBoolean("Intake/ArmDown", false));
     }
@@ -4,6 +4,7 @@ import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants;
 import frc.robot.subsystems.Limelight;
 import frc.robot.util.LimelightState;
 import org.junit.After;
@@ -25,6 +26,7 @@ public class LimelightTest {
     NetworkTableEntry tlong = table.getEntry("tlong");
     NetworkTableEntry thor = table.getEntry("thor");
     NetworkTableEntry tvert = table.getEntry("tvert");
+    NetworkTableEntry tl = table.getEntry("tl");
     NetworkTableEntry ledMode = table.getEntry("ledMode");
 
     @Before
@@ -38,7 +40,33 @@ public class LimelightTest {
         tlong.setDouble(8);
         thor.setDouble(8);
         tvert.setDouble(4);
+        // Held steady for every frame, like the camera does most of the time
+        tl.setDouble(20);
         ledMode.setDouble(LimelightState.OFF.ordinal());
+        update();
+    }
+
+    @After
+    public void shutdown() {
+        limelight.close();
+    }
+
+    /**
+     * Lets the listener pick up the new values and waits out the frame gap,
+     * so the frame is done, then runs a loop.
+     */
+    void update() {
+        waitForFrame();
+        limelight.periodic();
+    }
+
+    void waitForFrame() {
+        NetworkTableInstance.getDefault().waitForEntryListenerQueue(1.0);
+        try {
+            Thread.sleep((long) (Constants.Limelight.FRAME_GAP_SECONDS * 1000 * 3));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Test
@@ -56,10 +84,24 @@ public class LimelightTest {
         assertEquals(8, limelight.getHorizontalWidth(), 0.1);
     }
 
+    @Test
+    public void measuresDistanceFromVerticalAngle() {
+        double height = Constants.Field.HUB_TARGET_HEIGHT_METERS - Constants.Limelight.CAMERA_HEIGHT_METERS;
+        double expected = height / Math.tan(Math.toRadians(limelight.getCameraPitch() - 3))
+                + Constants.Field.HUB_RADIUS_METERS;
+        assertEquals(expected, limelight.getDistanceToHub(), 1e-6);
+
+        // Worked out once per frame, losing the target clears it
+        tv.setDouble(0);
+        update();
+        assertEquals(true, Double.isNaN(limelight.getDistanceToHub()));
+    }
+
     @Test
     public void readsValidTarget() {
         assertEquals(true, limelight.hasValidTarget());
         tv.setDouble(0);
+        update();
         assertEquals(false, limelight.hasValidTarget());
     }
 
@@ -67,9 +109,78 @@ public class LimelightTest {
     public void tellsIfAlignmentIsCorrect() {
         assertEquals(false, limelight.alignGood());
         tx.setDouble(0);
+        update();
         assertEquals(true, limelight.alignGood());
     }
 
+    @Test
+    public void tellsNewFramesFromStaleOnes() {
+        Limelight.Frame frame = limelight.getFrame();
+        long frameNumber = frame.getFrameNumber();
+        assertEquals(true, frame.isNew());
+
+        // Nothing new from the camera
+        NetworkTableInstance.getDefault().waitForEntryListenerQueue(1.0);
+        limelight.periodic();
+        assertEquals(false, limelight.getFrame().isNew());
+        assertEquals(frameNumber, limelight.getFrame().getFrameNumber());
+
+        tx.setDouble(-6);
+        update();
+        assertEquals(true, limelight.getFrame().isNew());
+        assertEquals(frameNumber + 1, limelight.getFrame().getFrameNumber());
+        assertEquals(-6, limelight.getX(), 0.1);
+    }
+
+    @Test
+    public void groupsValuesIntoFrames() {
+        long frameNumber = limelight.getFrame().getFrameNumber();
+        tx.setDouble(-6);
+        ty.setDouble(-5);
+        update();
+        assertEquals(frameNumber + 1, limelight.getFrame().getFrameNumber());
+        assertEquals(-6, limelight.getX(), 0.1);
+        assertEquals(-5, limelight.getY(), 0.1);
+        // Unchanged values carry over
+        assertEquals(32, limelight.getFrame().getArea(), 0.1);
+    }
+
+    @Test
+    public void publishesFramesWithSteadyLatency() {
+        long frameNumber = limelight.getFrame().getFrameNumber();
+        // The latency never changes, so it never comes in again
+        for (int i = 1; i <= 3; i++) {
+            tx.setDouble(-i);
+            update();
+            assertEquals(true, limelight.getFrame().isNew());
+            assertEquals(frameNumber + i, limelight.getFrame().getFrameNumber());
+            assertEquals(-i, limelight.getX(), 0.1);
+            assertEquals(0.02 + Constants.Limelight.CAPTURE_LATENCY_SECONDS, limelight.getFrame().getLatency(), 1e-9);
+        }
+    }
+
+    @Test
+    public void splitsFramesOnRepeatedKey() {
+        long frameNumber = limelight.getFrame().getFrameNumber();
+        // Two frames in one loop, the second tx has to be a new one
+        tx.setDouble(-6);
+        NetworkTableInstance.getDefault().waitForEntryListenerQueue(1.0);
+        tx.setDouble(-7);
+        update();
+        assertEquals(frameNumber + 2, limelight.getFrame().getFrameNumber());
+        assertEquals(-7, limelight.getX(), 0.1);
+    }
+
+    @Test
+    public void keepsFrameUntilNextLoop() {
+        tx.setDouble(-6);
+        waitForFrame();
+        // The loop hasn't run yet, so this loop's frame still has the old value
+        assertEquals(14, limelight.getX(), 0.1);
+        limelight.periodic();
+        assertEquals(-6, limelight.getX(), 0.1);
+    }
+
     @Test
     public void setLimelightToBlink() {
         limelight.blink();
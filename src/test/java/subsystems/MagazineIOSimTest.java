@@ -0,0 +1,128 @@
+package subsystems;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.robot.subsystems.io.MagazineIO.MagazineIOInputs;
+import frc.robot.subsystems.io.MagazineIOSim;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Stopping on arrival, which the real magazine does from the ball sensor
+ * interrupts.
+ */
+public class MagazineIOSimTest {
+    static final double SPEED = 5500;
+
+    MagazineIOSim magazineIO;
+    MagazineIOInputs inputs = new MagazineIOInputs();
+    NetworkTable table;
+
+    @Before
+    public void setup() {
+        assert HAL.initialize(500, 0);
+        table = NetworkTableInstance.getDefault().getTable("Sim/Magazine");
+        // Starts with both sensors clear
+        magazineIO = new MagazineIOSim();
+        magazineIO.updateInputs(inputs);
+    }
+
+    void upperArrives() {
+        table.getEntry("BallInUpper").setBoolean(true);
+        magazineIO.updateInputs(inputs);
+    }
+
+    @Test
+    public void staysStoppedAfterArrival() {
+        magazineIO.setUpperVelocityUntilArrival(SPEED);
+        magazineIO.updateInputs(inputs);
+        assertEquals(0.5, inputs.upperOutput, 1e-9);
+
+        upperArrives();
+        assertEquals(0, inputs.upperOutput, 0);
+        assertEquals(true, inputs.upperStoppedOnArrival);
+        assertEquals(false, inputs.lowerStoppedOnArrival);
+
+        // A command still staging can't start it again
+        magazineIO.setUpperVelocityUntilArrival(SPEED);
+        magazineIO.updateInputs(inputs);
+        assertEquals(0, inputs.upperOutput, 0);
+
+        // Or on the next loop, with the cargo still in front of the sensor
+        magazineIO.setUpperVelocityUntilArrival(SPEED);
+        magazineIO.updateInputs(inputs);
+        assertEquals(0, inputs.upperOutput, 0);
+    }
+
+    @Test
+    public void restartsWhenCargoBouncesBack() {
+        magazineIO.setUpperVelocityUntilArrival(SPEED);
+        upperArrives();
+        assertEquals(0, inputs.upperOutput, 0);
+
+        // Bounced off the sensor after the arrival was seen, bring it back
+        table.getEntry("BallInUpper").setBoolean(false);
+        magazineIO.updateInputs(inputs);
+        magazineIO.setUpperVelocityUntilArrival(SPEED);
+        magazineIO.updateInputs(inputs);
+        assertEquals(0.5, inputs.upperOutput, 1e-9);
+
+        // And it stops again when it gets there
+        upperArrives();
+        assertEquals(true, inputs.upperArrived);
+        assertEquals(0, inputs.upperOutput, 0);
+    }
+
+    @Test
+    public void reportsArrivalOnce() {
+        magazineIO.setUpperVelocityUntilArrival(SPEED);
+        upperArrives();
+        assertEquals(true, inputs.upperArrived);
+        assertEquals(false, inputs.lowerArrived);
+
+        // Still in front of the sensor, but it already arrived
+        magazineIO.updateInputs(inputs);
+        assertEquals(false, inputs.upperArrived);
+        magazineIO.updateInputs(inputs);
+        assertEquals(false, inputs.upperArrived);
+    }
+
+    @Test
+    public void runningClearsStop() {
+        magazineIO.setUpperVelocityUntilArrival(SPEED);
+        upperArrives();
+        assertEquals(0, inputs.upperOutput, 0);
+
+        // Feeding takes it back over
+        magazineIO.setUpperVelocity(SPEED);
+        magazineIO.updateInputs(inputs);
+        assertEquals(0.5, inputs.upperOutput, 1e-9);
+        assertEquals(false, inputs.upperStoppedOnArrival);
+
+        // And the next cargo stops it again
+        table.getEntry("BallInUpper").setBoolean(false);
+        magazineIO.setUpperVelocityUntilArrival(SPEED);
+        magazineIO.updateInputs(inputs);
+        assertEquals(0.5, inputs.upperOutput, 1e-9);
+        upperArrives();
+        assertEquals(true, inputs.upperArrived);
+        assertEquals(0, inputs.upperOutput, 0);
+    }
+
+    @Test
+    public void stopClearsStop() {
+        magazineIO.setLowerVelocityUntilArrival(SPEED);
+        table.getEntry("BallInLower").setBoolean(true);
+        magazineIO.updateInputs(inputs);
+        assertEquals(0, inputs.lowerOutput, 0);
+
+        magazineIO.stop();
+        table.getEntry("BallInLower").setBoolean(false);
+        magazineIO.setLowerVelocityUntilArrival(SPEED);
+        magazineIO.updateInputs(inputs);
+        assertEquals(0.5, inputs.lowerOutput, 1e-9);
+    }
+}
@@ -9,6 +9,7 @@ import edu.wpi.first.wpilibj.simulation.REVPHSim;
 import frc.robot.Constants;
 import frc.robot.subsystems.Intake;
 import frc.robot.subsystems.Magazine;
+import frc.robot.subsystems.io.MagazineIOReal;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -17,6 +18,7 @@ import static org.junit.Assert.assertEquals;
 
 public class MagazineTest {
     Magazine magazine;
+    MagazineIOReal magazineIO;
 
     AnalogInputSim simLowerSensor;
     AnalogInputSim simUpperSensor;
@@ -24,11 +26,16 @@ public class MagazineTest {
     @Before
     public void setup() {
         assert HAL.initialize(500, 0);
-        magazine = new Magazine();
-        // REVPhysicsSim.getInstance().addSparkMax(magazine.lowerMagazine, DCMotor.getNeo550(1));
-        // REVPhysicsSim.getInstance().addSparkMax(magazine.upperMagazine, DCMotor.getNeo550(1));
         simLowerSensor = new AnalogInputSim(Constants.Magazine.LOWER_SENSOR);
         simUpperSensor = new AnalogInputSim(Constants.Magazine.UPPER_SENSOR);
+        // Start every test with an empty magazine, the cargo count follows
+        // the sensors from there
+        simLowerSensor.setVoltage(1.5);
+        simUpperSensor.setVoltage(1);
+        magazineIO = new MagazineIOReal();
+        magazine = new Magazine(magazineIO);
+        // REVPhysicsSim.getInstance().addSparkMax(magazine.lowerMagazine, DCMotor.getNeo550(1));
+        // REVPhysicsSim.getInstance().addSparkMax(magazine.upperMagazine, DCMotor.getNeo550(1));
     }
 
     @After
@@ -40,6 +47,7 @@ public class MagazineTest {
     public void detectsNoBallsWhenEmpty() {
         simLowerSensor.setVoltage(1.5);
         simUpperSensor.setVoltage(1);
+        magazine.periodic();
         assertEquals(false, magazine.ballInLower());
         assertEquals(false, magazine.ballInUpper());
     }
@@ -48,6 +56,7 @@ public class MagazineTest {
     public void detectsLowerBallOnly() {
         simLowerSensor.setVoltage(1);
         simUpperSensor.setVoltage(1);
+        magazine.periodic();
         assertEquals(true, magazine.ballInLower());
         assertEquals(false, magazine.ballInUpper());
         assertEquals(false, magazine.isFull());
@@ -57,6 +66,7 @@ public class MagazineTest {
     public void detectsUpperBallOnly() {
         simLowerSensor.setVoltage(1.5);
         simUpperSensor.setVoltage(1.5);
+        magazine.periodic();
         assertEquals(false, magazine.ballInLower());
         assertEquals(true, magazine.ballInUpper());
         assertEquals(false, magazine.isFull());
@@ -66,21 +76,61 @@ public class MagazineTest {
     public void detectsBothBalls() {
         simLowerSensor.setVoltage(1);
         simUpperSensor.setVoltage(1.5);
+        magazine.periodic();
         assertEquals(true, magazine.ballInLower());
         assertEquals(true, magazine.ballInUpper());
         assertEquals(true, magazine.isFull());
     }
 
+    @Test
+    public void detectsCargoLeavingUpper() {
+        simUpperSensor.setVoltage(1.5);
+        magazine.periodic();
+        assertEquals(false, magazine.didCargoLeaveUpper());
+        simUpperSensor.setVoltage(1);
+        magazine.periodic();
+        assertEquals(true, magazine.didCargoLeaveUpper());
+        // Only on the loop it leaves
+        magazine.periodic();
+        assertEquals(false, magazine.didCargoLeaveUpper());
+    }
+
+    @Test
+    public void countsCargo() {
+        simLowerSensor.setVoltage(1);
+        magazine.periodic();
+        assertEquals(1, magazine.getCargoCount());
+        simUpperSensor.setVoltage(1.5);
+        magazine.periodic();
+        assertEquals(2, magazine.getCargoCount());
+        assertEquals(true, magazine.isFull());
+    }
+
+    @Test
+    public void calibratesSensorThresholds() {
+        simLowerSensor.setVoltage(2);
+        simUpperSensor.setVoltage(1);
+        magazine.periodic();
+        magazine.captureSensorLevels(false);
+        simLowerSensor.setVoltage(1);
+        simUpperSensor.setVoltage(2);
+        magazine.periodic();
+        magazine.captureSensorLevels(true);
+        // Halfway between 1V and 2V
+        assertEquals(1.5 / 5 * 4096, magazine.getLowerSensorThreshold(), 5);
+        assertEquals(1.5 / 5 * 4096, magazine.getUpperSensorThreshold(), 5);
+    }
+
     @Test
     public void runsUpperMagazine() {
         magazine.runUpperMagazine(0.5);
-        assertEquals(0.5, magazine.upperMagazine.get(), 0.05);
+        assertEquals(0.5, magazineIO.upperMagazine.get(), 0.05);
     }
 
     @Test
     public void runsLowerMagazine() {
         magazine.runLowerMagazine(0.5);
-        assertEquals(0.5, magazine.lowerMagazine.get(), 0.05);
+        assertEquals(0.5, magazineIO.lowerMagazine.get(), 0.05);
     }
 
 }
@@ -0,0 +1,45 @@
+package subsystems;
+
+import static org.junit.Assert.*;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.subsystems.Climber;
+import frc.robot.subsystems.Turret;
+import frc.robot.subsystems.io.ClimberIOSim;
+import frc.robot.subsystems.io.TurretIOSim;
+import org.junit.*;
+
+public class TurretTest {
+
+    Climber climber;
+    Turret turret;
+
+    @Before
+    public void setup() {
+        assert HAL.initialize(500, 0);
+        climber = new Climber(new ClimberIOSim());
+        turret = new Turret(new TurretIOSim(), climber);
+    }
+
+    @After
+    public void shutdown() throws Exception {
+        turret.close();
+        climber.close();
+    }
+
+    @Test
+    public void staysOffClimberPolesWithArmsUp() {
+        climber.setArmsOut(false);
+        turret.setAngle(90, 0);
+        assertEquals(41, turret.getTargetAngle(), 0.1);
+    }
+
+    @Test
+    public void turnsFreelyWithArmsDown() {
+        climber.setArmsOut(true);
+        turret.setAngle(90, 0);
+        assertEquals(90, turret.getTargetAngle(), 0.1);
+        turret.setAngle(-450, 0);
+        assertEquals(-90, turret.getTargetAngle(), 0.1);
+    }
+}
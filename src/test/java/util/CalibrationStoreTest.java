@@ -0,0 +1,102 @@
+package util;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import frc.robot.util.CalibrationStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CalibrationStoreTest {
+
+    static final int SLOT_SIZE = 4096;
+
+    File file;
+
+    @Before
+    public void setup() throws Exception {
+        file = File.createTempFile("calibration", ".bin");
+        file.delete();
+    }
+
+    @After
+    public void shutdown() {
+        file.delete();
+    }
+
+    @Test
+    public void startsEmpty() throws Exception {
+        CalibrationStore store = CalibrationStore.open(file);
+        assertFalse(store.has("Shooter/HoodPosition"));
+        assertEquals(-1, store.getDouble("Shooter/HoodPosition", -1), 0);
+        assertEquals(0, store.getSequence());
+    }
+
+    @Test
+    public void survivesReopening() throws Exception {
+        CalibrationStore store = CalibrationStore.open(file);
+        store.putDouble("Shooter/HoodPosition", -12.5);
+        store.putDouble("Drivetrain/GyroOffset", 90);
+        store.commit();
+        store.remove("Drivetrain/GyroOffset");
+        store.commit();
+
+        CalibrationStore reopened = CalibrationStore.open(file);
+        assertEquals(-12.5, reopened.getDouble("Shooter/HoodPosition", 0), 0);
+        assertFalse(reopened.has("Drivetrain/GyroOffset"));
+        assertEquals(2, reopened.getSequence());
+    }
+
+    @Test
+    public void skipsCommitWhenUnchanged() throws Exception {
+        CalibrationStore store = CalibrationStore.open(file);
+        store.putDouble("Climber/Position", 100);
+        store.commit();
+        store.putDouble("Climber/Position", 100);
+        store.commit();
+        assertEquals(1, store.getSequence());
+    }
+
+    @Test
+    public void fallsBackWhenLatestWriteIsTorn() throws Exception {
+        CalibrationStore store = CalibrationStore.open(file);
+        store.putDouble("Shooter/HoodPosition", -5);
+        store.commit();
+        store.putDouble("Shooter/HoodPosition", -20);
+        store.commit();
+
+        // The second commit went to the second slot, scribble over its payload
+        // like power dropped partway through
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(SLOT_SIZE + 40);
+            raw.write(new byte[] { 1, 2, 3, 4 });
+        }
+
+        CalibrationStore reopened = CalibrationStore.open(file);
+        assertEquals(-5, reopened.getDouble("Shooter/HoodPosition", 0), 0);
+        assertEquals(1, reopened.getSequence());
+
+        // The next commit overwrites the torn slot, not the good one
+        reopened.putDouble("Shooter/HoodPosition", -7);
+        reopened.commit();
+        assertEquals(-7, CalibrationStore.open(file).getDouble("Shooter/HoodPosition", 0), 0);
+    }
+
+    @Test
+    public void rejectsBadValues() throws Exception {
+        CalibrationStore store = CalibrationStore.open(file);
+        boolean threw = false;
+        try {
+            store.putDouble("Drivetrain/GyroOffset", Double.NaN);
+        } catch (IllegalArgumentException e) {
+            threw = true;
+        }
+        assertTrue(threw);
+        assertFalse(store.has("Drivetrain/GyroOffset"));
+    }
+}
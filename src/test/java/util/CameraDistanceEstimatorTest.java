@@ -0,0 +1,67 @@
+package util;
+
+import frc.robot.util.CameraDistanceEstimator;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CameraDistanceEstimatorTest {
+
+    static final double CAMERA_HEIGHT = 1;
+    static final double TARGET_HEIGHT = 2.5;
+    static final double TARGET_RADIUS = 0.5;
+
+    CameraDistanceEstimator estimator;
+
+    @Before
+    public void setup() {
+        estimator = new CameraDistanceEstimator(CAMERA_HEIGHT, TARGET_HEIGHT, TARGET_RADIUS, 30, 4);
+    }
+
+    /** The ty a camera at the given pitch would see at the given distance. */
+    static double ty(double pitchDegrees, double distance) {
+        return Math.toDegrees(Math.atan2(TARGET_HEIGHT - CAMERA_HEIGHT, distance - TARGET_RADIUS)) - pitchDegrees;
+    }
+
+    @Test
+    public void measuresDistanceFromVerticalAngle() {
+        // Level with the middle of the image, 1.5 m up at 45 degrees
+        assertEquals(1.5 + TARGET_RADIUS, estimator.getDistance(15), 1e-9);
+        assertEquals(3, estimator.getDistance(ty(30, 3)), 1e-9);
+    }
+
+    @Test
+    public void rejectsTargetsBelowTheHorizon() {
+        assertTrue(Double.isNaN(estimator.getDistance(-30)));
+        assertTrue(Double.isNaN(estimator.getDistance(-45)));
+    }
+
+    @Test
+    public void fitsPitchFromKnownDistances() {
+        // Camera is actually tilted up 33 degrees, and ty is a little noisy
+        estimator.addCalibrationSample(ty(33, 2) + 0.2, 2);
+        estimator.addCalibrationSample(ty(33, 3) - 0.1, 3);
+        estimator.addCalibrationSample(ty(33, 4) - 0.1, 4);
+        assertEquals(33, estimator.getPitchDegrees(), 1e-9);
+        assertEquals(3, estimator.getDistance(ty(33, 3)), 1e-9);
+    }
+
+    @Test
+    public void replacesOldestSampleWhenFull() {
+        for (int i = 0; i < 4; i++) {
+            estimator.addCalibrationSample(ty(20, 3), 3);
+        }
+        for (int i = 0; i < 4; i++) {
+            estimator.addCalibrationSample(ty(25, 3), 3);
+        }
+        assertEquals(4, estimator.getCalibrationSampleCount());
+        assertEquals(25, estimator.getPitchDegrees(), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDistanceInsideTarget() {
+        estimator.addCalibrationSample(10, TARGET_RADIUS);
+    }
+}
@@ -0,0 +1,136 @@
+package util;
+
+import frc.robot.util.CargoTracker;
+import frc.robot.util.CargoTracker.Slot;
+import frc.robot.util.CargoTracker.State;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CargoTrackerTest {
+
+    static final double CLEAR_SECONDS = 0.25;
+    static final double TRANSIT_SECONDS = 0.5;
+
+    CargoTracker tracker = new CargoTracker(2, CLEAR_SECONDS, TRANSIT_SECONDS);
+    double time = 0;
+
+    @Before
+    public void setup() {
+        tracker.reset(false, false);
+    }
+
+    void step(boolean lower, boolean upper, double lowerDirection, double upperDirection) {
+        time += 0.02;
+        tracker.update(lower, upper, lowerDirection, upperDirection, time);
+    }
+
+    @Test
+    public void tracksCargoBetweenSensors() {
+        step(true, false, 1, 1);
+        assertEquals(1, tracker.getCargoCount());
+        assertEquals(State.ENTERING, tracker.getState(Slot.LOWER));
+
+        // Out of sight of both sensors, but still on board
+        step(false, false, 1, 1);
+        assertEquals(1, tracker.getCargoCount());
+        assertEquals(State.ENTERING, tracker.getState(Slot.TRANSIT));
+        assertTrue(tracker.hasCargoBelowUpper());
+
+        step(false, true, 0, 0);
+        assertEquals(1, tracker.getCargoCount());
+        assertEquals(State.EMPTY, tracker.getState(Slot.TRANSIT));
+        assertEquals(State.STAGED, tracker.getState(Slot.UPPER));
+        assertFalse(tracker.hasCargoBelowUpper());
+    }
+
+    @Test
+    public void countsFullWithSecondCargoInTransit() {
+        step(false, true, 0, 0);
+        step(true, true, 1, 0);
+        step(false, true, 1, 0);
+        assertEquals(2, tracker.getCargoCount());
+        assertTrue(tracker.isFull());
+    }
+
+    @Test
+    public void dropsCargoThatNeverArrives() {
+        step(true, false, 1, 1);
+        step(false, false, 1, 1);
+        assertEquals(1, tracker.getCargoCount());
+
+        // Stopped, it isn't going anywhere, so it's still there
+        for (int i = 0; i < 50; i++) {
+            step(false, false, 0, 0);
+        }
+        assertEquals(1, tracker.getCargoCount());
+
+        // Staging long enough that it should have shown up
+        for (int i = 0; i < 30; i++) {
+            step(false, false, 1, 1);
+        }
+        assertEquals(0, tracker.getCargoCount());
+        assertTrue(tracker.isEmpty());
+        assertFalse(tracker.hasCargoBelowUpper());
+    }
+
+    @Test
+    public void keepsCargoThatArrivesInTime() {
+        step(false, true, 0, 0);
+        step(true, true, 1, 0);
+        step(false, true, 1, 0);
+        // Fed the first one, the second takes a while to come up
+        step(false, false, 1, 1);
+        for (int i = 0; i < 20; i++) {
+            step(false, false, 1, 1);
+        }
+        assertEquals(1, tracker.getCargoCount());
+        step(false, true, 1, 1);
+        assertEquals(1, tracker.getCargoCount());
+        assertTrue(tracker.hasStagedCargo());
+    }
+
+    @Test
+    public void feedsIntoShooter() {
+        step(true, true, 0, 0);
+        assertEquals(State.STAGED, tracker.getState(Slot.LOWER));
+
+        step(true, false, 0, 1);
+        assertEquals(1, tracker.getCargoCount());
+        assertEquals(State.FEEDING, tracker.getState(Slot.UPPER));
+        assertEquals(1, tracker.getFedCount());
+
+        for (int i = 0; i < 20; i++) {
+            step(true, false, 0, 0);
+        }
+        assertEquals(State.EMPTY, tracker.getState(Slot.UPPER));
+    }
+
+    @Test
+    public void keepsCargoThatRollsOffSensor() {
+        step(false, true, 0, 0);
+        // Upper sensor loses it with the motor stopped, it's still in there
+        step(false, false, 0, 0);
+        assertEquals(1, tracker.getCargoCount());
+        assertEquals(0, tracker.getFedCount());
+    }
+
+    @Test
+    public void forgetsCargoSpitOutTheBottom() {
+        step(true, false, 0, 0);
+        step(false, false, -1, -1);
+        assertTrue(tracker.isEmpty());
+    }
+
+    @Test
+    public void neverCountsMoreThanFit() {
+        step(true, true, 0, 0);
+        step(false, true, 1, 0);
+        step(true, true, 1, 0);
+        step(false, true, 1, 0);
+        assertEquals(2, tracker.getCargoCount());
+    }
+}
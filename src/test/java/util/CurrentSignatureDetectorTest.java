@@ -0,0 +1,63 @@
+package util;
+
+import frc.robot.util.CurrentSignatureDetector;
+import frc.robot.util.CurrentSignatureDetector.Event;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CurrentSignatureDetectorTest {
+
+    static final double DT = 0.005;
+
+    CurrentSignatureDetector detector = new CurrentSignatureDetector(20, 5, 25, 500, 0.25);
+    double time = 0;
+
+    /** Feeds the same sample some number of times, returning the first event. */
+    Event feed(int samples, double current, double speed, boolean running) {
+        Event first = Event.NONE;
+        for (int i = 0; i < samples; i++) {
+            time += DT;
+            Event event = detector.addSample(time, current, speed, running);
+            if (first == Event.NONE) {
+                first = event;
+            }
+        }
+        return first;
+    }
+
+    @Test
+    public void ignoresFreeRunning() {
+        assertEquals(Event.NONE, feed(100, 8, 5000, true));
+    }
+
+    @Test
+    public void detectsAcquisition() {
+        feed(20, 8, 5000, true);
+        double start = time;
+        assertEquals(Event.ACQUIRED, feed(10, 18, 4000, true));
+        // Within a few samples of the current rising
+        assertEquals(start + 3 * DT, detector.getLastAcquireTime(), 1e-9);
+        // Same cargo, holdoff keeps it to one event
+        assertEquals(Event.NONE, feed(20, 18, 4000, true));
+        assertEquals(1, detector.getAcquireCount());
+    }
+
+    @Test
+    public void detectsJam() {
+        feed(20, 8, 5000, true);
+        assertEquals(Event.JAMMED, feed(40, 40, 100, true));
+        assertEquals(1, detector.getJamCount());
+        assertTrue(detector.getLastJamTime() > 0);
+    }
+
+    @Test
+    public void ignoresStoppedRoller() {
+        feed(20, 8, 5000, true);
+        // Not being driven, so high current is from something else
+        assertEquals(Event.NONE, feed(40, 40, 0, false));
+        // And the window starts over after it
+        assertEquals(Event.NONE, feed(19, 40, 100, true));
+    }
+}
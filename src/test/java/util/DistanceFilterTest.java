@@ -0,0 +1,75 @@
+package util;
+
+import frc.robot.util.DistanceFilter;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DistanceFilterTest {
+
+    static final double FRAME = 0.011;
+
+    DistanceFilter filter;
+    double time;
+
+    @Before
+    public void setup() {
+        filter = new DistanceFilter(5, 25, 5, 100, 8, 0.5);
+        time = 0;
+    }
+
+    void feed(double measurement) {
+        time += FRAME;
+        filter.update(measurement, time);
+    }
+
+    @Test
+    public void settlesOnSteadyTarget() {
+        for (int i = 0; i < 50; i++) {
+            feed(i % 2 == 0 ? 150 : 170);
+        }
+        assertEquals(160, filter.getDistance(), 5);
+        assertTrue(filter.getConfidence(time) > 0.8);
+    }
+
+    @Test
+    public void ignoresSpikes() {
+        for (int i = 0; i < 30; i++) {
+            feed(160);
+        }
+        feed(400);
+        assertEquals(160, filter.getDistance(), 1);
+    }
+
+    @Test
+    public void rejectsThenFollowsRealJumps() {
+        for (int i = 0; i < 30; i++) {
+            feed(160);
+        }
+        for (int i = 0; i < 3; i++) {
+            feed(100);
+        }
+        time += FRAME;
+        assertFalse(filter.update(100, time));
+        assertEquals(160, filter.getDistance(), 5);
+
+        for (int i = 0; i < 10; i++) {
+            feed(100);
+        }
+        assertEquals(100, filter.getDistance(), 5);
+    }
+
+    @Test
+    public void losesConfidenceWhenStale() {
+        assertEquals(0, filter.getConfidence(time), 0);
+        for (int i = 0; i < 30; i++) {
+            feed(160);
+        }
+        double fresh = filter.getConfidence(time);
+        assertTrue(filter.getConfidence(time + 0.25) < fresh);
+        assertEquals(0, filter.getConfidence(time + 0.6), 0);
+    }
+}
@@ -0,0 +1,168 @@
+package util;
+
+import java.io.File;
+
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.controller.LinearQuadraticRegulator;
+import edu.wpi.first.math.estimator.KalmanFilter;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.system.LinearSystem;
+import edu.wpi.first.math.system.LinearSystemLoop;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants;
+import frc.robot.util.FlywheelController;
+import frc.robot.util.ShotMap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlywheelControllerTest {
+
+    static final double DT = 0.02;
+    // Talon closed loop rate, and how finely the flywheel is simulated
+    static final double TALON_DT = 0.001;
+    // Same as the System Check
+    static final double TOLERANCE = 200;
+
+    final LinearSystem<N1, N1, N1> plant = LinearSystemId.identifyVelocitySystem(
+            Constants.Shooter.kV, Constants.Shooter.kA);
+
+    FlywheelController controller() {
+        return new FlywheelController(Constants.Shooter.kV, Constants.Shooter.kA,
+                Constants.Shooter.LQR_VELOCITY_TOLERANCE, Constants.Shooter.LQR_VOLTAGE_TOLERANCE,
+                Constants.Shooter.MODEL_STD_DEV, Constants.Shooter.MEASUREMENT_STD_DEV,
+                Constants.Shooter.MAX_VOLTAGE, DT);
+    }
+
+    static double toRadiansPerSecond(double velocity) {
+        return velocity * 10.0 / Constants.Shooter.TICKS_PER_REV * 2 * Math.PI;
+    }
+
+    static double toNative(double radiansPerSecond) {
+        return radiansPerSecond / (2 * Math.PI) * Constants.Shooter.TICKS_PER_REV / 10.0;
+    }
+
+    @Test
+    public void matchesWpilibLoop() {
+        LinearQuadraticRegulator<N1, N1, N1> lqr = new LinearQuadraticRegulator<>(plant,
+                VecBuilder.fill(Constants.Shooter.LQR_VELOCITY_TOLERANCE),
+                VecBuilder.fill(Constants.Shooter.LQR_VOLTAGE_TOLERANCE), DT);
+        KalmanFilter<N1, N1, N1> observer = new KalmanFilter<>(Nat.N1(), Nat.N1(), plant,
+                VecBuilder.fill(Constants.Shooter.MODEL_STD_DEV),
+                VecBuilder.fill(Constants.Shooter.MEASUREMENT_STD_DEV), DT);
+        LinearSystemLoop<N1, N1, N1> loop = new LinearSystemLoop<>(plant, lqr, observer,
+                Constants.Shooter.MAX_VOLTAGE, DT);
+        FlywheelController controller = controller();
+
+        assertEquals(lqr.getK().get(0, 0), controller.getRegulatorGain(), 1e-6);
+        assertEquals(observer.getK().get(0, 0), controller.getObserverGain(), 1e-6);
+
+        double velocity = 0;
+        for (int i = 0; i < 100; i++) {
+            double reference = i < 50 ? 250 : 100;
+            loop.setNextR(VecBuilder.fill(reference));
+            loop.correct(VecBuilder.fill(velocity));
+            loop.predict(DT);
+            controller.correct(velocity);
+            double voltage = controller.calculate(reference);
+            assertEquals(loop.getU(0), voltage, 1e-6);
+            velocity = plant.calculateX(VecBuilder.fill(velocity), VecBuilder.fill(voltage), DT).get(0, 0);
+        }
+    }
+
+    @Test
+    public void predictsTimeToReach() {
+        FlywheelSim flywheel = simulatedFlywheel(0);
+        FlywheelController controller = controller();
+        double target = toRadiansPerSecond(10000);
+        double tolerance = toRadiansPerSecond(TOLERANCE);
+
+        double predicted = Double.NaN;
+        double time = 0;
+        while (Math.abs(flywheel.getAngularVelocityRadPerSec() - target) >= tolerance) {
+            controller.correct(flywheel.getAngularVelocityRadPerSec());
+            flywheel.setInputVoltage(controller.calculate(target));
+            if (Double.isNaN(predicted)) {
+                predicted = controller.predictTimeToReach(target, tolerance, 3);
+            }
+            flywheel.update(DT);
+            time += DT;
+        }
+        // The model is the same as the simulation, so it should be exact
+        // down to the loop
+        assertEquals(time, predicted, 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, controller.predictTimeToReach(target * 2, tolerance, 3), 0);
+    }
+
+    /**
+     * Time for the flywheel to get within tolerance and stay there, for the
+     * state space controller running in the robot loop.
+     */
+    double stateSpaceTime(double target, double start) {
+        FlywheelSim flywheel = simulatedFlywheel(start);
+        FlywheelController controller = controller();
+        controller.reset(toRadiansPerSecond(start));
+        double settled = Double.NaN;
+        int steps = (int) Math.round(DT / TALON_DT);
+        for (double time = 0; time < 3; time += DT) {
+            controller.correct(flywheel.getAngularVelocityRadPerSec());
+            flywheel.setInputVoltage(controller.calculate(toRadiansPerSecond(target)));
+            for (int i = 1; i <= steps; i++) {
+                flywheel.update(TALON_DT);
+                settled = track(settled, flywheel, target, time + i * TALON_DT);
+            }
+        }
+        return settled;
+    }
+
+    /**
+     * Same as {@link #stateSpaceTime(double, double)}, for the Talon's velocity
+     * PIDF running at 1kHz with the old gains. This leaves out the Talon's
+     * velocity measurement lag, so it's a best case for the PIDF.
+     */
+    double pidfTime(double target, double start) {
+        FlywheelSim flywheel = simulatedFlywheel(start);
+        double settled = Double.NaN;
+        double integral = 0;
+        double lastError = target - start;
+        for (double time = 0; time < 3; time += TALON_DT) {
+            double error = target - toNative(flywheel.getAngularVelocityRadPerSec());
+            integral = Math.abs(error) < 50 ? integral + error : 0;
+            double output = (Constants.Shooter.kF * target + Constants.Shooter.kP * error
+                    + Constants.Shooter.kI * integral + Constants.Shooter.kD * (error - lastError)) / 1023.0;
+            lastError = error;
+            flywheel.setInputVoltage(Math.max(-1, Math.min(1, output)) * Constants.Shooter.MAX_VOLTAGE);
+            flywheel.update(TALON_DT);
+            settled = track(settled, flywheel, target, time + TALON_DT);
+        }
+        return settled;
+    }
+
+    FlywheelSim simulatedFlywheel(double start) {
+        FlywheelSim flywheel = new FlywheelSim(plant, DCMotor.getFalcon500(2), 1.0);
+        flywheel.setState(VecBuilder.fill(toRadiansPerSecond(start)));
+        return flywheel;
+    }
+
+    static double track(double settled, FlywheelSim flywheel, double target, double time) {
+        if (Math.abs(toNative(flywheel.getAngularVelocityRadPerSec()) - target) > TOLERANCE) {
+            return Double.NaN;
+        }
+        return Double.isNaN(settled) ? time : settled;
+    }
+
+    /** The times themselves, and on plants off from the model, are in FlywheelBenchmark. */
+    @Test
+    public void spinsUpAndRecoversFasterThanPidf() throws Exception {
+        ShotMap shotMap = ShotMap.load(new File("src/main/deploy", ShotMap.DEFAULT_FILE));
+        for (double target : shotMap.getPresetRpms()) {
+            assertTrue(stateSpaceTime(target, 0) < pidfTime(target, 0));
+            // A shot takes roughly a fifth of the speed out of the flywheel
+            assertTrue(stateSpaceTime(target, target * 0.8) < pidfTime(target, target * 0.8));
+        }
+    }
+}
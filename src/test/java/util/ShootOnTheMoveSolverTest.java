@@ -0,0 +1,92 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.util.ShootOnTheMoveSolver;
+import frc.robot.util.ShotMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static java.util.Map.entry;
+
+public class ShootOnTheMoveSolverTest {
+
+    static final Translation2d TARGET = new Translation2d(8, 4);
+
+    ShootOnTheMoveSolver solver;
+    ShotMap shotMap = new ShotMap("meters", ShotMap.Interpolation.LINEAR, 0, 3000, -5,
+            new double[] { 2, 6 }, new double[] { 6000, 10000 }, new double[] { -5, -25 });
+
+    @Before
+    public void setup() {
+        TreeMap<Double, Double> timeOfFlight = new TreeMap<>(Map.ofEntries(
+                entry(2.0, 0.8),
+                entry(6.0, 1.6)));
+        solver = new ShootOnTheMoveSolver(TARGET, timeOfFlight, 0.2, 1e-6, 20);
+    }
+
+    @Test
+    public void aimsStraightAtTargetWhenStopped() {
+        solver.solve(4, 4, 0, 0, shotMap);
+        assertEquals(8, solver.getVirtualTargetX(), 1e-9);
+        assertEquals(4, solver.getVirtualTargetY(), 1e-9);
+        assertEquals(0, solver.getHeadingRadians(), 1e-9);
+        assertEquals(0, solver.getHeadingRate(), 1e-9);
+        assertEquals(1.2, solver.getTimeOfFlight(), 1e-9);
+        // Shot map is keyed 0.2 m further out
+        assertEquals(8200, solver.getRpm(), 1e-6);
+        assertEquals(-16, solver.getHoodAngle(), 1e-6);
+    }
+
+    @Test
+    public void leadsTargetWhenMoving() {
+        double vx = 1;
+        double vy = -1.5;
+        solver.solve(4, 4, vx, vy, shotMap);
+
+        // Cargo aimed at the virtual target, plus the robot's velocity, has
+        // to land on the real target after the time of flight
+        double time = solver.getTimeOfFlight();
+        double speed = solver.getDistance() / time;
+        double landX = 4 + (speed * Math.cos(solver.getHeadingRadians()) + vx) * time;
+        double landY = 4 + (speed * Math.sin(solver.getHeadingRadians()) + vy) * time;
+        assertEquals(TARGET.getX(), landX, 1e-4);
+        assertEquals(TARGET.getY(), landY, 1e-4);
+        assertTrue(solver.getIterations() < 20);
+
+        // Driving right of the target, the heading has to turn left
+        assertTrue(solver.getHeadingRate() > 0);
+    }
+
+    @Test
+    public void clampsTimeOfFlightToTable() {
+        assertEquals(0.8, solver.getTimeOfFlight(0.5), 1e-9);
+        assertEquals(1.6, solver.getTimeOfFlight(10), 1e-9);
+        assertEquals(1.0, solver.getTimeOfFlight(3), 1e-9);
+    }
+
+    @Test
+    public void doesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        // Warm up so the JIT has compiled everything before measuring
+        for (int i = 0; i < 20_000; i++) {
+            solver.solve(i % 5, 2, 1, -1, shotMap);
+        }
+
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < 1_000; i++) {
+            solver.solve(i % 5, 2, 1, -1, shotMap);
+        }
+        long after = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+        // getThreadAllocatedBytes can allocate a little itself, but nowhere near
+        // a byte per call
+        assertEquals(0, after - before, 1_000);
+    }
+}
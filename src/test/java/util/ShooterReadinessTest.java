@@ -0,0 +1,84 @@
+package util;
+
+import frc.robot.util.ShooterReadiness;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShooterReadinessTest {
+
+    static final double DT = 0.02;
+
+    ShooterReadiness readiness = new ShooterReadiness(0.2, 0.001, 0.3, 600);
+
+    @Test
+    public void extrapolatesHood() {
+        // Hood closing on 10 at 5 rotations a second
+        double time = 0;
+        for (double position = 0; position <= 5; position += 5 * DT) {
+            readiness.update(time, 0, 0, position, 10);
+            time += DT;
+        }
+        assertEquals(5, readiness.getHoodRate(), 0.01);
+        assertEquals((5 - 0.2) / 5, readiness.getHoodTimeToReady(), 0.01);
+        assertFalse(readiness.isReadyWithin(0.5));
+        assertTrue(readiness.isReadyWithin(1));
+
+        // Moving away from the target, it isn't getting there
+        readiness.update(time, 0, 0, 4, 10);
+        assertEquals(Double.POSITIVE_INFINITY, readiness.getHoodTimeToReady(), 0);
+    }
+
+    @Test
+    public void waitsForSlowest() {
+        readiness.update(0, 0.4, 0, 1, 1);
+        readiness.update(DT, 0.4, 0, 1, 1);
+        assertEquals(0, readiness.getHoodTimeToReady(), 0);
+        assertEquals(0.4, readiness.getTimeToReady(), 0);
+        assertFalse(readiness.isReadyWithin(0.1));
+    }
+
+    @Test
+    public void logsTimeSavedAgainstBaseline() {
+        readiness.startWait(0);
+        readiness.update(0.1, 0, 1000, 0, 0);
+        readiness.finishWait(0.1);
+        assertEquals(Double.NaN, readiness.getLastTimeSaved(), 0);
+
+        // The baseline would have fed once the fixed delay was up and the
+        // error was under its threshold
+        readiness.update(0.3, 0, 1000, 0, 0);
+        readiness.update(0.4, 0, 500, 0, 0);
+        assertEquals(0.3, readiness.getLastTimeSaved(), 1e-9);
+
+        // A shot the baseline would have fed sooner counts against it
+        readiness.startWait(1);
+        readiness.update(1.3, 0.5, 100, 0, 0);
+        readiness.finishWait(1.5);
+        assertEquals(-0.2, readiness.getLastTimeSaved(), 1e-9);
+        assertEquals(0.1, readiness.getTotalTimeSaved(), 1e-9);
+        assertEquals(2, readiness.getShotCount());
+    }
+
+    @Test
+    public void skipsCancelledWait() {
+        readiness.startWait(0);
+        readiness.update(0.1, 0, 1000, 0, 0);
+        readiness.cancelWait();
+        readiness.update(0.4, 0, 500, 0, 0);
+        readiness.finishWait(0.5);
+        assertEquals(Double.NaN, readiness.getLastTimeSaved(), 0);
+        assertEquals(0, readiness.getShotCount());
+
+        // Once fed, cancelling doesn't lose the shot
+        readiness.startWait(1);
+        readiness.update(1.1, 0, 1000, 0, 0);
+        readiness.finishWait(1.1);
+        readiness.cancelWait();
+        readiness.update(1.4, 0, 500, 0, 0);
+        assertEquals(0.3, readiness.getLastTimeSaved(), 1e-9);
+        assertEquals(1, readiness.getShotCount());
+    }
+}
@@ -0,0 +1,113 @@
+package util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import frc.robot.util.ShotMap;
+import frc.robot.util.ShotMap.Interpolation;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShotMapTest {
+
+    static final double DELTA = 1e-9;
+
+    ShotMap.Shot shot = new ShotMap.Shot();
+
+    ShotMap map(Interpolation interpolation) {
+        return new ShotMap("thor", interpolation, -1000, 3000, -5,
+                new double[] { 100, 110, 120, 130, 145 },
+                new double[] { 12000, 11000, 10000, 9000, 9000 },
+                new double[] { -18, -17, -15, -12, -20 },
+                new String[] { "Low Goal" }, new double[] { 2500 }, new double[] { -6 });
+    }
+
+    @Test
+    public void interpolatesLinearly() {
+        ShotMap map = map(Interpolation.LINEAR);
+        map.lookup(105, shot);
+        assertEquals(11500 - 1000, shot.rpm, DELTA);
+        assertEquals(-17.5, shot.hoodAngle, DELTA);
+
+        map.lookup(120, shot);
+        assertEquals(10000 - 1000, shot.rpm, DELTA);
+        assertEquals(-15, shot.hoodAngle, DELTA);
+    }
+
+    @Test
+    public void clampsToTheEnds() {
+        ShotMap map = map(Interpolation.LINEAR);
+        map.lookup(0, shot);
+        assertEquals(12000 - 1000, shot.rpm, DELTA);
+        assertEquals(-18, shot.hoodAngle, DELTA);
+
+        map.lookup(1000, shot);
+        assertEquals(9000 - 1000, shot.rpm, DELTA);
+        assertEquals(-20, shot.hoodAngle, DELTA);
+    }
+
+    @Test
+    public void usesNoTargetShot() {
+        map(Interpolation.LINEAR).noTarget(shot);
+        assertEquals(3000, shot.rpm, DELTA);
+        assertEquals(-5, shot.hoodAngle, DELTA);
+    }
+
+    @Test
+    public void cubicHitsPointsWithoutOvershooting() {
+        ShotMap map = map(Interpolation.MONOTONE_CUBIC);
+        map.lookup(110, shot);
+        assertEquals(11000 - 1000, shot.rpm, DELTA);
+
+        // Flat between 130 and 145, a regular cubic spline would bulge here
+        for (double key = 130; key <= 145; key += 0.5) {
+            map.lookup(key, shot);
+            assertEquals(9000 - 1000, shot.rpm, DELTA);
+        }
+        // Hood turns around at 130, it must stay between its neighbours
+        for (double key = 120; key <= 145; key += 0.5) {
+            map.lookup(key, shot);
+            assertTrue(shot.hoodAngle <= -12 + DELTA && shot.hoodAngle >= -20 - DELTA);
+        }
+    }
+
+    @Test
+    public void looksUpPresets() {
+        ShotMap map = map(Interpolation.LINEAR);
+        assertTrue(map.preset("Low Goal", shot));
+        assertEquals(2500, shot.rpm, DELTA);
+        assertEquals(-6, shot.hoodAngle, DELTA);
+
+        // Missing presets fall back to the no target shot
+        assertEquals(false, map.preset("Launch Pad", shot));
+        assertEquals(3000, shot.rpm, DELTA);
+        assertEquals(-5, map.getPresetHood("Launch Pad"), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsortedKeys() {
+        new ShotMap("thor", Interpolation.LINEAR, 0, 3000, -5,
+                new double[] { 100, 90 }, new double[] { 1, 2 }, new double[] { 1, 2 });
+    }
+
+    @Test
+    public void roundTripsThroughJson() throws IOException {
+        File file = File.createTempFile("shotmap", ".json");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(map(Interpolation.MONOTONE_CUBIC).toJson().toJSONString());
+        }
+
+        ShotMap loaded = ShotMap.load(file);
+        assertEquals(Interpolation.MONOTONE_CUBIC, loaded.getInterpolation());
+        loaded.lookup(125, shot);
+        ShotMap.Shot expected = new ShotMap.Shot();
+        map(Interpolation.MONOTONE_CUBIC).lookup(125, expected);
+        assertEquals(expected.rpm, shot.rpm, DELTA);
+        assertEquals(expected.hoodAngle, shot.hoodAngle, DELTA);
+        assertEquals(2500, loaded.getPresetRpm("Low Goal"), DELTA);
+    }
+}
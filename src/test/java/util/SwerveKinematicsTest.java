@@ -0,0 +1,113 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants;
+import frc.robot.util.SwerveKinematics;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SwerveKinematicsTest {
+
+    static final double DELTA = 1e-9;
+    static final double MAX_SPEED = Constants.Swerve.MAX_VELOCITY_METERS;
+
+    SwerveKinematics kinematics;
+    SwerveDriveKinematics wpilibKinematics;
+    double[] speeds = new double[4];
+    double[] angles = new double[4];
+
+    @Before
+    public void setup() {
+        double x = Constants.Drivetrain.TRACKWIDTH_METERS;
+        double y = Constants.Drivetrain.WHEELBASE_METERS;
+        kinematics = new SwerveKinematics(x, y);
+        wpilibKinematics = new SwerveDriveKinematics(
+                new Translation2d(x / 2.0, y / 2.0),
+                new Translation2d(x / 2.0, -y / 2.0),
+                new Translation2d(-x / 2.0, y / 2.0),
+                new Translation2d(-x / 2.0, -y / 2.0));
+    }
+
+    @Test
+    public void matchesWpilibInverseKinematics() {
+        double[][] cases = { { 1, 0, 0 }, { 0, -2, 0 }, { 0, 0, 3 }, { 1.5, -0.5, 2 }, { 4, 3, -9 } };
+        for (double[] speedsCase : cases) {
+            SwerveModuleState[] expected = wpilibKinematics
+                    .toSwerveModuleStates(new ChassisSpeeds(speedsCase[0], speedsCase[1], speedsCase[2]));
+            SwerveDriveKinematics.desaturateWheelSpeeds(expected, MAX_SPEED);
+
+            kinematics.toModuleStates(speedsCase[0], speedsCase[1], speedsCase[2], speeds, angles);
+            SwerveKinematics.desaturate(speeds, MAX_SPEED);
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals(expected[i].speedMetersPerSecond, speeds[i], DELTA);
+                assertEquals(expected[i].angle.getRadians(), angles[i], DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void keepsAnglesWhenStopped() {
+        kinematics.toModuleStates(0, 0, 1, speeds, angles);
+        double[] previous = angles.clone();
+        kinematics.toModuleStates(0, 0, 0, speeds, angles);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, speeds[i], DELTA);
+            assertEquals(previous[i], angles[i], DELTA);
+        }
+    }
+
+    @Test
+    public void matchesWpilibForwardKinematics() {
+        SwerveModuleState[] states = {
+                new SwerveModuleState(1.0, new Rotation2d(0.3)),
+                new SwerveModuleState(1.4, new Rotation2d(-0.2)),
+                new SwerveModuleState(0.7, new Rotation2d(1.1)),
+                new SwerveModuleState(-0.5, new Rotation2d(2.0)) };
+        ChassisSpeeds expected = wpilibKinematics.toChassisSpeeds(states);
+
+        for (int i = 0; i < 4; i++) {
+            speeds[i] = states[i].speedMetersPerSecond;
+            angles[i] = states[i].angle.getRadians();
+        }
+        double[] out = new double[3];
+        kinematics.toChassisSpeeds(speeds, angles, out);
+
+        assertEquals(expected.vxMetersPerSecond, out[0], DELTA);
+        assertEquals(expected.vyMetersPerSecond, out[1], DELTA);
+        assertEquals(expected.omegaRadiansPerSecond, out[2], DELTA);
+    }
+
+    @Test
+    public void doesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        double[] out = new double[3];
+        // Warm up so the JIT has compiled everything before measuring
+        for (int i = 0; i < 20_000; i++) {
+            kinematics.toModuleStates(i % 3, 1, 2, speeds, angles);
+            SwerveKinematics.desaturate(speeds, MAX_SPEED);
+            kinematics.toChassisSpeeds(speeds, angles, out);
+        }
+
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < 1_000; i++) {
+            kinematics.toModuleStates(i % 3, 1, 2, speeds, angles);
+            SwerveKinematics.desaturate(speeds, MAX_SPEED);
+            kinematics.toChassisSpeeds(speeds, angles, out);
+        }
+        long after = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+        // getThreadAllocatedBytes can allocate a little itself, but nowhere near
+        // a byte per call
+        assertEquals(0, after - before, 1_000);
+    }
+}
@@ -0,0 +1,54 @@
+package util;
+
+import frc.robot.util.TurretAngles;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TurretAnglesTest {
+
+    static final double DELTA = 1e-9;
+    static final double[] POLES = new double[] { 45, -45 };
+
+    @Test
+    public void takesShortestWayAround() {
+        assertEquals(-170, TurretAngles.chooseSetpoint(190, -150, -200, 200), DELTA);
+        assertEquals(190, TurretAngles.chooseSetpoint(-170, 150, -200, 200), DELTA);
+        assertEquals(10, TurretAngles.chooseSetpoint(370, 0, -200, 200), DELTA);
+    }
+
+    @Test
+    public void unwindsInsteadOfPassingSoftLimit() {
+        // 210 is past the limit, so go the long way to -150
+        assertEquals(-150, TurretAngles.chooseSetpoint(210, 190, -200, 200), DELTA);
+    }
+
+    @Test
+    public void staysBetweenPoles() {
+        double lower = TurretAngles.lowerBound(0, -200, 200, POLES, 8);
+        double upper = TurretAngles.upperBound(0, -200, 200, POLES, 8);
+        assertEquals(-41, lower, DELTA);
+        assertEquals(41, upper, DELTA);
+        // Can't get to the back without passing a pole, get as close as possible
+        assertEquals(41, TurretAngles.chooseSetpoint(90, 0, lower, upper), DELTA);
+        assertEquals(-41, TurretAngles.chooseSetpoint(-90, 0, lower, upper), DELTA);
+    }
+
+    @Test
+    public void goesAroundBackInsteadOfThroughPole() {
+        double lower = TurretAngles.lowerBound(90, -200, 200, POLES, 8);
+        double upper = TurretAngles.upperBound(90, -200, 200, POLES, 8);
+        assertEquals(49, lower, DELTA);
+        assertEquals(200, upper, DELTA);
+        // -170 is shorter going forward through the pole, but 190 is reachable
+        assertEquals(190, TurretAngles.chooseSetpoint(-170, 90, lower, upper), DELTA);
+    }
+
+    @Test
+    public void backsOutOfPole() {
+        double lower = TurretAngles.lowerBound(44, -200, 200, POLES, 8);
+        double upper = TurretAngles.upperBound(44, -200, 200, POLES, 8);
+        assertEquals(-41, lower, DELTA);
+        assertEquals(200, upper, DELTA);
+    }
+}